@@ -0,0 +1,168 @@
+package org.example.nirsshop.cache;
+
+import org.example.nirsshop.event.CategoryDeletedEvent;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.event.ProductImagesChangedEvent;
+import org.example.nirsshop.event.ProductStockChangedEvent;
+import org.example.nirsshop.model.dto.ProductCacheStatsDto;
+import org.example.nirsshop.model.dto.ProductDto;
+import org.example.nirsshop.model.dto.ProductImageDto;
+import org.example.nirsshop.model.dto.VersionedProductDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LRU-кэш карточек товара (ProductDto вместе с версией товара) по productId, ограниченный суммарным размером в байтах.
+ * Запись сбрасывается после коммита изменений товара, его картинок или остатков.
+ * Чтобы загрузка, начатая до коммита, не положила в кэш устаревшую карточку,
+ * у каждого товара есть счётчик сбросов: результат сохраняется, только если счётчик не изменился.
+ * Полный сброс меняет общую эпоху - это отсекает и загрузки товаров, которых в момент сброса не было в кэше.
+ */
+@Component
+public class ProductDetailCache {
+
+    private final long maxWeight;
+
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Integer, Long> generations = new HashMap<>();
+    private long epoch;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private record Entry(VersionedProductDto product, int weight) {}
+
+    public ProductDetailCache(@Value("${catalog.product-cache.max-bytes:16777216}") long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public VersionedProductDto get(Integer productId, Supplier<VersionedProductDto> loader) {
+        long generation;
+        long startEpoch;
+        synchronized (this) {
+            Entry entry = entries.get(productId);
+            if (entry != null) {
+                hits++;
+                return entry.product();
+            }
+            misses++;
+            generation = generations.getOrDefault(productId, 0L);
+            startEpoch = epoch;
+        }
+
+        VersionedProductDto product = loader.get();
+        int productWeight = weigh(product.product()) + 24;
+
+        synchronized (this) {
+            if (startEpoch == epoch && generation == generations.getOrDefault(productId, 0L)
+                    && productWeight <= maxWeight) {
+                Entry previous = entries.put(productId, new Entry(product, productWeight));
+                if (previous != null) {
+                    weight -= previous.weight();
+                }
+                weight += productWeight;
+                evictOverflow();
+            }
+        }
+        return product;
+    }
+
+    public synchronized void invalidate(Integer productId) {
+        generations.merge(productId, 1L, Long::sum);
+        Entry removed = entries.remove(productId);
+        if (removed != null) {
+            weight -= removed.weight();
+            invalidations++;
+        }
+    }
+
+    public synchronized void clear() {
+        // Загрузки, начатые до сброса, не сохранятся по эпохе, так что счётчики по товарам больше не нужны
+        epoch++;
+        generations.clear();
+        invalidations += entries.size();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized ProductCacheStatsDto stats() {
+        long requests = hits + misses;
+        return new ProductCacheStatsDto(
+                hits,
+                misses,
+                evictions,
+                invalidations,
+                entries.size(),
+                weight,
+                maxWeight,
+                requests == 0 ? 0.0 : (double) hits / requests
+        );
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.productId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        clear();
+    }
+
+    // Удаление категории обнуляет её у всех товаров, а карточки содержат категорию
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryDeleted(CategoryDeletedEvent event) {
+        clear();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImagesChanged(ProductImagesChangedEvent event) {
+        invalidate(event.productId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        invalidate(event.productId());
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Приблизительный размер карточки в памяти: строки по 2 байта на символ плюс заголовки объектов
+    static int weigh(ProductDto product) {
+        int size = 96 + chars(product.name()) + chars(product.article()) + chars(product.description())
+                + chars(product.gender()) + chars(product.primaryImageUrl());
+        if (product.images() != null) {
+            for (ProductImageDto image : product.images()) {
+                size += 64 + chars(image.imageUrl());
+            }
+        }
+        if (product.availableSizes() != null) {
+            for (String sizeValue : product.availableSizes()) {
+                size += chars(sizeValue);
+            }
+        }
+        return size;
+    }
+
+    private static int chars(String value) {
+        return value == null ? 0 : 40 + 2 * value.length();
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.nirsshop.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.event.CategoryDeletedEvent;
+import org.example.nirsshop.model.Category;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Сбрасывает второй уровень кэша там, где строки меняет сама БД, а не Hibernate.
+ * Обычные create/update/delete категорий и магазинов Hibernate инвалидирует сам.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataCacheListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // ON DELETE SET NULL меняет parent_id дочерних категорий в обход кэша
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryDeleted(CategoryDeletedEvent event) {
+        entityManagerFactory.getCache().evict(Category.class);
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.nirsshop.config;
+
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.service.ProductSearchService;
+import org.example.nirsshop.service.impl.InMemoryProductSearchService;
+import org.example.nirsshop.service.impl.PostgresProductSearchService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Configuration
+public class ProductSearchConfig {
+
+    @Bean
+    public ProductSearchService productSearchService(DataSource dataSource,
+                                                     ProductRepository productRepository) throws SQLException {
+        String database;
+        try (Connection connection = dataSource.getConnection()) {
+            database = connection.getMetaData().getDatabaseProductName();
+        }
+        // Триграммы и tsvector есть только в PostgreSQL, для H2 держим индекс в памяти
+        return "PostgreSQL".equalsIgnoreCase(database)
+                ? new PostgresProductSearchService(productRepository)
+                : new InMemoryProductSearchService(productRepository);
+    }
+}
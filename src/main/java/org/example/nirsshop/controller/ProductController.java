@@ -1,22 +1,38 @@
 package org.example.nirsshop.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.export.ExportFormat;
 import org.example.nirsshop.model.createdto.ProductCreateDto;
 import org.example.nirsshop.model.createdto.ProductGlobalStockCreateDto;
 import org.example.nirsshop.model.createdto.ProductStoreCreateDto;
 import org.example.nirsshop.model.dto.*;
+import org.example.nirsshop.pagination.ProductSort;
+import org.example.nirsshop.projection.ProductField;
+import org.example.nirsshop.service.ProductFacetService;
 import org.example.nirsshop.service.ProductGlobalStockService;
 import org.example.nirsshop.service.ProductService;
 import org.example.nirsshop.service.ProductStoreService;
+import org.example.nirsshop.trending.TrendingWindow;
+import org.example.nirsshop.versioning.ProductETags;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
@@ -26,6 +42,7 @@ public class ProductController {
     private final ProductService productService;
     private final ProductGlobalStockService productGlobalStockService;
     private final ProductStoreService productStoreService;
+    private final ProductFacetService productFacetService;
 
     @GetMapping
     public ResponseEntity<Page<ProductDto>> getAllProducts(
@@ -38,23 +55,280 @@ public class ProductController {
             @RequestParam(required = false) Boolean inStock,
             @RequestParam(required = false) Integer storeId,
             @RequestParam(required = false) Double rating,
+            @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int pageSize) {
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) String view,
+            WebRequest request) {
+
+        // Сюда попадает только view, отличный от summary
+        if (view != null) {
+            throw new BadRequestException("Unsupported view: " + view);
+        }
+
+        // Версия каталога - одна строка catalog_version: неизменившийся список не выбираем и не сериализуем.
+        // Пока индексы в памяти не догнали последнюю запись, список отдаётся без ETag
+        String eTag = catalogETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
 
-        Pageable pageable = PageRequest.of(page, pageSize);
+        Pageable pageable = PageRequest.of(page, pageSize, ProductSort.fromKey(sort).toSort());
 
         Page<ProductDto> products = productService.findByFilters(
                 categoryId, minPrice, maxPrice, gender, sizeValues,
                 search, inStock, storeId, rating, pageable
         );
-        return ResponseEntity.ok(products);
+        return catalogResponse(eTag, products);
+    }
+
+    /**
+     * Облегчённый список для витрины: id, название, артикул, цена, рейтинг, категория и главная картинка
+     * GET /api/products?view=summary
+     */
+    @GetMapping(params = {"view=summary", "!fields", "!after", "withTotal!=false"})
+    public ResponseEntity<Page<Map<String, Object>>> getProductsSummary(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) List<String> sizeValues,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer storeId,
+            @RequestParam(required = false) Double rating,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int pageSize,
+            WebRequest request) {
+
+        return getProductsProjected(categoryId, minPrice, maxPrice, gender, sizeValues, search, inStock, storeId,
+                rating, sort, page, pageSize, ProductField.SUMMARY, request);
+    }
+
+    /**
+     * Только перечисленные поля товара (sparse fieldset)
+     * GET /api/products?fields=id,name,price,primaryImageUrl
+     */
+    @GetMapping(params = {"fields", "!after", "withTotal!=false"})
+    public ResponseEntity<Page<Map<String, Object>>> getProductsFields(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) List<String> sizeValues,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer storeId,
+            @RequestParam(required = false) Double rating,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam String fields,
+            @RequestParam(required = false) String view,
+            WebRequest request) {
+
+        if (view != null) {
+            throw new BadRequestException("Use either view or fields, not both");
+        }
+        return getProductsProjected(categoryId, minPrice, maxPrice, gender, sizeValues, search, inStock, storeId,
+                rating, sort, page, pageSize, ProductField.parse(fields), request);
+    }
+
+    private ResponseEntity<Page<Map<String, Object>>> getProductsProjected(
+            Integer categoryId, Integer minPrice, Integer maxPrice, String gender, List<String> sizeValues,
+            String search, Boolean inStock, Integer storeId, Double rating, String sort,
+            int page, int pageSize, Set<ProductField> fields, WebRequest request) {
+
+        String eTag = catalogETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        Pageable pageable = PageRequest.of(page, pageSize, ProductSort.fromKey(sort).toSort());
+
+        Page<Map<String, Object>> products = productService.findProjectedByFilters(
+                categoryId, minPrice, maxPrice, gender, sizeValues,
+                search, inStock, storeId, rating, fields, pageable
+        );
+        return catalogResponse(eTag, products);
+    }
+
+    /**
+     * Список без подсчёта общего количества: только content и hasNext
+     * GET /api/products?withTotal=false
+     */
+    @GetMapping(params = {"withTotal=false", "!after"})
+    public ResponseEntity<SliceDto<ProductDto>> getProductsSlice(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) List<String> sizeValues,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer storeId,
+            @RequestParam(required = false) Double rating,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+
+        rejectProjection(view, fields, "withTotal=false");
+        String eTag = catalogETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        Pageable pageable = PageRequest.of(page, pageSize, ProductSort.fromKey(sort).toSort());
+
+        SliceDto<ProductDto> products = productService.findSliceByFilters(
+                categoryId, minPrice, maxPrice, gender, sizeValues,
+                search, inStock, storeId, rating, pageable
+        );
+        return catalogResponse(eTag, products);
+    }
+
+    /**
+     * Keyset-пагинация по курсору: первый запрос с пустым after, дальше — nextCursor из ответа
+     * GET /api/products?after=&pageSize=20
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDto<ProductDto>> getProductsAfter(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) List<String> sizeValues,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer storeId,
+            @RequestParam(required = false) Double rating,
+            @RequestParam(required = false) String sort,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+
+        rejectProjection(view, fields, "after");
+        String eTag = catalogETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        CursorPageDto<ProductDto> products = productService.findByFiltersAfter(
+                categoryId, minPrice, maxPrice, gender, sizeValues,
+                search, inStock, storeId, rating, ProductSort.fromKey(sort), after, pageSize
+        );
+        return catalogResponse(eTag, products);
+    }
+
+    // ETag по версии каталога, которую уже отражают индексы; null - индексы ещё догоняют запись
+    private String catalogETag() {
+        Long version = productService.getIndexedCatalogVersion();
+        return version != null ? ProductETags.catalog(version) : null;
+    }
+
+    private static <T> ResponseEntity<T> catalogResponse(String eTag, T body) {
+        return eTag != null ? ResponseEntity.ok().eTag(eTag).body(body) : ResponseEntity.ok(body);
+    }
+
+    // Проекции есть только у обычного постраничного списка; молча отдать полные карточки было бы хуже ошибки
+    private static void rejectProjection(String view, String fields, String mode) {
+        if (view != null || fields != null) {
+            throw new BadRequestException("view and fields are not supported with " + mode);
+        }
+    }
+
+
+    /**
+     * Количество товаров по каждому значению фасетов (категория, пол, размер, цена)
+     * GET /api/products/facets?gender=male&inStock=true
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDto> getFacets(
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) List<String> sizeValues,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Integer storeId,
+            @RequestParam(required = false) Double rating) {
+
+        ProductFacetsDto facets = productFacetService.getFacets(
+                categoryId, minPrice, maxPrice, gender, sizeValues,
+                search, inStock, storeId, rating
+        );
+        return ResponseEntity.ok(facets);
+    }
+
+    /**
+     * Статистика кэша карточек товара
+     * GET /api/products/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ProductCacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
+    /**
+     * Выгрузка всего каталога потоком, для фидов
+     * GET /api/products/export?format=ndjson|csv
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromKey(format);
+        StreamingResponseBody body = output -> productService.exportCatalog(exportFormat, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
+    /**
+     * Массовый импорт каталога: новые товары создаются, существующие обновляются по артикулу
+     * POST /api/products/import?format=ndjson|csv, файл в теле запроса
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ProductImportResultDto> importProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            InputStream body) throws IOException {
+        ProductImportResultDto result = productService.importCatalog(ExportFormat.fromKey(format), body);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Несколько карточек за один запрос (корзина, избранное, недавно просмотренные)
+     * GET /api/products/batch?ids=5,3,9
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<ProductBatchDto> getProductsByIds(@RequestParam List<Integer> ids, WebRequest request) {
+        String eTag = catalogETag();
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+        ProductBatchDto products = productService.findAllByIds(ids);
+        return catalogResponse(eTag, products);
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getProductById(@PathVariable Integer id) {
-        ProductDto product = productService.findById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<ProductDto> getProductById(@PathVariable Integer id, WebRequest request) {
+        // ETag и тело из одной записи кэша: до сброса кэша отдаём старую карточку со старой версией
+        VersionedProductDto product = productService.findVersionedById(id);
+        String eTag = ProductETags.product(id, product.version());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(product.product());
     }
 
     @PostMapping
@@ -163,9 +437,22 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * Самые продаваемые товары за последний час, день или неделю
+     * GET /api/products/trending?window=day&limit=10
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingProductDto>> getTrendingProducts(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<TrendingProductDto> products = productService.getTrendingProducts(TrendingWindow.fromKey(window), limit);
+        return ResponseEntity.ok(products);
+    }
+
     @GetMapping("/top-income")
     public ResponseEntity<List<TopIncomeProductDto>> getTopIncomeProducts(
             @RequestParam(defaultValue = "10") int limit) {
+        // Отдаётся из счётчиков в памяти, а не из product_stats, поэтому без заголовков актуальности
         List<TopIncomeProductDto> products = productService.getTopIncomeProducts(limit);
         return ResponseEntity.ok(products);
     }
@@ -174,7 +461,7 @@ public class ProductController {
     public ResponseEntity<List<TopCleanIncomeProductDto>> getTopCleanIncomeProducts(
             @RequestParam(defaultValue = "10") int limit) {
         List<TopCleanIncomeProductDto> products = productService.getTopCleanIncomeProducts(limit);
-        return ResponseEntity.ok(products);
+        return statsResponse(products);
     }
 
     @GetMapping("/stats")
@@ -182,7 +469,27 @@ public class ProductController {
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "total_sold") String orderBy) {
         List<ProductStatsDto> products = productService.getProductStats(limit, orderBy);
-        return ResponseEntity.ok(products);
+        return statsResponse(products);
+    }
+
+    /**
+     * Когда обновлялась статистика продаж и насколько она отстаёт от заказов
+     * GET /api/products/stats/freshness
+     */
+    @GetMapping("/stats/freshness")
+    public ResponseEntity<ProductStatsFreshnessDto> getStatsFreshness() {
+        return ResponseEntity.ok(productService.getStatsFreshness());
+    }
+
+    // Ответы по product_stats несут время обновления и отставание в заголовках, тело не меняется
+    private <T> ResponseEntity<T> statsResponse(T body) {
+        ProductStatsFreshnessDto freshness = productService.getStatsFreshness();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Stats-Staleness-Ms", String.valueOf(freshness.stalenessMillis()));
+        if (freshness.refreshedAt() != null) {
+            response.header("X-Stats-Refreshed-At", freshness.refreshedAt().toString());
+        }
+        return response.body(body);
     }
 
 
@@ -192,9 +499,13 @@ public class ProductController {
      * GET /api/products/{id}/sizes
      */
     @GetMapping("/{id}/sizes")
-    public ResponseEntity<List<String>> getAvailableSizes(@PathVariable Integer id) {
+    public ResponseEntity<List<String>> getAvailableSizes(@PathVariable Integer id, WebRequest request) {
+        String eTag = ProductETags.sizes(id, productService.getVersion(id));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         List<String> sizes = productService.getAvailableSizes(id);
-        return ResponseEntity.ok(sizes);
+        return ResponseEntity.ok().eTag(eTag).body(sizes);
     }
 
     /**
@@ -234,14 +545,35 @@ public class ProductController {
 
 
     /**
-     * Поиск товаров по имени
-     * GET /api/products/search?query=куртка
+     * Полнотекстовый поиск по названию, артикулу, описанию и категории (BM25, подсветка)
+     * GET /api/products/search?query=куртка&page=0&pageSize=20
      */
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDto>> searchProducts(@RequestParam String query) {
-        List<ProductDto> products = productService.searchByName(query);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<ProductSearchPageDto> searchProducts(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int pageSize) {
+        return ResponseEntity.ok(productService.searchPage(query, page, pageSize));
+    }
+
+    /**
+     * Поиск с опечатками по словам названия и категории
+     * GET /api/products/search/fuzzy?query=кутрка
+     */
+    @GetMapping("/search/fuzzy")
+    public ResponseEntity<List<ProductDto>> fuzzySearchProducts(@RequestParam String query) {
+        return ResponseEntity.ok(productService.fuzzySearchByName(query));
     }
 
+    /**
+     * Автодополнение по началу названия или артикула, популярные товары первыми
+     * GET /api/products/suggest?prefix=кур&limit=10
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDto>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
+    }
 
 }
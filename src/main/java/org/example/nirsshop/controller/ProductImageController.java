@@ -4,9 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.example.nirsshop.model.createdto.ProductImageCreateDto;
 import org.example.nirsshop.model.dto.ProductImageDto;
 import org.example.nirsshop.service.ProductImageService;
+import org.example.nirsshop.service.ProductService;
+import org.example.nirsshop.versioning.ProductETags;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,11 +19,16 @@ import java.util.List;
 public class ProductImageController {
 
     private final ProductImageService productImageService;
+    private final ProductService productService;
 
     @GetMapping
-    public ResponseEntity<List<ProductImageDto>> getProductImages(@PathVariable Integer productId) {
+    public ResponseEntity<List<ProductImageDto>> getProductImages(@PathVariable Integer productId, WebRequest request) {
+        String eTag = ProductETags.images(productId, productService.getVersion(productId));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         List<ProductImageDto> images = productImageService.findByProductId(productId);
-        return ResponseEntity.ok(images);
+        return ResponseEntity.ok().eTag(eTag).body(images);
     }
 
     @GetMapping("/{imageId}")
@@ -0,0 +1,89 @@
+package org.example.nirsshop.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.model.dto.*;
+import org.example.nirsshop.rollup.SalesPeriod;
+import org.example.nirsshop.service.SalesAnalyticsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics/sales")
+@RequiredArgsConstructor
+public class SalesAnalyticsController {
+
+    private final SalesAnalyticsService salesAnalyticsService;
+
+    /**
+     * Продажи по дням, неделям или месяцам
+     * GET /api/analytics/sales?from=2026-01-01&to=2026-03-31&period=week&categoryId=2
+     */
+    @GetMapping
+    public ResponseEntity<List<SalesDayDto>> getSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String period,
+            @RequestParam(required = false) Integer productId,
+            @RequestParam(required = false) Integer categoryId) {
+        List<SalesDayDto> sales = salesAnalyticsService.getSales(
+                from, to, SalesPeriod.fromKey(period), productId, categoryId);
+        return ResponseEntity.ok(sales);
+    }
+
+    /**
+     * Продажи по часам
+     * GET /api/analytics/sales/hourly?from=2026-10-18T00:00:00&to=2026-10-19T00:00:00
+     */
+    @GetMapping("/hourly")
+    public ResponseEntity<List<SalesHourDto>> getHourlySales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer productId,
+            @RequestParam(required = false) Integer categoryId) {
+        return ResponseEntity.ok(salesAnalyticsService.getHourlySales(from, to, productId, categoryId));
+    }
+
+    /**
+     * Продажи по категориям за период
+     * GET /api/analytics/sales/by-category?from=2026-01-01&to=2026-12-31
+     */
+    @GetMapping("/by-category")
+    public ResponseEntity<List<SalesCategoryDto>> getSalesByCategory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesAnalyticsService.getSalesByCategory(from, to));
+    }
+
+    /**
+     * Товары с наибольшей выручкой за период
+     * GET /api/analytics/sales/top-products?from=2026-01-01&to=2026-12-31&limit=10
+     */
+    @GetMapping("/top-products")
+    public ResponseEntity<List<SalesProductDto>> getTopProducts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(salesAnalyticsService.getTopProducts(from, to, categoryId, limit));
+    }
+
+    /**
+     * Запуск пересборки дневных агрегатов из истории заказов
+     * POST /api/analytics/sales/backfill
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<RollupBackfillStatusDto> startBackfill() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(salesAnalyticsService.startBackfill());
+    }
+
+    @GetMapping("/backfill")
+    public ResponseEntity<RollupBackfillStatusDto> getBackfillStatus() {
+        return ResponseEntity.ok(salesAnalyticsService.getBackfillStatus());
+    }
+}
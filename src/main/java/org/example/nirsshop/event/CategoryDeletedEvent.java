@@ -0,0 +1,5 @@
+package org.example.nirsshop.event;
+
+// Удалена категория; у дочерних категорий и товаров БД обнуляет parent_id и category_id (ON DELETE SET NULL).
+// Публикуется до удаления в той же транзакции
+public record CategoryDeletedEvent(Integer categoryId) {}
@@ -0,0 +1,4 @@
+package org.example.nirsshop.event;
+
+// Изменено название категории: его копии в индексах товаров категории устарели
+public record CategoryRenamedEvent(Integer categoryId) {}
@@ -0,0 +1,4 @@
+package org.example.nirsshop.event;
+
+// Заказ создан, изменён или удалён (вместе с заказом каскадно удаляются его позиции)
+public record OrderChangedEvent(Integer orderId) {}
@@ -0,0 +1,4 @@
+package org.example.nirsshop.event;
+
+// Товар создан, изменён или удалён; слушатели перечитывают его состояние из БД после коммита
+public record ProductChangedEvent(Integer productId) {}
@@ -0,0 +1,4 @@
+package org.example.nirsshop.event;
+
+// Изменились картинки товара (product_image)
+public record ProductImagesChangedEvent(Integer productId) {}
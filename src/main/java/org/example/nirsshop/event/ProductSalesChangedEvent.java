@@ -0,0 +1,5 @@
+package org.example.nirsshop.event;
+
+// Изменились продажи товара (позиции заказов product_order): quantityDelta - на сколько изменилось число проданных единиц,
+// revenueDelta - на сколько изменилась выручка по цене позиции (unit_price), а не по текущей цене товара
+public record ProductSalesChangedEvent(Integer productId, int quantityDelta, long revenueDelta) {}
@@ -0,0 +1,4 @@
+package org.example.nirsshop.event;
+
+// Изменились остатки товара по размерам (product_store_size)
+public record ProductStockChangedEvent(Integer productId) {}
@@ -0,0 +1,4 @@
+package org.example.nirsshop.event;
+
+// Массовый импорт изменил каталог; слушатели перестраивают свои индексы целиком, а не по товару
+public record ProductsImportedEvent(int inserted, int updated) {}
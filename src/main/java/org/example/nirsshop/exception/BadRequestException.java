@@ -0,0 +1,7 @@
+package org.example.nirsshop.exception;
+
+public class BadRequestException extends ApiException {
+    public BadRequestException(String message) {
+        super(message, 400);
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.nirsshop.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.exception.BadRequestException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Форматы выгрузки каталога. Обе записи построчные: строка пишется сразу в поток ответа,
+ * без сборки документа в памяти.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+
+    // Один JSON-объект на строку; строки пишет JsonGenerator из общего JsonMapper
+    NDJSON("ndjson", "application/x-ndjson", "ndjson") {
+        @Override
+        public RowWriter open(Writer out, JsonMapper jsonMapper) {
+            // Без разделителя корневых значений: объекты разделяет только перевод строки после каждого
+            JsonGenerator json = jsonMapper.writer().withRootValueSeparator("").createGenerator(out);
+            return new RowWriter() {
+                @Override
+                public void writeRow(ProductExportRow row) {
+                    json.writeStartObject();
+                    writeNumber(json, "id", row.productId());
+                    writeString(json, "name", row.name());
+                    writeString(json, "article", row.article());
+                    writeNumber(json, "price", row.price());
+                    writeNumber(json, "weight", row.weight());
+                    writeString(json, "description", row.description());
+                    writeString(json, "gender", row.gender());
+                    writeNumber(json, "rating", row.rating());
+                    writeNumber(json, "categoryId", row.categoryId());
+                    json.writeName("sizes");
+                    json.writeStartObject();
+                    for (Map.Entry<String, Long> size : row.sizes().entrySet()) {
+                        writeNumber(json, size.getKey(), size.getValue());
+                    }
+                    json.writeEndObject();
+                    writeNumber(json, "totalQuantity", row.totalQuantity());
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                }
+
+                @Override
+                public void flush() {
+                    json.flush();
+                }
+            };
+        }
+    },
+
+    // RFC 4180, размеры одной колонкой вида "L:3;M:5"
+    CSV("csv", "text/csv", "csv") {
+        @Override
+        public RowWriter open(Writer out, JsonMapper jsonMapper) throws IOException {
+            out.write("id,name,article,price,weight,description,gender,rating,categoryId,sizes,totalQuantity\r\n");
+            return new RowWriter() {
+                @Override
+                public void writeRow(ProductExportRow row) throws IOException {
+                    StringBuilder sizes = new StringBuilder();
+                    for (Map.Entry<String, Long> size : row.sizes().entrySet()) {
+                        if (!sizes.isEmpty()) {
+                            sizes.append(';');
+                        }
+                        sizes.append(size.getKey()).append(':').append(size.getValue());
+                    }
+                    writeCsv(out, row.productId());
+                    out.write(',');
+                    writeCsv(out, row.name());
+                    out.write(',');
+                    writeCsv(out, row.article());
+                    out.write(',');
+                    writeCsv(out, row.price());
+                    out.write(',');
+                    writeCsv(out, row.weight());
+                    out.write(',');
+                    writeCsv(out, row.description());
+                    out.write(',');
+                    writeCsv(out, row.gender());
+                    out.write(',');
+                    writeCsv(out, finite(row.rating()));
+                    out.write(',');
+                    writeCsv(out, row.categoryId());
+                    out.write(',');
+                    writeCsv(out, sizes);
+                    out.write(',');
+                    writeCsv(out, row.totalQuantity());
+                    out.write("\r\n");
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+            };
+        }
+    };
+
+    /**
+     * Запись строк одной выгрузки в поток. flush() отдаёт накопленное клиенту.
+     */
+    public interface RowWriter {
+
+        void writeRow(ProductExportRow row) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private final String key;
+    private final String mediaType;
+    private final String extension;
+
+    // Пишет заголовок формата, если он есть, и возвращает запись строк в out
+    public abstract RowWriter open(Writer out, JsonMapper jsonMapper) throws IOException;
+
+    public static ExportFormat fromKey(String key) {
+        if (key == null || key.isBlank()) {
+            return NDJSON;
+        }
+        for (ExportFormat format : values()) {
+            if (format.key.equalsIgnoreCase(key)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported export format: " + key);
+    }
+
+    private static void writeString(JsonGenerator json, String name, String value) {
+        json.writeName(name);
+        json.writeString(value);
+    }
+
+    // NaN и бесконечность в JSON не представимы - такие значения пишутся как null
+    private static void writeNumber(JsonGenerator json, String name, Number value) {
+        json.writeName(name);
+        if (value == null || value instanceof Double d && !Double.isFinite(d)) {
+            json.writeNull();
+        } else if (value instanceof Double d) {
+            json.writeNumber(d);
+        } else {
+            json.writeNumber(value.longValue());
+        }
+    }
+
+    private static Double finite(Double value) {
+        return value != null && Double.isFinite(value) ? value : null;
+    }
+
+    // Кавычки только там, где они нужны: разделитель, кавычка или перевод строки внутри значения
+    private static void writeCsv(Writer out, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
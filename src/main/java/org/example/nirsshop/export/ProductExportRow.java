@@ -0,0 +1,24 @@
+package org.example.nirsshop.export;
+
+import java.util.Map;
+
+/**
+ * Строка выгрузки каталога: скалярные поля товара и остатки по размерам во всех магазинах.
+ */
+public record ProductExportRow(
+        Integer productId,
+        String name,
+        String article,
+        Integer price,
+        Integer weight,
+        String description,
+        String gender,
+        Double rating,
+        Integer categoryId,
+        Map<String, Long> sizes // размер -> количество, по возрастанию размера
+) {
+
+    public long totalQuantity() {
+        return sizes.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
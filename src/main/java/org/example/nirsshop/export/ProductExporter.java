@@ -0,0 +1,115 @@
+package org.example.nirsshop.export;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Потоковая выгрузка всего каталога. Товары читаются курсором вперёд через StatelessSession
+ * (без контекста персистентности, память не растёт с размером каталога), остатки по размерам
+ * догружаются одним запросом на окно из chunkSize товаров. После каждого окна поток сбрасывается клиенту.
+ */
+@Slf4j
+@Component
+public class ProductExporter {
+
+    private static final String PRODUCTS_QUERY =
+            "SELECT p.productId, p.name, p.article, p.price, p.weight, p.description, p.gender, p.rating, " +
+            "c.categoryId FROM Product p LEFT JOIN p.category c ORDER BY p.productId";
+
+    private static final String SIZES_QUERY =
+            "SELECT pss.product.productId, pss.sizeValue, COALESCE(SUM(pss.quantity), 0) " +
+            "FROM ProductStoreSize pss WHERE pss.product.productId IN :productIds " +
+            "GROUP BY pss.product.productId, pss.sizeValue";
+
+    private final SessionFactory sessionFactory;
+    private final JsonMapper jsonMapper;
+    private final int chunkSize;
+
+    public ProductExporter(EntityManagerFactory entityManagerFactory,
+                           JsonMapper jsonMapper,
+                           @Value("${catalog.export.chunk-size:500}") int chunkSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.jsonMapper = jsonMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public void export(ExportFormat format, OutputStream output) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        ExportFormat.RowWriter rows = format.open(out, jsonMapper);
+        long exported = 0;
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            // В PostgreSQL курсор с fetchSize работает только внутри транзакции
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<Object[]> products = session.createSelectionQuery(PRODUCTS_QUERY, Object[].class)
+                    .setFetchSize(chunkSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<Object[]> chunk = new ArrayList<>(chunkSize);
+                while (products.next()) {
+                    chunk.add(products.get());
+                    if (chunk.size() == chunkSize) {
+                        exported += writeChunk(session, rows, chunk);
+                        chunk.clear();
+                    }
+                }
+                exported += writeChunk(session, rows, chunk);
+            } finally {
+                transaction.rollback();
+            }
+        }
+        rows.flush();
+        log.info("Exported {} products as {}", exported, format.getKey());
+    }
+
+    private int writeChunk(StatelessSession session, ExportFormat.RowWriter rows, List<Object[]> chunk)
+            throws IOException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<Integer> productIds = chunk.stream()
+                .map(row -> (Integer) row[0])
+                .toList();
+        Map<Integer, Map<String, Long>> sizesByProduct = new HashMap<>();
+        session.createSelectionQuery(SIZES_QUERY, Object[].class)
+                .setParameter("productIds", productIds)
+                .getResultList()
+                .forEach(size -> sizesByProduct
+                        .computeIfAbsent((Integer) size[0], productId -> new TreeMap<>())
+                        .put((String) size[1], ((Number) size[2]).longValue()));
+
+        for (Object[] row : chunk) {
+            Integer productId = (Integer) row[0];
+            rows.writeRow(new ProductExportRow(
+                    productId,
+                    (String) row[1],
+                    (String) row[2],
+                    (Integer) row[3],
+                    (Integer) row[4],
+                    (String) row[5],
+                    (String) row[6],
+                    (Double) row[7],
+                    (Integer) row[8],
+                    sizesByProduct.getOrDefault(productId, Map.of())
+            ));
+        }
+        rows.flush();
+        return chunk.size();
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.nirsshop.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV по RFC 4180 с заголовком. Значение в кавычках может содержать запятые и переводы строк,
+ * колонки сопоставляются по имени, неизвестные колонки пропускаются.
+ */
+class CsvImportReader implements ProductImportReader {
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long line;
+
+    CsvImportReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = readRecord();
+        if (header == null) {
+            return;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+    }
+
+    @Override
+    public Entry next() throws IOException {
+        List<String> record;
+        long start;
+        do {
+            start = line + 1;
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.getFirst().isEmpty());
+
+        try {
+            return new Entry(start, new ProductImportRow(
+                    text(record, "name"),
+                    text(record, "article"),
+                    integer(record, "price"),
+                    integer(record, "weight"),
+                    text(record, "description"),
+                    text(record, "gender"),
+                    decimal(record, "rating"),
+                    integer(record, "categoryId")
+            ), null);
+        } catch (NumberFormatException e) {
+            return new Entry(start, null, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String text(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    private Integer integer(List<String> record, String column) {
+        String value = text(record, column);
+        try {
+            return value == null ? null : Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private Double decimal(List<String> record, String column) {
+        String value = text(record, column);
+        try {
+            return value == null ? null : Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Invalid " + column + ": " + value);
+        }
+    }
+
+    // Одна запись CSV, возможно на нескольких строках файла; null в конце файла
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        line++;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        if (next >= 0) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.nirsshop.importer;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+class NdjsonImportReader implements ProductImportReader {
+
+    private final BufferedReader reader;
+    private final JsonMapper jsonMapper;
+    private long line;
+
+    NdjsonImportReader(BufferedReader reader, JsonMapper jsonMapper) {
+        this.reader = reader;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public Entry next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        try {
+            return new Entry(line, jsonMapper.readValue(text, ProductImportRow.class), null);
+        } catch (JacksonException e) {
+            return new Entry(line, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.nirsshop.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Построчное чтение файла импорта: в памяти держится только текущая строка.
+ */
+interface ProductImportReader extends Closeable {
+
+    // Строка файла: разобранный товар или сообщение об ошибке разбора
+    record Entry(long line, ProductImportRow row, String error) {}
+
+    /**
+     * Следующая строка или null в конце файла.
+     */
+    Entry next() throws IOException;
+}
@@ -0,0 +1,19 @@
+package org.example.nirsshop.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Строка импорта каталога. Поля называются так же, как в выгрузке,
+ * лишние поля выгрузки (id, sizes, totalQuantity) пропускаются.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ProductImportRow(
+        String name,
+        String article,
+        Integer price,
+        Integer weight,
+        String description,
+        String gender,
+        Double rating,
+        Integer categoryId
+) {}
@@ -0,0 +1,300 @@
+package org.example.nirsshop.importer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.export.ExportFormat;
+import org.example.nirsshop.model.Category;
+import org.example.nirsshop.model.dto.ProductImportErrorDto;
+import org.example.nirsshop.model.dto.ProductImportResultDto;
+import org.example.nirsshop.repository.CatalogVersionRepository;
+import org.example.nirsshop.repository.CategoryRepository;
+import org.example.nirsshop.versioning.CatalogWriteTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт каталога из CSV или NDJSON (формат тот же, что у выгрузки).
+ * Файл читается потоком, категории проверяются по множеству id в памяти, товары
+ * вставляются или обновляются по артикулу многострочными INSERT ... ON CONFLICT пачками
+ * по batchSize строк, каждая пачка в своей транзакции. Если пачка не прошла, её строки
+ * повторяются по одной, чтобы найти и записать в отчёт только ошибочные.
+ * ProductsImportedEvent публикуется и при обрыве импорта, если хоть одна пачка закоммичена.
+ * Id новых товаров берутся из product_seq блоками, как у Hibernate (pooled-lo): один nextval
+ * на ID_BLOCK товаров. Умолчание колонки тратило бы по блоку на каждую строку, а id должны
+ * оставаться плотными - по максимальному id размечают память CatalogIndex и SalesAggregator.
+ */
+@Slf4j
+@Component
+public class ProductImporter {
+
+    // Шаг product_seq, совпадает с allocationSize у Product
+    private static final int ID_BLOCK = 50;
+    private static final int UPSERT_COLUMNS = 9;
+
+    private static final String UPSERT_PREFIX = "INSERT INTO product "
+            + "(product_id, name, article, price, weight, description, gender, rating, category_id) VALUES ";
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_SUFFIX = """
+             ON CONFLICT (article) DO UPDATE SET
+                name = EXCLUDED.name,
+                price = EXCLUDED.price,
+                weight = EXCLUDED.weight,
+                description = EXCLUDED.description,
+                gender = EXCLUDED.gender,
+                rating = EXCLUDED.rating,
+                category_id = EXCLUDED.category_id,
+                version = product.version + 1
+            RETURNING (xmax = 0) AS inserted
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final CatalogWriteTracker catalogWriteTracker;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public ProductImporter(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           CategoryRepository categoryRepository,
+                           CatalogVersionRepository catalogVersionRepository,
+                           CatalogWriteTracker catalogWriteTracker,
+                           JsonMapper jsonMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${catalog.import.batch-size:500}") int batchSize,
+                           @Value("${catalog.import.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Без внешней транзакции NESTED работает как REQUIRED - у пачки своя транзакция.
+        // Внутри чужой транзакции пачка - точка сохранения, и её откат не обрывает повтор строк по одной
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.categoryRepository = categoryRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.catalogWriteTracker = catalogWriteTracker;
+        this.jsonMapper = jsonMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    private record Pending(long line, ProductImportRow row) {}
+
+    private final class Progress {
+        long processed;
+        long inserted;
+        long updated;
+        long failed;
+        final List<ProductImportErrorDto> errors = new ArrayList<>();
+        long nextId;
+        long idBlockEnd;
+
+        void fail(long line, String article, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportErrorDto(line, article, message));
+            }
+        }
+
+        // Следующий id из блока; когда блок кончился - новый блок одним nextval
+        int nextProductId() {
+            if (nextId == idBlockEnd) {
+                Long blockStart = jdbcTemplate.queryForObject("SELECT nextval('product_seq')", Long.class);
+                nextId = Objects.requireNonNull(blockStart);
+                idBlockEnd = nextId + ID_BLOCK;
+            }
+            return Math.toIntExact(nextId++);
+        }
+    }
+
+    public ProductImportResultDto importProducts(ExportFormat format, InputStream input) throws IOException {
+        Set<Integer> categoryIds = categoryRepository.findAll().stream()
+                .map(Category::getCategoryId)
+                .collect(Collectors.toSet());
+        Progress progress = new Progress();
+        long started = System.nanoTime();
+
+        // Артикул -> строка; повтор артикула отправляет накопленную пачку, чтобы строки применились по порядку
+        Map<String, Pending> batch = new LinkedHashMap<>();
+        // Пачки коммитятся по одной, а индексы перестраиваются только по ProductsImportedEvent:
+        // до него ETag списков не выдаются
+        catalogWriteTracker.begin();
+        try (ProductImportReader reader = open(format, input)) {
+            for (ProductImportReader.Entry entry = reader.next(); entry != null; entry = reader.next()) {
+                progress.processed++;
+                if (entry.error() != null) {
+                    progress.fail(entry.line(), null, entry.error());
+                    continue;
+                }
+                ProductImportRow row = entry.row();
+                String error = validate(row, categoryIds);
+                if (error != null) {
+                    progress.fail(entry.line(), row.article(), error);
+                    continue;
+                }
+                if (batch.containsKey(row.article())) {
+                    flush(batch.values(), progress);
+                    batch.clear();
+                }
+                batch.put(row.article(), new Pending(entry.line(), row));
+                if (batch.size() == batchSize) {
+                    flush(batch.values(), progress);
+                    batch.clear();
+                }
+            }
+            flush(batch.values(), progress);
+        } finally {
+            // Закоммиченные до ошибки пачки тоже должны дойти до кэшей и индексов
+            try {
+                if (progress.inserted + progress.updated > 0) {
+                    eventPublisher.publishEvent(new ProductsImportedEvent((int) progress.inserted, (int) progress.updated));
+                }
+            } finally {
+                catalogWriteTracker.end();
+            }
+        }
+
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Imported products: {} rows, {} inserted, {} updated, {} failed in {} ms",
+                progress.processed, progress.inserted, progress.updated, progress.failed, millis);
+        return new ProductImportResultDto(progress.processed, progress.inserted, progress.updated,
+                progress.failed, progress.errors);
+    }
+
+    private ProductImportReader open(ExportFormat format, InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return switch (format) {
+            case NDJSON -> new NdjsonImportReader(reader, jsonMapper);
+            case CSV -> new CsvImportReader(reader);
+        };
+    }
+
+    // Ограничения таблицы product проверяются до БД, чтобы пачки не падали из-за отдельных строк
+    private static String validate(ProductImportRow row, Set<Integer> categoryIds) {
+        if (row.article() == null || row.article().isBlank()) {
+            return "Article is required";
+        }
+        if (row.article().length() > 100) {
+            return "Article is longer than 100 characters";
+        }
+        if (row.name() == null || row.name().isBlank()) {
+            return "Name is required";
+        }
+        if (row.name().length() > 255) {
+            return "Name is longer than 255 characters";
+        }
+        if (row.price() == null || row.price() < 0) {
+            return "Price must be a non-negative number";
+        }
+        if (row.weight() != null && row.weight() < 0) {
+            return "Weight must be non-negative";
+        }
+        if (row.description() != null && row.description().length() > 1000) {
+            return "Description is longer than 1000 characters";
+        }
+        if (row.gender() != null && row.gender().length() > 20) {
+            return "Gender is longer than 20 characters";
+        }
+        if (row.rating() != null && (row.rating() < 0 || row.rating() > 5)) {
+            return "Rating must be between 0 and 5";
+        }
+        if (row.categoryId() != null && !categoryIds.contains(row.categoryId())) {
+            return "Category not found: " + row.categoryId();
+        }
+        return null;
+    }
+
+    private void flush(Collection<Pending> batch, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Id назначаются до вставки и не меняются при повторе строк по одной
+        Map<String, Integer> ids = assignIds(batch, progress);
+        try {
+            count(upsert(batch, ids), progress);
+        } catch (DataAccessException e) {
+            log.warn("Import batch of {} rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                try {
+                    count(upsert(List.of(pending), ids), progress);
+                } catch (DataAccessException rowError) {
+                    progress.fail(pending.line(), pending.row().article(), rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private static void count(List<Boolean> results, Progress progress) {
+        for (Boolean inserted : results) {
+            if (inserted) {
+                progress.inserted++;
+            } else {
+                progress.updated++;
+            }
+        }
+    }
+
+    // Существующим артикулам - их id (ON CONFLICT обновит строку, id не тронет), новым - следующие id блока
+    private Map<String, Integer> assignIds(Collection<Pending> batch, Progress progress) {
+        String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+        Object[] articles = batch.stream().map(pending -> pending.row().article()).toArray();
+        Map<String, Integer> ids = new HashMap<>(batch.size() * 2);
+        jdbcTemplate.query("SELECT article, product_id FROM product WHERE article IN (" + placeholders + ")",
+                (RowCallbackHandler) row -> ids.put(row.getString("article"), row.getInt("product_id")),
+                articles);
+        for (Pending pending : batch) {
+            ids.computeIfAbsent(pending.row().article(), article -> progress.nextProductId());
+        }
+        return ids;
+    }
+
+    // Один INSERT на всю пачку; для каждой строки возвращает true, если товар новый
+    private List<Boolean> upsert(Collection<Pending> batch, Map<String, Integer> ids) {
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX.length() + batch.size() * (UPSERT_ROW.length() + 2)
+                + UPSERT_SUFFIX.length());
+        sql.append(UPSERT_PREFIX);
+        Object[] args = new Object[batch.size() * UPSERT_COLUMNS];
+        int i = 0;
+        for (Pending pending : batch) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(UPSERT_ROW);
+            ProductImportRow row = pending.row();
+            args[i++] = ids.get(row.article());
+            args[i++] = row.name();
+            args[i++] = row.article();
+            args[i++] = row.price();
+            args[i++] = row.weight();
+            args[i++] = row.description();
+            args[i++] = row.gender();
+            args[i++] = row.rating();
+            args[i++] = row.categoryId();
+        }
+        sql.append(UPSERT_SUFFIX);
+        // Версию каталога для ETag списков поднимаем в транзакции пачки
+        return transactionTemplate.execute(status -> {
+            List<Boolean> inserted = jdbcTemplate.queryForList(sql.toString(), Boolean.class, args);
+            catalogVersionRepository.increment();
+            return inserted;
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.nirsshop.index;
+
+import java.util.List;
+
+// Фильтры списка товаров, которые индекс каталога умеет разрешать без SQL (всё, кроме текстового поиска)
+public record CatalogFilter(
+        Integer categoryId,
+        Integer minPrice,
+        Integer maxPrice,
+        String gender,
+        List<String> sizeValues,
+        Boolean inStock,
+        Integer storeId,
+        Double rating
+) {}
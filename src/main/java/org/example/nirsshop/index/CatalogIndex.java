@@ -0,0 +1,661 @@
+package org.example.nirsshop.index;
+
+import org.example.nirsshop.pagination.ProductSort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory индекс каталога: битовые множества productId по категории, полу, размеру
+ * и наличию в магазинах плюс отсортированные массивы цен и рейтингов.
+ * Фильтр разрешается пересечением/объединением битсетов, из БД потом догружается только страница.
+ * Сортировки по названию здесь нет: порядок строк задаёт collation БД, и String.compareTo его не повторяет,
+ * поэтому такие запросы идут в SQL (см. {@link #supports(ProductSort)}).
+ * Заполняется и обновляется через {@link CatalogIndexLoader}.
+ */
+@Component
+public class CatalogIndex {
+
+    public record ProductEntry(int productId, Integer categoryId, String gender,
+                               Integer price, Double rating) {}
+
+    public record StockEntry(int productId, int storeId, String sizeValue, int quantity) {}
+
+    public record Result(List<Integer> productIds, long total) {}
+
+    // Счётчики фасетов; priceBucketCounts[i] - товары с ценой в [priceBounds[i-1], priceBounds[i])
+    public record Facets(long total, Map<Integer, Long> categories, Map<String, Long> genders,
+                         Map<String, Long> sizes, long[] priceBucketCounts) {}
+
+    private record StoreSize(int storeId, String sizeValue) {}
+
+    // Снимок отсортированных колонок: строится лениво один раз, записи заменяют его копией со сдвинутым товаром
+    private record SortedColumns(int[] idsByPrice, int[] prices, int[] nullPriceIds,
+                                 int[] idsByRating, double[] ratings, int[] nullRatingIds) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, ProductEntry> products = new HashMap<>();
+    private final Map<Integer, List<StockEntry>> stockByProduct = new HashMap<>();
+
+    private final BitSet all = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Integer, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byGender = new HashMap<>();
+    private final Map<String, BitSet> bySize = new HashMap<>();
+    private final Map<String, BitSet> bySizeInStock = new HashMap<>();
+    private final Map<Integer, BitSet> byStoreInStock = new HashMap<>();
+    private final Map<StoreSize, BitSet> byStoreSizeInStock = new HashMap<>();
+
+    private volatile SortedColumns sorted;
+    private volatile boolean ready;
+
+    // Товары и категории, изменённые, пока CatalogIndexLoader читал снимок для rebuild; null - перестройки нет
+    private Set<Integer> touchedDuringRebuild;
+    private Set<Integer> categoriesRemovedDuringRebuild;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean supports(ProductSort sort) {
+        return sort != ProductSort.NAME;
+    }
+
+    /**
+     * Начало чтения снимка для {@link #rebuild}: с этого момента изменённые товары запоминаются.
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild = new HashSet<>();
+            categoriesRemovedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Снимок прочитать не удалось
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringRebuild = null;
+            categoriesRemovedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заменяет индекс снимком. Возвращает товары, изменённые после {@link #beginRebuild()}:
+     * их коммиты могли попасть или не попасть в снимок, вызывающий перечитывает их из БД.
+     */
+    public Set<Integer> rebuild(Collection<ProductEntry> productEntries, Collection<StockEntry> stockEntries) {
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            stockByProduct.clear();
+            all.clear();
+            inStock.clear();
+            byCategory.clear();
+            byGender.clear();
+            bySize.clear();
+            bySizeInStock.clear();
+            byStoreInStock.clear();
+            byStoreSizeInStock.clear();
+
+            productEntries.forEach(this::addProduct);
+            for (StockEntry stock : stockEntries) {
+                stockByProduct.computeIfAbsent(stock.productId(), id -> new ArrayList<>()).add(stock);
+                addStock(stock);
+            }
+            sorted = null;
+            ready = true;
+
+            // Удаление категории не перечитать по товарам: в БД у них уже NULL, в снимке может быть старое значение
+            Set<Integer> touched = touchedDuringRebuild != null ? touchedDuringRebuild : Set.of();
+            if (categoriesRemovedDuringRebuild != null) {
+                categoriesRemovedDuringRebuild.forEach(this::removeCategoryUnlocked);
+            }
+            touchedDuringRebuild = null;
+            categoriesRemovedDuringRebuild = null;
+            return touched;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putProduct(ProductEntry entry) {
+        lock.writeLock().lock();
+        try {
+            touch(entry.productId());
+            ProductEntry previous = products.get(entry.productId());
+            if (previous != null) {
+                removeProductBits(previous);
+            }
+            addProduct(entry);
+            updateSorted(entry.productId(), previous, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeProduct(int productId) {
+        lock.writeLock().lock();
+        try {
+            touch(productId);
+            ProductEntry previous = products.remove(productId);
+            if (previous != null) {
+                removeProductBits(previous);
+            }
+            replaceStockUnlocked(productId, List.of());
+            all.clear(productId);
+            updateSorted(productId, previous, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Категорию удалили, в БД у её товаров category_id стал NULL
+    public void removeCategory(int categoryId) {
+        lock.writeLock().lock();
+        try {
+            if (categoriesRemovedDuringRebuild != null) {
+                categoriesRemovedDuringRebuild.add(categoryId);
+            }
+            removeCategoryUnlocked(categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replaceStock(int productId, List<StockEntry> stockEntries) {
+        lock.writeLock().lock();
+        try {
+            touch(productId);
+            replaceStockUnlocked(productId, stockEntries);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * productId страницы в порядке sort и общее число совпадений.
+     */
+    public Result find(CatalogFilter filter, ProductSort sort, long offset, int limit) {
+        return find(filter, null, sort, offset, limit);
+    }
+
+    /**
+     * То же, но дополнительно ограничено множеством restrictTo (например, результатом текстового поиска).
+     */
+    public Result find(CatalogFilter filter, BitSet restrictTo, ProductSort sort, long offset, int limit) {
+        while (true) {
+            SortedColumns columns = sortedColumns();
+            lock.readLock().lock();
+            try {
+                // Запись между сборкой колонок и захватом блокировки - берём свежий снимок
+                if (columns != sorted) {
+                    continue;
+                }
+                BitSet matches = match(filter, restrictTo, columns);
+                return new Result(page(matches, sort, columns, offset, limit), matches.cardinality());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Счётчики для боковой панели каталога. Каждый фасет считается по всем фильтрам, кроме
+     * собственного, чтобы при выбранном размере M были видны и количества для остальных размеров.
+     */
+    public Facets facets(CatalogFilter filter, BitSet restrictTo, int[] priceBounds) {
+        while (true) {
+            SortedColumns columns = sortedColumns();
+            lock.readLock().lock();
+            try {
+                if (columns != sorted) {
+                    continue;
+                }
+                long total = match(filter, restrictTo, columns).cardinality();
+
+                BitSet withoutCategory = match(new CatalogFilter(null, filter.minPrice(), filter.maxPrice(),
+                        filter.gender(), filter.sizeValues(), filter.inStock(), filter.storeId(), filter.rating()),
+                        restrictTo, columns);
+                Map<Integer, Long> categories = new TreeMap<>();
+                byCategory.forEach((categoryId, bits) ->
+                        putCount(categories, categoryId, withoutCategory, bits));
+
+                BitSet withoutGender = match(new CatalogFilter(filter.categoryId(), filter.minPrice(), filter.maxPrice(),
+                        null, filter.sizeValues(), filter.inStock(), filter.storeId(), filter.rating()),
+                        restrictTo, columns);
+                Map<String, Long> genders = new TreeMap<>();
+                byGender.forEach((gender, bits) -> putCount(genders, gender, withoutGender, bits));
+
+                CatalogFilter sizeless = new CatalogFilter(filter.categoryId(), filter.minPrice(), filter.maxPrice(),
+                        filter.gender(), null, filter.inStock(), filter.storeId(), filter.rating());
+                BitSet withoutSizes = match(sizeless, restrictTo, columns);
+                Map<String, Long> sizes = new TreeMap<>();
+                for (String size : bySize.keySet()) {
+                    BitSet bits = matchStock(new CatalogFilter(null, null, null, null,
+                            List.of(size), filter.inStock(), filter.storeId(), null));
+                    putCount(sizes, size, withoutSizes, bits);
+                }
+
+                BitSet withoutPrice = match(new CatalogFilter(filter.categoryId(), null, null,
+                        filter.gender(), filter.sizeValues(), filter.inStock(), filter.storeId(), filter.rating()),
+                        restrictTo, columns);
+                long[] priceBucketCounts = new long[priceBounds.length + 1];
+                for (int bucket = 0; bucket <= priceBounds.length; bucket++) {
+                    int from = bucket == 0 ? 0 : lowerBound(columns.prices(), priceBounds[bucket - 1]);
+                    int to = bucket == priceBounds.length
+                            ? columns.prices().length
+                            : lowerBound(columns.prices(), priceBounds[bucket]);
+                    for (int i = from; i < to; i++) {
+                        if (withoutPrice.get(columns.idsByPrice()[i])) {
+                            priceBucketCounts[bucket]++;
+                        }
+                    }
+                }
+
+                return new Facets(total, categories, genders, sizes, priceBucketCounts);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static <K> void putCount(Map<K, Long> counts, K key, BitSet base, BitSet bits) {
+        BitSet intersection = (BitSet) base.clone();
+        intersection.and(bits);
+        long count = intersection.cardinality();
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+
+    private BitSet match(CatalogFilter filter, BitSet restrictTo, SortedColumns columns) {
+        BitSet result = (BitSet) all.clone();
+
+        if (restrictTo != null) {
+            result.and(restrictTo);
+        }
+
+        if (filter.categoryId() != null) {
+            result.and(byCategory.getOrDefault(filter.categoryId(), new BitSet()));
+        }
+        if (filter.gender() != null) {
+            result.and(byGender.getOrDefault(filter.gender(), new BitSet()));
+        }
+
+        BitSet stock = matchStock(filter);
+        if (stock != null) {
+            result.and(stock);
+        }
+
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            int from = filter.minPrice() != null ? lowerBound(columns.prices(), filter.minPrice()) : 0;
+            int to = filter.maxPrice() != null ? upperBound(columns.prices(), filter.maxPrice()) : columns.prices().length;
+            result.and(idsInRange(columns.idsByPrice(), from, to));
+        }
+        if (filter.rating() != null) {
+            int from = lowerBound(columns.ratings(), filter.rating());
+            result.and(idsInRange(columns.idsByRating(), from, columns.ratings().length));
+        }
+        return result;
+    }
+
+    // Та же семантика, что у ProductSpecification.hasMatchingStock: все условия на одной строке остатка
+    private BitSet matchStock(CatalogFilter filter) {
+        boolean bySizes = filter.sizeValues() != null && !filter.sizeValues().isEmpty();
+        boolean byStock = Boolean.TRUE.equals(filter.inStock());
+
+        if (bySizes) {
+            BitSet union = new BitSet();
+            for (String size : filter.sizeValues()) {
+                BitSet bits;
+                if (byStock && filter.storeId() != null) {
+                    bits = byStoreSizeInStock.get(new StoreSize(filter.storeId(), size));
+                } else if (byStock) {
+                    bits = bySizeInStock.get(size);
+                } else {
+                    bits = bySize.get(size);
+                }
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            return union;
+        }
+        if (byStock) {
+            return filter.storeId() != null
+                    ? byStoreInStock.getOrDefault(filter.storeId(), new BitSet())
+                    : inStock;
+        }
+        return null;
+    }
+
+    private List<Integer> page(BitSet matches, ProductSort sort, SortedColumns columns, long offset, int limit) {
+        List<Integer> ids = new ArrayList<>(limit);
+        long skipped = 0;
+
+        switch (sort) {
+            case ID -> {
+                for (int id = matches.nextSetBit(0); id >= 0 && ids.size() < limit; id = matches.nextSetBit(id + 1)) {
+                    if (skipped++ >= offset) ids.add(id);
+                }
+            }
+            case NEWEST -> {
+                for (int id = matches.length() - 1; id >= 0 && ids.size() < limit; id = matches.previousSetBit(id - 1)) {
+                    if (skipped++ >= offset) ids.add(id);
+                }
+            }
+            case PRICE -> walk(columns.idsByPrice(), columns.nullPriceIds(), true, matches, offset, limit, ids);
+            case PRICE_DESC -> walk(columns.idsByPrice(), columns.nullPriceIds(), false, matches, offset, limit, ids);
+            case RATING -> walk(columns.idsByRating(), columns.nullRatingIds(), false, matches, offset, limit, ids);
+            case NAME -> throw new IllegalArgumentException("Sort by name is served by SQL");
+        }
+        return ids;
+    }
+
+    // Обход колонки в порядке (значение, productId) в нужном направлении, NULL-значения в конце
+    private static void walk(int[] ordered, int[] nullIds, boolean ascending, BitSet matches,
+                             long offset, int limit, List<Integer> ids) {
+        long skipped = 0;
+        for (int[] column : new int[][]{ordered, nullIds}) {
+            for (int i = 0; i < column.length && ids.size() < limit; i++) {
+                int id = column[ascending ? i : column.length - 1 - i];
+                if (matches.get(id) && skipped++ >= offset) {
+                    ids.add(id);
+                }
+            }
+        }
+    }
+
+    private SortedColumns sortedColumns() {
+        SortedColumns columns = sorted;
+        if (columns != null) {
+            return columns;
+        }
+        lock.writeLock().lock();
+        try {
+            if (sorted == null) {
+                sorted = buildSortedColumns();
+            }
+            return sorted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private SortedColumns buildSortedColumns() {
+        List<ProductEntry> withPrice = new ArrayList<>();
+        List<ProductEntry> withRating = new ArrayList<>();
+        BitSet nullPrice = new BitSet();
+        BitSet nullRating = new BitSet();
+
+        for (ProductEntry entry : products.values()) {
+            if (entry.price() != null) withPrice.add(entry); else nullPrice.set(entry.productId());
+            if (entry.rating() != null) withRating.add(entry); else nullRating.set(entry.productId());
+        }
+
+        withPrice.sort(Comparator.comparing(ProductEntry::price).thenComparingInt(ProductEntry::productId));
+        withRating.sort(Comparator.comparing(ProductEntry::rating).thenComparingInt(ProductEntry::productId));
+
+        return new SortedColumns(
+                withPrice.stream().mapToInt(ProductEntry::productId).toArray(),
+                withPrice.stream().mapToInt(ProductEntry::price).toArray(),
+                nullPrice.stream().toArray(),
+                withRating.stream().mapToInt(ProductEntry::productId).toArray(),
+                withRating.stream().mapToDouble(ProductEntry::rating).toArray(),
+                nullRating.stream().toArray()
+        );
+    }
+
+    // Дальше вызываются под блокировкой записи
+
+    private void touch(int productId) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(productId);
+        }
+    }
+
+    private void removeCategoryUnlocked(int categoryId) {
+        BitSet members = byCategory.remove(categoryId);
+        if (members == null) {
+            return;
+        }
+        for (int id = members.nextSetBit(0); id >= 0; id = members.nextSetBit(id + 1)) {
+            ProductEntry entry = products.get(id);
+            products.put(id, new ProductEntry(id, null, entry.gender(), entry.price(), entry.rating()));
+        }
+    }
+
+    // Товар вынимается из колонок и вставляется на новое место бинарным поиском: O(n) на копирование вместо сортировки
+    private void updateSorted(int productId, ProductEntry previous, ProductEntry current) {
+        SortedColumns columns = sorted;
+        if (columns == null) {
+            return;
+        }
+        Integer oldPrice = previous != null ? previous.price() : null;
+        Integer newPrice = current != null ? current.price() : null;
+        Double oldRating = previous != null ? previous.rating() : null;
+        Double newRating = current != null ? current.rating() : null;
+
+        int[] idsByPrice = columns.idsByPrice();
+        int[] prices = columns.prices();
+        int[] nullPriceIds = columns.nullPriceIds();
+        if (previous == null || current == null || !Objects.equals(oldPrice, newPrice)) {
+            if (previous != null) {
+                if (oldPrice != null) {
+                    int at = position(idsByPrice, prices, oldPrice, productId);
+                    if (at == idsByPrice.length || idsByPrice[at] != productId) {
+                        sorted = null;
+                        return;
+                    }
+                    idsByPrice = without(idsByPrice, at);
+                    prices = without(prices, at);
+                } else {
+                    nullPriceIds = withoutId(nullPriceIds, productId);
+                }
+            }
+            if (current != null) {
+                if (newPrice != null) {
+                    int at = position(idsByPrice, prices, newPrice, productId);
+                    idsByPrice = with(idsByPrice, at, productId);
+                    prices = with(prices, at, newPrice);
+                } else {
+                    nullPriceIds = withId(nullPriceIds, productId);
+                }
+            }
+        }
+
+        int[] idsByRating = columns.idsByRating();
+        double[] ratings = columns.ratings();
+        int[] nullRatingIds = columns.nullRatingIds();
+        if (previous == null || current == null || !Objects.equals(oldRating, newRating)) {
+            if (previous != null) {
+                if (oldRating != null) {
+                    int at = position(idsByRating, ratings, oldRating, productId);
+                    if (at == idsByRating.length || idsByRating[at] != productId) {
+                        sorted = null;
+                        return;
+                    }
+                    idsByRating = without(idsByRating, at);
+                    ratings = without(ratings, at);
+                } else {
+                    nullRatingIds = withoutId(nullRatingIds, productId);
+                }
+            }
+            if (current != null) {
+                if (newRating != null) {
+                    int at = position(idsByRating, ratings, newRating, productId);
+                    idsByRating = with(idsByRating, at, productId);
+                    ratings = with(ratings, at, newRating);
+                } else {
+                    nullRatingIds = withId(nullRatingIds, productId);
+                }
+            }
+        }
+
+        sorted = new SortedColumns(idsByPrice, prices, nullPriceIds, idsByRating, ratings, nullRatingIds);
+    }
+
+    private void addProduct(ProductEntry entry) {
+        products.put(entry.productId(), entry);
+        all.set(entry.productId());
+        if (entry.categoryId() != null) {
+            byCategory.computeIfAbsent(entry.categoryId(), k -> new BitSet()).set(entry.productId());
+        }
+        if (entry.gender() != null) {
+            byGender.computeIfAbsent(entry.gender(), k -> new BitSet()).set(entry.productId());
+        }
+    }
+
+    private void removeProductBits(ProductEntry entry) {
+        if (entry.categoryId() != null) {
+            clear(byCategory, entry.categoryId(), entry.productId());
+        }
+        if (entry.gender() != null) {
+            clear(byGender, entry.gender(), entry.productId());
+        }
+    }
+
+    private void replaceStockUnlocked(int productId, List<StockEntry> stockEntries) {
+        List<StockEntry> previous = stockByProduct.remove(productId);
+        if (previous != null) {
+            for (StockEntry stock : previous) {
+                clear(bySize, stock.sizeValue(), productId);
+                clear(bySizeInStock, stock.sizeValue(), productId);
+                clear(byStoreInStock, stock.storeId(), productId);
+                clear(byStoreSizeInStock, new StoreSize(stock.storeId(), stock.sizeValue()), productId);
+            }
+            inStock.clear(productId);
+        }
+        if (!stockEntries.isEmpty()) {
+            stockByProduct.put(productId, new ArrayList<>(stockEntries));
+            stockEntries.forEach(this::addStock);
+        }
+    }
+
+    private void addStock(StockEntry stock) {
+        int productId = stock.productId();
+        bySize.computeIfAbsent(stock.sizeValue(), k -> new BitSet()).set(productId);
+        if (stock.quantity() > 0) {
+            inStock.set(productId);
+            bySizeInStock.computeIfAbsent(stock.sizeValue(), k -> new BitSet()).set(productId);
+            byStoreInStock.computeIfAbsent(stock.storeId(), k -> new BitSet()).set(productId);
+            byStoreSizeInStock.computeIfAbsent(new StoreSize(stock.storeId(), stock.sizeValue()), k -> new BitSet())
+                    .set(productId);
+        }
+    }
+
+    private static <K> void clear(Map<K, BitSet> bitmaps, K key, int productId) {
+        BitSet bits = bitmaps.get(key);
+        if (bits != null) {
+            bits.clear(productId);
+            if (bits.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static BitSet idsInRange(int[] ids, int from, int to) {
+        BitSet bits = new BitSet();
+        for (int i = from; i < to; i++) {
+            bits.set(ids[i]);
+        }
+        return bits;
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int upperBound(int[] values, int key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int lowerBound(double[] values, double key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // Место пары (значение, productId) в колонке, упорядоченной так же, как в buildSortedColumns
+    private static int position(int[] ids, int[] values, int value, int productId) {
+        int lo = 0, hi = ids.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < value || (values[mid] == value && ids[mid] < productId)) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int position(int[] ids, double[] values, double value, int productId) {
+        int lo = 0, hi = ids.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Double.compare(values[mid], value);
+            if (cmp < 0 || (cmp == 0 && ids[mid] < productId)) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int[] with(int[] values, int at, int value) {
+        int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, at);
+        result[at] = value;
+        System.arraycopy(values, at, result, at + 1, values.length - at);
+        return result;
+    }
+
+    private static double[] with(double[] values, int at, double value) {
+        double[] result = new double[values.length + 1];
+        System.arraycopy(values, 0, result, 0, at);
+        result[at] = value;
+        System.arraycopy(values, at, result, at + 1, values.length - at);
+        return result;
+    }
+
+    private static int[] without(int[] values, int at) {
+        int[] result = new int[values.length - 1];
+        System.arraycopy(values, 0, result, 0, at);
+        System.arraycopy(values, at + 1, result, at, values.length - at - 1);
+        return result;
+    }
+
+    private static double[] without(double[] values, int at) {
+        double[] result = new double[values.length - 1];
+        System.arraycopy(values, 0, result, 0, at);
+        System.arraycopy(values, at + 1, result, at, values.length - at - 1);
+        return result;
+    }
+
+    // Колонки товаров без значения упорядочены по productId
+    private static int[] withId(int[] ids, int productId) {
+        int at = Arrays.binarySearch(ids, productId);
+        return at >= 0 ? ids : with(ids, -at - 1, productId);
+    }
+
+    private static int[] withoutId(int[] ids, int productId) {
+        int at = Arrays.binarySearch(ids, productId);
+        return at >= 0 ? without(ids, at) : ids;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.nirsshop.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.event.CategoryDeletedEvent;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.event.ProductStockChangedEvent;
+import org.example.nirsshop.repository.ProductIndexProjection;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.ProductStoreSizeRepository;
+import org.example.nirsshop.repository.StockIndexProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Строит {@link CatalogIndex} из БД при старте и поддерживает его после коммитов
+ * изменений товаров и остатков.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogIndexLoader {
+
+    private final CatalogIndex catalogIndex;
+    private final ProductRepository productRepository;
+    private final ProductStoreSizeRepository productStoreSizeRepository;
+
+    @Value("${catalog.index.enabled:true}")
+    private boolean enabled;
+
+    // Перестройки идут по одной: вторая не должна сбросить список изменённых товаров первой
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        catalogIndex.beginRebuild();
+        List<CatalogIndex.ProductEntry> products;
+        List<CatalogIndex.StockEntry> stock;
+        try {
+            products = productRepository.findAllIndexEntries()
+                    .stream()
+                    .map(CatalogIndexLoader::toEntry)
+                    .toList();
+            stock = productStoreSizeRepository.findAllIndexEntries()
+                    .stream()
+                    .map(CatalogIndexLoader::toEntry)
+                    .toList();
+        } catch (RuntimeException e) {
+            catalogIndex.abortRebuild();
+            throw e;
+        }
+
+        Set<Integer> touched = catalogIndex.rebuild(products, stock);
+        // Коммиты во время чтения снимка могли попасть или не попасть в него - перечитываем эти товары
+        touched.forEach(this::refreshProduct);
+        log.info("Catalog index built: {} products, {} stock rows, {} re-read",
+                products.size(), stock.size(), touched.size());
+    }
+
+    // Изменения, пришедшие во время перестройки, запоминаются индексом, поэтому пропускаем их только без индекса
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        productRepository.findIndexEntryById(event.productId())
+                .ifPresentOrElse(
+                        product -> catalogIndex.putProduct(toEntry(product)),
+                        () -> catalogIndex.removeProduct(event.productId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryDeleted(CategoryDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        catalogIndex.removeCategory(event.categoryId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        refreshStock(event.productId());
+    }
+
+    // Товар и его остатки заново из БД
+    private void refreshProduct(int productId) {
+        productRepository.findIndexEntryById(productId)
+                .ifPresentOrElse(
+                        product -> {
+                            catalogIndex.putProduct(toEntry(product));
+                            refreshStock(productId);
+                        },
+                        () -> catalogIndex.removeProduct(productId));
+    }
+
+    private void refreshStock(int productId) {
+        List<CatalogIndex.StockEntry> stock = productStoreSizeRepository
+                .findIndexEntriesByProductId(productId)
+                .stream()
+                .map(CatalogIndexLoader::toEntry)
+                .toList();
+        catalogIndex.replaceStock(productId, stock);
+    }
+
+    private static CatalogIndex.ProductEntry toEntry(ProductIndexProjection p) {
+        return new CatalogIndex.ProductEntry(
+                p.getProductId(), p.getCategoryId(), p.getGender(), p.getPrice(), p.getRating());
+    }
+
+    private static CatalogIndex.StockEntry toEntry(StockIndexProjection s) {
+        return new CatalogIndex.StockEntry(
+                s.getProductId(), s.getStoreId(), s.getSizeValue(), s.getQuantity() != null ? s.getQuantity() : 0);
+    }
+}
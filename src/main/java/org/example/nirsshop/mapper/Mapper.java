@@ -1,9 +1,17 @@
 package org.example.nirsshop.mapper;
 
+import java.util.List;
+
 public interface Mapper<E, D, C> {
 
     D toDto(E entity);
 
     E fromCreateDto(C createDto);
-}
 
+    // Маппинг целой страницы; мапперы с зависимыми запросами переопределяют его пакетной загрузкой
+    default List<D> toDtos(List<E> entities) {
+        return entities.stream()
+                .map(this::toDto)
+                .toList();
+    }
+}
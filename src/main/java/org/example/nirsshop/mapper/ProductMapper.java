@@ -2,15 +2,18 @@ package org.example.nirsshop.mapper;
 
 import lombok.RequiredArgsConstructor;
 import org.example.nirsshop.model.Product;
-import org.example.nirsshop.model.ProductStoreSize;
+import org.example.nirsshop.model.ProductImage;
 import org.example.nirsshop.model.createdto.ProductCreateDto;
 import org.example.nirsshop.model.dto.ProductDto;
 import org.example.nirsshop.model.dto.ProductImageDto;
+import org.example.nirsshop.repository.ProductImageRepository;
+import org.example.nirsshop.repository.ProductSizeQuantityProjection;
 import org.example.nirsshop.repository.ProductStoreSizeRepository;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 
 @Component
@@ -19,29 +22,68 @@ public class ProductMapper implements Mapper<Product, ProductDto, ProductCreateD
 
     private final ProductImageMapper productImageMapper;
     private final ProductStoreSizeRepository productStoreSizeRepository;
+    private final ProductImageRepository productImageRepository;
 
     @Override
     public ProductDto toDto(Product entity) {
         if (entity == null) return null;
 
+        List<ProductImage> images = entity.getImages() != null ? entity.getImages() : List.of();
+        List<ProductSizeQuantityProjection> sizes = productStoreSizeRepository
+                .getSizeQuantitiesByProductIds(List.of(entity.getProductId()));
+
+        return assemble(entity, images, sizes);
+    }
+
+    /**
+     * Пакетный маппинг страницы товаров: картинки и остатки по размерам
+     * загружаются двумя запросами на всю страницу, а не по запросу на товар.
+     */
+    @Override
+    public List<ProductDto> toDtos(List<Product> entities) {
+        if (entities.isEmpty()) return List.of();
+
+        List<Integer> productIds = entities.stream()
+                .map(Product::getProductId)
+                .toList();
+
+        Map<Integer, List<ProductImage>> imagesByProduct = productImageRepository
+                .findByProductIds(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(image -> image.getProduct().getProductId()));
+
+        Map<Integer, List<ProductSizeQuantityProjection>> sizesByProduct = productStoreSizeRepository
+                .getSizeQuantitiesByProductIds(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(ProductSizeQuantityProjection::getProductId));
+
+        return entities.stream()
+                .map(entity -> assemble(
+                        entity,
+                        imagesByProduct.getOrDefault(entity.getProductId(), List.of()),
+                        sizesByProduct.getOrDefault(entity.getProductId(), List.of())))
+                .toList();
+    }
+
+    private ProductDto assemble(Product entity,
+                                List<ProductImage> images,
+                                List<ProductSizeQuantityProjection> sizes) {
         Integer categoryId = entity.getCategory() != null ? entity.getCategory().getCategoryId() : null;
-        String primaryImageUrl = entity.getPrimaryImageUrl();
+        String primaryImageUrl = Product.primaryImageUrlOf(images);
 
-        List<ProductImageDto> images = entity.getImages() != null
-                ? entity.getImages().stream()
+        List<ProductImageDto> imageDtos = images.stream()
                 .map(productImageMapper::toDto)
-                .toList()
-                : List.of();
-        List<String> availableSizes = productStoreSizeRepository
-                .findByProductProductId(entity.getProductId())
-                .stream()
-                .map(ProductStoreSize::getSizeValue)
+                .toList();
+
+        List<String> availableSizes = sizes.stream()
+                .map(ProductSizeQuantityProjection::getSizeValue)
                 .distinct()
                 .sorted()
                 .toList();
 
-        Integer totalQuantity = productStoreSizeRepository
-                .getTotalQuantityAllStores(entity.getProductId());
+        Integer totalQuantity = (int) sizes.stream()
+                .mapToLong(ProductSizeQuantityProjection::getQuantity)
+                .sum();
 
         return new ProductDto(
                 entity.getProductId(),
@@ -54,7 +96,7 @@ public class ProductMapper implements Mapper<Product, ProductDto, ProductCreateD
                 entity.getRating(),
                 categoryId,
                 primaryImageUrl,
-                images,
+                imageDtos,
                 availableSizes,
                 totalQuantity
         );
@@ -15,10 +15,26 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "product")
+// Планы загрузки под DTO: списку хватает скалярных полей (картинки и остатки страницы
+// ProductMapper.toDtos догружает пакетно), карточке нужны картинки, админке - ещё и категория
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Product.LIST_GRAPH),
+        @NamedEntityGraph(name = Product.DETAIL_GRAPH, attributeNodes = @NamedAttributeNode("images")),
+        @NamedEntityGraph(name = Product.ADMIN_GRAPH, attributeNodes = {
+                @NamedAttributeNode("images"),
+                @NamedAttributeNode("category")
+        })
+})
 public class Product {
 
+    public static final String LIST_GRAPH = "Product.list";
+    public static final String DETAIL_GRAPH = "Product.detail";
+    public static final String ADMIN_GRAPH = "Product.admin";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Последовательность с шагом 50 (pooled-lo): id выдаются без запроса к БД, вставки идут пачками
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Integer productId;
 
     private String name;
@@ -32,11 +48,19 @@ public class Product {
     private String gender;
     private Double rating;
 
+    // Растёт при изменении товара, его картинок или остатков - основа ETag.
+    // Пишет её только ProductRepository.incrementVersion, поэтому сущность из контекста
+    // с устаревшим значением при flush версию не откатит
+    @Column(nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Long version = 0L;
+
     @OneToMany(mappedBy = "product")
     private List<ProductStoreSize> productStoreSizes;
 
 
-    @ManyToOne
+    // Для categoryId в DTO достаточно прокси, сама категория грузится только по плану ADMIN_GRAPH
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -47,8 +71,13 @@ public class Product {
 
     // Утилитный метод для получения главной картинки
     public String getPrimaryImageUrl() {
+        return primaryImageUrlOf(images);
+    }
+
+    // Тот же выбор главной картинки для списка, загруженного отдельно от сущности
+    public static String primaryImageUrlOf(List<ProductImage> images) {
         return images.stream()
-                .filter(ProductImage::getIsPrimary)
+                .filter(image -> Boolean.TRUE.equals(image.getIsPrimary()))
                 .findFirst()
                 .map(ProductImage::getImageUrl)
                 .orElse(images.isEmpty() ? null : images.getFirst().getImageUrl());
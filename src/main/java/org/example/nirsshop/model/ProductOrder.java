@@ -29,6 +29,23 @@ public class ProductOrder {
 
     private Integer quantity;
 
+    // Цена единицы на момент добавления позиции: по ней агрегаты продаж вычитают выручку
+    // при изменении и удалении позиции, даже если цена товара с тех пор поменялась
+    @Column(name = "unit_price", nullable = false, updatable = false)
+    private Integer unitPrice;
+
+    @PrePersist
+    void fillUnitPrice() {
+        if (unitPrice == null && product != null) {
+            unitPrice = product.getPrice();
+        }
+    }
+
+    // Выручка позиции при заданном изменении количества
+    public long revenueOf(int quantityDelta) {
+        return (long) quantityDelta * unitPrice;
+    }
+
     // getters/setters
 }
 
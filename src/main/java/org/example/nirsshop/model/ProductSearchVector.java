@@ -0,0 +1,31 @@
+package org.example.nirsshop.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+// Поисковые колонки таблицы product - только для фильтра search в Criteria-запросах,
+// чтобы загрузка Product не тянула tsvector
+@Entity
+@Table(name = "product")
+@Immutable // Генерируемая колонка search_vector - только для чтения
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSearchVector {
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "article")
+    private String article;
+
+    @Column(name = "search_vector", columnDefinition = "tsvector")
+    private String searchVector;
+}
@@ -15,7 +15,8 @@ import lombok.NoArgsConstructor;
 public class ProductStoreSize {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_store_size_seq")
+    @SequenceGenerator(name = "product_store_size_seq", sequenceName = "product_store_size_seq", allocationSize = 50)
     @Column(name = "id")
     private Integer id;
 
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
@@ -14,6 +16,9 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @Builder
 @Table(name = "store")
+// Справочник меняется редко - держим во втором уровне кэша Hibernate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Store {
 
     @Id
@@ -0,0 +1,10 @@
+package org.example.nirsshop.model.dto;
+
+import java.util.List;
+
+public record CursorPageDto<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor // null, если следующей страницы нет
+) {}
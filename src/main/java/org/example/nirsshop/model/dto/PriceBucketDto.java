@@ -0,0 +1,7 @@
+package org.example.nirsshop.model.dto;
+
+public record PriceBucketDto(
+        Integer from, // включительно
+        Integer to,   // не включительно; null - без верхней границы
+        Long count
+) {}
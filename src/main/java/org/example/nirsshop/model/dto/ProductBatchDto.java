@@ -0,0 +1,8 @@
+package org.example.nirsshop.model.dto;
+
+import java.util.List;
+
+public record ProductBatchDto(
+        List<ProductDto> products, // в порядке запрошенных id, без повторов
+        List<Integer> missingIds   // id, которых нет в каталоге
+) {}
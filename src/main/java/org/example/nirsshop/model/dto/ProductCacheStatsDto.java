@@ -0,0 +1,12 @@
+package org.example.nirsshop.model.dto;
+
+public record ProductCacheStatsDto(
+        long hits,
+        long misses,
+        long evictions,
+        long invalidations,
+        int entries,
+        long weightBytes,    // оценка занятой памяти
+        long maxWeightBytes,
+        double hitRate
+) {}
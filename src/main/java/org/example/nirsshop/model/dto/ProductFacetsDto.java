@@ -0,0 +1,12 @@
+package org.example.nirsshop.model.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record ProductFacetsDto(
+        Long total,
+        Map<Integer, Long> categories,
+        Map<String, Long> genders,
+        Map<String, Long> sizes,
+        List<PriceBucketDto> priceBuckets
+) {}
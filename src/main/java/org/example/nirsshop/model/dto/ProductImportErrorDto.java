@@ -0,0 +1,7 @@
+package org.example.nirsshop.model.dto;
+
+public record ProductImportErrorDto(
+        long line,      // номер строки файла, с 1
+        String article, // null, если строку не удалось разобрать
+        String message
+) {}
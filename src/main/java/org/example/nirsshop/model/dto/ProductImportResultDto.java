@@ -0,0 +1,11 @@
+package org.example.nirsshop.model.dto;
+
+import java.util.List;
+
+public record ProductImportResultDto(
+        long processed,
+        long inserted,
+        long updated,
+        long failed,
+        List<ProductImportErrorDto> errors // не больше catalog.import.max-errors, остальные только в failed
+) {}
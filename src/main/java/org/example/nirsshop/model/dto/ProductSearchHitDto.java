@@ -0,0 +1,9 @@
+package org.example.nirsshop.model.dto;
+
+import java.util.Map;
+
+public record ProductSearchHitDto(
+        ProductDto product,
+        Float score,                  // BM25
+        Map<String, String> highlights // поле -> фрагмент с <em>совпадениями</em>
+) {}
@@ -0,0 +1,10 @@
+package org.example.nirsshop.model.dto;
+
+import java.util.List;
+
+public record ProductSearchPageDto(
+        List<ProductSearchHitDto> content,
+        Long totalHits,
+        int number,
+        int size
+) {}
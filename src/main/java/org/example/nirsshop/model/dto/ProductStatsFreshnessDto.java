@@ -0,0 +1,11 @@
+package org.example.nirsshop.model.dto;
+
+import java.time.Instant;
+
+public record ProductStatsFreshnessDto(
+        Instant refreshedAt,    // последнее обновление product_stats, null до первого
+        Instant staleSince,     // первое изменение заказов, ещё не попавшее в статистику
+        long stalenessMillis,   // сколько статистика отстаёт от заказов, 0 - актуальна
+        long lastRefreshMillis, // длительность последнего обновления
+        String mode             // CONCURRENT или LIVE (обычное представление)
+) {}
@@ -0,0 +1,8 @@
+package org.example.nirsshop.model.dto;
+
+public record ProductSuggestionDto(
+        Integer productId,
+        String name,
+        String article,
+        Long totalSold
+) {}
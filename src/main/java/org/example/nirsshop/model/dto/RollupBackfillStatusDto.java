@@ -0,0 +1,15 @@
+package org.example.nirsshop.model.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record RollupBackfillStatusDto(
+        String state,               // IDLE, RUNNING, DONE, FAILED
+        LocalDate from,             // диапазон дат заказов
+        LocalDate to,
+        LocalDate processedUntil,   // последний пересобранный день
+        long rows,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {}
@@ -0,0 +1,8 @@
+package org.example.nirsshop.model.dto;
+
+public record SalesCategoryDto(
+        Integer categoryId,     // null - товары без категории
+        String categoryName,
+        Long units,
+        Long revenue
+) {}
@@ -0,0 +1,9 @@
+package org.example.nirsshop.model.dto;
+
+import java.time.LocalDate;
+
+public record SalesDayDto(
+        LocalDate periodStart,  // первый день периода: день, понедельник недели или 1-е число месяца
+        Long units,
+        Long revenue
+) {}
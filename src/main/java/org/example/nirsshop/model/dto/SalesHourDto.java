@@ -0,0 +1,9 @@
+package org.example.nirsshop.model.dto;
+
+import java.time.LocalDateTime;
+
+public record SalesHourDto(
+        LocalDateTime hour,
+        Long units,
+        Long revenue
+) {}
@@ -0,0 +1,9 @@
+package org.example.nirsshop.model.dto;
+
+public record SalesProductDto(
+        Integer productId,
+        String name,            // null, если товар удалён
+        Integer categoryId,
+        Long units,
+        Long revenue
+) {}
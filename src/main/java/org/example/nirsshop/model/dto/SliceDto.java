@@ -0,0 +1,10 @@
+package org.example.nirsshop.model.dto;
+
+import java.util.List;
+
+public record SliceDto<T>(
+        List<T> content,
+        int number,
+        int size,
+        boolean hasNext // без totalElements/totalPages - COUNT не выполняется
+) {}
@@ -0,0 +1,10 @@
+package org.example.nirsshop.model.dto;
+
+public record TrendingProductDto(
+        Integer productId,
+        String name,
+        String article,
+        Integer price,
+        Double rating,
+        Long sold            // оценка проданных единиц за окно
+) {}
@@ -0,0 +1,7 @@
+package org.example.nirsshop.model.dto;
+
+// Карточка товара и версия строки, из которой она собрана - для согласованного ETag
+public record VersionedProductDto(
+        ProductDto product,
+        Long version
+) {}
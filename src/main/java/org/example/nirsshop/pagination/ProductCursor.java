@@ -0,0 +1,55 @@
+package org.example.nirsshop.pagination;
+
+import org.example.nirsshop.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации: ключ сортировки, значение этого ключа у последнего
+ * товара страницы и его productId. Клиенту отдаётся как непрозрачная base64url-строка.
+ */
+public record ProductCursor(String sortKey, Integer productId, String sortValue) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = sortKey + SEPARATOR + productId + SEPARATOR + (sortValue != null ? sortValue : "");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Integer intValue() {
+        try {
+            return sortValue.isEmpty() ? null : Integer.valueOf(sortValue);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor value: " + sortValue);
+        }
+    }
+
+    public Double doubleValue() {
+        try {
+            return sortValue.isEmpty() ? null : Double.valueOf(sortValue);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor value: " + sortValue);
+        }
+    }
+
+    public String stringValue() {
+        return sortValue.isEmpty() ? null : sortValue;
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // sortValue идёт последним, поэтому может сам содержать разделитель
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new BadRequestException("Invalid cursor: " + token);
+            }
+            return new ProductCursor(parts[0], Integer.valueOf(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.nirsshop.pagination;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.model.Product;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Разрешённые ключи сортировки списка товаров. Для каждого ключа в init.sql есть
+ * составной индекс (ключ, product_id), productId служит tie-breaker'ом в том же направлении.
+ * NULLS LAST добавляется только для nullable-ключа (rating): для NOT NULL колонок он заставил бы
+ * PostgreSQL сортировать всё вместо обратного прохода по ASC-индексу.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ProductSort {
+    ID("id", "productId", Sort.Direction.ASC, false),
+    NEWEST("newest", "productId", Sort.Direction.DESC, false),
+    PRICE("price", "price", Sort.Direction.ASC, false),
+    PRICE_DESC("price_desc", "price", Sort.Direction.DESC, false),
+    RATING("rating", "rating", Sort.Direction.DESC, true),
+    NAME("name", "name", Sort.Direction.ASC, false);
+
+    private final String key;
+    private final String property;
+    private final Sort.Direction direction;
+    private final boolean nullable;
+
+    public static ProductSort fromKey(String key) {
+        if (key == null || key.isBlank()) {
+            return ID;
+        }
+        for (ProductSort sort : values()) {
+            if (sort.key.equalsIgnoreCase(key)) {
+                return sort;
+            }
+        }
+        throw new BadRequestException("Unsupported sort: " + key);
+    }
+
+    // Обратное сопоставление Sort из Pageable; null, если порядок не из белого списка
+    public static ProductSort fromSort(Sort sort) {
+        if (sort.isUnsorted()) {
+            return ID;
+        }
+        Sort.Order first = sort.iterator().next();
+        for (ProductSort productSort : values()) {
+            if (productSort.property.equals(first.getProperty()) && productSort.direction == first.getDirection()) {
+                return productSort;
+            }
+        }
+        return null;
+    }
+
+    public boolean isById() {
+        return "productId".equals(property);
+    }
+
+    public Sort toSort() {
+        Sort.Order keyOrder = new Sort.Order(direction, property);
+        if (nullable) {
+            keyOrder = keyOrder.nullsLast();
+        }
+        if (isById()) {
+            return Sort.by(keyOrder);
+        }
+        return Sort.by(keyOrder, new Sort.Order(direction, "productId"));
+    }
+
+    // Значение ключа сортировки у товара - для курсора следующей страницы
+    public String valueOf(Product product) {
+        Object value = switch (this) {
+            case ID, NEWEST -> product.getProductId();
+            case PRICE, PRICE_DESC -> product.getPrice();
+            case RATING -> product.getRating();
+            case NAME -> product.getName();
+        };
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.nirsshop.projection;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.exception.BadRequestException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Поля товара, которые можно запросить через fields= без загрузки сущностей.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ProductField {
+    ID("id"),
+    NAME("name"),
+    ARTICLE("article"),
+    PRICE("price"),
+    WEIGHT("weight"),
+    GENDER("gender"),
+    RATING("rating"),
+    CATEGORY_ID("categoryId"),
+    PRIMARY_IMAGE_URL("primaryImageUrl");
+
+    // Набор для view=summary: всё, что нужно карточке в списке
+    public static final Set<ProductField> SUMMARY = Collections.unmodifiableSet(EnumSet.of(
+            ID, NAME, ARTICLE, PRICE, RATING, CATEGORY_ID, PRIMARY_IMAGE_URL));
+
+    private final String key;
+
+    /**
+     * Разбирает "id,name,price" в набор полей; в ответе они идут в порядке перечисления.
+     */
+    public static Set<ProductField> parse(String fields) {
+        Set<ProductField> result = EnumSet.noneOf(ProductField.class);
+        for (String key : fields.split(",")) {
+            String trimmed = key.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            result.add(Arrays.stream(values())
+                    .filter(field -> field.key.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new BadRequestException("Unknown product field: " + trimmed)));
+        }
+        if (result.isEmpty()) {
+            throw new BadRequestException("No product fields requested");
+        }
+        return result;
+    }
+}
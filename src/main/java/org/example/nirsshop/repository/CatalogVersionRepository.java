@@ -0,0 +1,26 @@
+package org.example.nirsshop.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Однострочный счётчик catalog_version для ETag списков товаров. Поднимается в транзакции
+ * каждой записи в товары, картинки и остатки, поэтому проверка списка - чтение одной строки по ключу.
+ * Через JDBC: нативный UPDATE через Hibernate сбросил бы весь второй уровень кэша.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long current() {
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class);
+        return version != null ? version : 0L;
+    }
+
+    public void increment() {
+        jdbcTemplate.update("UPDATE catalog_version SET version = version + 1 WHERE id = 1");
+    }
+}
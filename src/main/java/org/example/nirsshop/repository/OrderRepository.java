@@ -2,9 +2,18 @@ package org.example.nirsshop.repository;
 
 import org.example.nirsshop.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByCustomer_CustomerId(Integer customerId);
+
+    // null, если заказов нет
+    @Query("SELECT MIN(o.orderDate) FROM Order o")
+    LocalDate findMinOrderDate();
+
+    @Query("SELECT MAX(o.orderDate) FROM Order o")
+    LocalDate findMaxOrderDate();
 }
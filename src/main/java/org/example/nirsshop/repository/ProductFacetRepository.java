@@ -0,0 +1,148 @@
+package org.example.nirsshop.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.index.CatalogFilter;
+import org.example.nirsshop.index.CatalogIndex;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Фасеты одним сгруппированным запросом - когда индекс каталога выключен или ещё строится.
+ * Для каждого товара один раз вычисляется, проходит ли он каждый фильтр, а каждый фасет
+ * группирует товары, прошедшие все фильтры, кроме собственного. Семантика та же, что у CatalogIndex.facets.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductFacetRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @param restrictTo найденные текстовым поиском id или null, если поиска нет
+     */
+    public CatalogIndex.Facets count(CatalogFilter filter, List<Integer> restrictTo, int[] priceBounds) {
+        long[] priceBucketCounts = new long[priceBounds.length + 1];
+        Map<Integer, Long> categories = new TreeMap<>();
+        Map<String, Long> genders = new TreeMap<>();
+        Map<String, Long> sizes = new TreeMap<>();
+        if (restrictTo != null && restrictTo.isEmpty()) {
+            return new CatalogIndex.Facets(0, categories, genders, sizes, priceBucketCounts);
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        boolean bySizes = filter.sizeValues() != null && !filter.sizeValues().isEmpty();
+        boolean byStock = Boolean.TRUE.equals(filter.inStock());
+        boolean byStore = byStock && filter.storeId() != null;
+
+        String category = "1";
+        if (filter.categoryId() != null) {
+            category = flag("p.category_id = :categoryId");
+            params.addValue("categoryId", filter.categoryId());
+        }
+        String gender = "1";
+        if (filter.gender() != null) {
+            gender = flag("p.gender = :gender");
+            params.addValue("gender", filter.gender());
+        }
+        String price = "1";
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            StringBuilder condition = new StringBuilder("p.price IS NOT NULL");
+            if (filter.minPrice() != null) {
+                condition.append(" AND p.price >= :minPrice");
+                params.addValue("minPrice", filter.minPrice());
+            }
+            if (filter.maxPrice() != null) {
+                condition.append(" AND p.price <= :maxPrice");
+                params.addValue("maxPrice", filter.maxPrice());
+            }
+            price = flag(condition.toString());
+        }
+        String rating = "1";
+        if (filter.rating() != null) {
+            rating = flag("p.rating >= :rating");
+            params.addValue("rating", filter.rating());
+        }
+
+        // Условия на строку остатка: у фасета размеров остаются наличие и магазин, размер - сама группа
+        StringBuilder stockRow = new StringBuilder();
+        if (byStock) {
+            stockRow.append(" AND s.quantity > 0");
+        }
+        if (byStore) {
+            stockRow.append(" AND s.store_id = :storeId");
+            params.addValue("storeId", filter.storeId());
+        }
+        String stock = "1";
+        if (bySizes || byStock) {
+            stock = flag("EXISTS (SELECT 1 FROM product_store_size s WHERE s.product_id = p.product_id"
+                    + (bySizes ? " AND s.size_value IN (:sizeValues)" : "") + stockRow + ")");
+            if (bySizes) {
+                params.addValue("sizeValues", filter.sizeValues());
+            }
+        }
+
+        String search = "";
+        if (restrictTo != null) {
+            // Массивом, а не IN-списком: найденных id может быть больше лимита параметров драйвера
+            search = " WHERE p.product_id = ANY(:restrictTo)";
+            params.addValue("restrictTo", restrictTo.toArray(new Integer[0]));
+        }
+
+        StringBuilder bucket = new StringBuilder("CASE");
+        for (int i = 0; i < priceBounds.length; i++) {
+            bucket.append(" WHEN price < ").append(priceBounds[i]).append(" THEN ").append(i);
+        }
+        bucket.append(" ELSE ").append(priceBounds.length).append(" END");
+
+        String sql = """
+                WITH f AS (
+                    SELECT p.product_id, p.category_id, p.gender, p.price,
+                           %s AS m_category, %s AS m_gender, %s AS m_price, %s AS m_stock, %s AS m_rating
+                    FROM product p%s
+                )
+                SELECT 'total' AS facet, CAST(NULL AS VARCHAR(255)) AS facet_key, COUNT(*) AS cnt
+                FROM f WHERE m_category = 1 AND m_gender = 1 AND m_price = 1 AND m_stock = 1 AND m_rating = 1
+                UNION ALL
+                SELECT 'category', CAST(category_id AS VARCHAR(255)), COUNT(*)
+                FROM f WHERE category_id IS NOT NULL AND m_gender = 1 AND m_price = 1 AND m_stock = 1 AND m_rating = 1
+                GROUP BY category_id
+                UNION ALL
+                SELECT 'gender', CAST(gender AS VARCHAR(255)), COUNT(*)
+                FROM f WHERE gender IS NOT NULL AND m_category = 1 AND m_price = 1 AND m_stock = 1 AND m_rating = 1
+                GROUP BY gender
+                UNION ALL
+                SELECT 'price', CAST(%s AS VARCHAR(255)), COUNT(*)
+                FROM f WHERE price IS NOT NULL AND m_category = 1 AND m_gender = 1 AND m_stock = 1 AND m_rating = 1
+                GROUP BY %s
+                UNION ALL
+                SELECT 'size', CAST(s.size_value AS VARCHAR(255)), COUNT(DISTINCT f.product_id)
+                FROM f JOIN product_store_size s ON s.product_id = f.product_id
+                WHERE f.m_category = 1 AND f.m_gender = 1 AND f.m_price = 1 AND f.m_rating = 1%s
+                GROUP BY s.size_value
+                """.formatted(category, gender, price, stock, rating, search, bucket, bucket, stockRow);
+
+        long[] total = new long[1];
+        jdbcTemplate.query(sql, params, rs -> {
+            String key = rs.getString("facet_key");
+            long count = rs.getLong("cnt");
+            switch (rs.getString("facet")) {
+                case "total" -> total[0] = count;
+                case "category" -> categories.put(Integer.valueOf(key), count);
+                case "gender" -> genders.put(key, count);
+                case "price" -> priceBucketCounts[Integer.parseInt(key)] = count;
+                case "size" -> sizes.put(key, count);
+                default -> throw new IllegalStateException("Unknown facet: " + rs.getString("facet"));
+            }
+        });
+        return new CatalogIndex.Facets(total[0], categories, genders, sizes, priceBucketCounts);
+    }
+
+    private static String flag(String condition) {
+        return "CASE WHEN " + condition + " THEN 1 ELSE 0 END";
+    }
+}
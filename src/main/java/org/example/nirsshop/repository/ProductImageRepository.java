@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,5 +18,8 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Inte
     @Query("SELECT pi FROM ProductImage pi WHERE pi.product.productId = :productId AND pi.isPrimary = true")
     Optional<ProductImage> findPrimaryImageByProductId(@Param("productId") Integer productId);
 
+    @Query("SELECT pi FROM ProductImage pi WHERE pi.product.productId IN :productIds ORDER BY pi.displayOrder ASC")
+    List<ProductImage> findByProductIds(@Param("productIds") Collection<Integer> productIds);
+
     void deleteByProductProductId(Integer productId);
 }
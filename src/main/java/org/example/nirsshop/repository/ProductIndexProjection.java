@@ -0,0 +1,9 @@
+package org.example.nirsshop.repository;
+
+public interface ProductIndexProjection {
+    Integer getProductId();
+    Integer getCategoryId();
+    String getGender();
+    Integer getPrice();
+    Double getRating();
+}
@@ -27,4 +27,11 @@ public interface ProductOrderRepository extends JpaRepository<ProductOrder, Prod
     @Modifying
     @Query("DELETE FROM ProductOrder po WHERE po.product.productId = :productId AND po.order.orderId = :orderId")
     void deleteByProductIdAndOrderId(@Param("productId") Integer productId, @Param("orderId") Integer orderId);
+
+    @Query("SELECT po.product.productId AS productId, SUM(po.quantity) AS totalSold " +
+           "FROM ProductOrder po GROUP BY po.product.productId")
+    List<ProductSalesProjection> findSalesByProduct();
+
+    @Query("SELECT COALESCE(SUM(po.quantity), 0) FROM ProductOrder po WHERE po.product.productId = :productId")
+    Long sumQuantityByProductId(@Param("productId") Integer productId);
 }
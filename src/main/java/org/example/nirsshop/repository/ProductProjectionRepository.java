@@ -0,0 +1,19 @@
+package org.example.nirsshop.repository;
+
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.projection.ProductField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface ProductProjectionRepository {
+
+    /**
+     * Страница товаров, где каждая строка содержит только запрошенные поля.
+     * Выбираются скалярные колонки через Criteria-проекцию, без сущностей и ленивых коллекций.
+     */
+    Page<Map<String, Object>> findProjected(Specification<Product> spec, Set<ProductField> fields, Pageable pageable);
+}
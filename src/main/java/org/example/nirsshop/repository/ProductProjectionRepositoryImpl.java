@@ -0,0 +1,116 @@
+package org.example.nirsshop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.*;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.model.ProductImage;
+import org.example.nirsshop.projection.ProductField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProductProjectionRepositoryImpl implements ProductProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Map<String, Object>> findProjected(Specification<Product> spec,
+                                                   Set<ProductField> fields,
+                                                   Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (ProductField field : ProductField.values()) {
+            if (fields.contains(field)) {
+                selections.add(select(field, root, query, cb).alias(field.getKey()));
+            }
+        }
+        query.multiselect(selections);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        List<Map<String, Object>> content = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            content.add(row);
+        }
+
+        // COUNT только если по размеру страницы нельзя понять общее число строк
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Expression<?> select(ProductField field, Root<Product> root,
+                                        CriteriaQuery<?> query, CriteriaBuilder cb) {
+        return switch (field) {
+            case ID -> root.get("productId");
+            case NAME -> root.get("name");
+            case ARTICLE -> root.get("article");
+            case PRICE -> root.get("price");
+            case WEIGHT -> root.get("weight");
+            case GENDER -> root.get("gender");
+            case RATING -> root.get("rating");
+            // Внешний ключ без join к category
+            case CATEGORY_ID -> root.get("category").get("categoryId");
+            case PRIMARY_IMAGE_URL -> primaryImageUrl(root, query, cb);
+        };
+    }
+
+    // То же правило, что Product.primaryImageUrlOf: главная картинка, иначе первая по displayOrder
+    private static Expression<String> primaryImageUrl(Root<Product> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Subquery<String> primary = query.subquery(String.class);
+        Root<ProductImage> primaryImage = primary.from(ProductImage.class);
+        primary.select(cb.least(primaryImage.<String>get("imageUrl")))
+                .where(cb.equal(primaryImage.get("product"), root),
+                        cb.isTrue(primaryImage.get("isPrimary")));
+
+        Subquery<Integer> firstOrder = query.subquery(Integer.class);
+        Root<ProductImage> orderedImage = firstOrder.from(ProductImage.class);
+        firstOrder.select(cb.min(orderedImage.get("displayOrder")))
+                .where(cb.equal(orderedImage.get("product"), root));
+
+        Subquery<String> first = query.subquery(String.class);
+        Root<ProductImage> firstImage = first.from(ProductImage.class);
+        first.select(cb.least(firstImage.<String>get("imageUrl")))
+                .where(cb.equal(firstImage.get("product"), root),
+                        cb.equal(firstImage.get("displayOrder"), firstOrder));
+
+        return cb.coalesce(primary, first);
+    }
+}
@@ -1,15 +1,42 @@
 package org.example.nirsshop.repository;
 
 import org.example.nirsshop.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product>,
+        ProductProjectionRepository {
+
+    @Override
+    @EntityGraph(Product.LIST_GRAPH)
+    List<Product> findAll();
+
+    @Override
+    @EntityGraph(Product.LIST_GRAPH)
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(Product.LIST_GRAPH)
+    List<Product> findAllById(Iterable<Integer> ids);
+
+    // Карточка товара: товар и картинки одним запросом
+    @EntityGraph(Product.DETAIL_GRAPH)
+    Optional<Product> findDetailByProductId(Integer productId);
+
+    // Редактирование: товар, картинки и категория одним запросом
+    @EntityGraph(Product.ADMIN_GRAPH)
+    Optional<Product> findAdminByProductId(Integer productId);
+
     Optional<Product> findByArticle(String article);
 
     @Query(value = """
@@ -66,6 +93,113 @@ public interface ProductRepository extends JpaRepository<Product, Integer>, JpaS
     LIMIT :limit
 """)
     List<ProductStatsProjection> getProductStats(@Param("limit") int limit, @Param("orderBy") String orderBy);
-    List<Product> findByNameContainingIgnoreCase(String name);
-}
+    // Только PostgreSQL: product_search_match из init.sql (tsvector search_vector и триграммные
+    // GIN-индексы по lower(name)/lower(article), символы % и _ в запросе экранированы)
+    @Query(value = """
+    SELECT p.product_id
+    FROM product p
+    WHERE product_search_match(p.search_vector, p.name, p.article, :query)
+    """, nativeQuery = true)
+    List<Integer> findMatchingIds(@Param("query") String query);
+
+    @Query("SELECT p.productId AS productId, p.name AS name, p.article AS article FROM Product p")
+    List<ProductSearchProjection> findAllSearchEntries();
+
+    @Query("SELECT p.productId AS productId, p.name AS name, p.article AS article FROM Product p " +
+           "WHERE p.productId = :productId")
+    Optional<ProductSearchProjection> findSearchEntryById(@Param("productId") Integer productId);
+
+    @Query("SELECT p.version FROM Product p WHERE p.productId = :productId")
+    Optional<Long> findVersionById(@Param("productId") Integer productId);
+
+    // Версию поднимают только запросы (этот и UPSERT импорта): в сущности колонка только для чтения
+    @Modifying
+    @Query("UPDATE Product p SET p.version = p.version + 1 WHERE p.productId = :productId")
+    int incrementVersion(@Param("productId") Integer productId);
+
+    // Перед удалением категории: БД обнулит category_id её товаров (ON DELETE SET NULL)
+    @Modifying
+    @Query("UPDATE Product p SET p.version = p.version + 1 WHERE p.category.categoryId = :categoryId")
+    int incrementVersionByCategory(@Param("categoryId") Integer categoryId);
 
+    @Query("""
+    SELECT p.productId AS productId,
+           p.name AS name,
+           p.article AS article,
+           p.description AS description,
+           c.name AS categoryName
+    FROM Product p LEFT JOIN p.category c
+    """)
+    List<ProductSearchDocumentProjection> findAllSearchDocuments();
+
+    @Query("""
+    SELECT p.productId AS productId,
+           p.name AS name,
+           p.article AS article,
+           p.description AS description,
+           c.name AS categoryName
+    FROM Product p LEFT JOIN p.category c
+    WHERE p.productId = :productId
+    """)
+    Optional<ProductSearchDocumentProjection> findSearchDocumentById(@Param("productId") Integer productId);
+
+    @Query("""
+    SELECT p.productId AS productId,
+           p.name AS name,
+           p.article AS article,
+           p.description AS description,
+           c.name AS categoryName
+    FROM Product p JOIN p.category c
+    WHERE c.categoryId = :categoryId
+    """)
+    List<ProductSearchDocumentProjection> findSearchDocumentsByCategoryId(@Param("categoryId") Integer categoryId);
+
+    @Query("""
+    SELECT p.productId AS productId,
+           c.categoryId AS categoryId,
+           p.gender AS gender,
+           p.price AS price,
+           p.rating AS rating
+    FROM Product p LEFT JOIN p.category c
+    """)
+    List<ProductIndexProjection> findAllIndexEntries();
+
+    @Query("""
+    SELECT p.productId AS productId,
+           c.categoryId AS categoryId,
+           p.gender AS gender,
+           p.price AS price,
+           p.rating AS rating
+    FROM Product p LEFT JOIN p.category c
+    WHERE p.productId = :productId
+    """)
+    Optional<ProductIndexProjection> findIndexEntryById(@Param("productId") Integer productId);
+
+    // Товар с суммой проданных единиц и дохода по ценам позиций, включая товары без продаж
+    @Query("""
+    SELECT p.productId AS productId,
+           p.name AS name,
+           p.article AS article,
+           p.price AS price,
+           p.rating AS rating,
+           COALESCE(SUM(po.quantity), 0) AS totalSold,
+           COALESCE(SUM(CAST(po.quantity AS Long) * po.unitPrice), 0) AS totalIncome
+    FROM Product p LEFT JOIN ProductOrder po ON po.product = p
+    GROUP BY p.productId, p.name, p.article, p.price, p.rating
+    """)
+    List<SalesEntryProjection> findAllSalesEntries();
+
+    @Query("""
+    SELECT p.productId AS productId,
+           p.name AS name,
+           p.article AS article,
+           p.price AS price,
+           p.rating AS rating,
+           COALESCE(SUM(po.quantity), 0) AS totalSold,
+           COALESCE(SUM(CAST(po.quantity AS Long) * po.unitPrice), 0) AS totalIncome
+    FROM Product p LEFT JOIN ProductOrder po ON po.product = p
+    WHERE p.productId = :productId
+    GROUP BY p.productId, p.name, p.article, p.price, p.rating
+    """)
+    Optional<SalesEntryProjection> findSalesEntryById(@Param("productId") Integer productId);
+}
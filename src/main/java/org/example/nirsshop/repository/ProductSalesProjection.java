@@ -0,0 +1,6 @@
+package org.example.nirsshop.repository;
+
+public interface ProductSalesProjection {
+    Integer getProductId();
+    Long getTotalSold();
+}
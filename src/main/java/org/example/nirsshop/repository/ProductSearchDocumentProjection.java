@@ -0,0 +1,9 @@
+package org.example.nirsshop.repository;
+
+public interface ProductSearchDocumentProjection {
+    Integer getProductId();
+    String getName();
+    String getArticle();
+    String getDescription();
+    String getCategoryName();
+}
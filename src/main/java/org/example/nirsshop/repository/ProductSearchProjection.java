@@ -0,0 +1,7 @@
+package org.example.nirsshop.repository;
+
+public interface ProductSearchProjection {
+    Integer getProductId();
+    String getName();
+    String getArticle();
+}
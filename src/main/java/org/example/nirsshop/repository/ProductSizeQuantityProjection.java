@@ -0,0 +1,7 @@
+package org.example.nirsshop.repository;
+
+public interface ProductSizeQuantityProjection {
+    Integer getProductId();
+    String getSizeValue();
+    Long getQuantity();
+}
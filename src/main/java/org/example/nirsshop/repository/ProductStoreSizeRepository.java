@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -40,4 +41,19 @@ public interface ProductStoreSizeRepository extends JpaRepository<ProductStoreSi
            "WHERE pss.product.productId = :productId AND pss.sizeValue = :sizeValue")
     Integer getQuantityByProductAndSize(@Param("productId") Integer productId,
                                         @Param("sizeValue") String sizeValue);
+
+    @Query("SELECT pss.product.productId AS productId, pss.sizeValue AS sizeValue, " +
+           "COALESCE(SUM(pss.quantity), 0) AS quantity FROM ProductStoreSize pss " +
+           "WHERE pss.product.productId IN :productIds " +
+           "GROUP BY pss.product.productId, pss.sizeValue")
+    List<ProductSizeQuantityProjection> getSizeQuantitiesByProductIds(@Param("productIds") Collection<Integer> productIds);
+
+    @Query("SELECT pss.product.productId AS productId, pss.store.storeId AS storeId, " +
+           "pss.sizeValue AS sizeValue, pss.quantity AS quantity FROM ProductStoreSize pss")
+    List<StockIndexProjection> findAllIndexEntries();
+
+    @Query("SELECT pss.product.productId AS productId, pss.store.storeId AS storeId, " +
+           "pss.sizeValue AS sizeValue, pss.quantity AS quantity FROM ProductStoreSize pss " +
+           "WHERE pss.product.productId = :productId")
+    List<StockIndexProjection> findIndexEntriesByProductId(@Param("productId") Integer productId);
 }
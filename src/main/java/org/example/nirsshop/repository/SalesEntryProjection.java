@@ -0,0 +1,6 @@
+package org.example.nirsshop.repository;
+
+// Продажи товара для счётчиков в памяти: доход - по ценам позиций (product_order.unit_price)
+public interface SalesEntryProjection extends PopularProductProjection {
+    Long getTotalIncome();
+}
@@ -0,0 +1,162 @@
+package org.example.nirsshop.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.model.dto.SalesCategoryDto;
+import org.example.nirsshop.model.dto.SalesDayDto;
+import org.example.nirsshop.model.dto.SalesHourDto;
+import org.example.nirsshop.model.dto.SalesProductDto;
+import org.example.nirsshop.rollup.SalesPeriod;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Таблицы продаж sales_daily (по дате заказа) и sales_hourly (по часу записи) через JDBC:
+ * пишутся только приращениями ON CONFLICT и читаются только агрегатами, сущности им не нужны.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+
+    private static final String ADD_DAILY = """
+            INSERT INTO sales_daily (sale_date, product_id, category_id, units, revenue)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (sale_date, product_id) DO UPDATE SET
+                units = sales_daily.units + EXCLUDED.units,
+                revenue = sales_daily.revenue + EXCLUDED.revenue
+            """;
+
+    private static final String ADD_HOURLY = """
+            INSERT INTO sales_hourly (sale_hour, product_id, category_id, units, revenue)
+            VALUES (date_trunc('hour', LOCALTIMESTAMP), ?, ?, ?, ?)
+            ON CONFLICT (sale_hour, product_id) DO UPDATE SET
+                units = sales_hourly.units + EXCLUDED.units,
+                revenue = sales_hourly.revenue + EXCLUDED.revenue
+            """;
+
+    private static final String REBUILD_DAILY = """
+            INSERT INTO sales_daily (sale_date, product_id, category_id, units, revenue)
+            SELECT o.order_date, p.product_id, p.category_id, SUM(po.quantity), SUM(po.quantity::bigint * po.unit_price)
+            FROM "order" o
+                JOIN product_order po ON po.order_id = o.order_id
+                JOIN product p ON p.product_id = po.product_id
+            WHERE o.order_date BETWEEN ? AND ?
+            GROUP BY o.order_date, p.product_id, p.category_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void addDaily(LocalDate saleDate, Integer productId, Integer categoryId, long units, long revenue) {
+        jdbcTemplate.update(ADD_DAILY, Date.valueOf(saleDate), productId, categoryId, units, revenue);
+    }
+
+    // Час берётся из времени транзакции в БД
+    public void addHourly(Integer productId, Integer categoryId, long units, long revenue) {
+        jdbcTemplate.update(ADD_HOURLY, productId, categoryId, units, revenue);
+    }
+
+    // Блокирует запись приращений до конца транзакции пересборки
+    public void lockDaily() {
+        jdbcTemplate.execute("LOCK TABLE sales_daily IN SHARE ROW EXCLUSIVE MODE");
+    }
+
+    // Пересобирает дни from..to из заказов; возвращает число строк
+    public int rebuildDaily(LocalDate from, LocalDate to) {
+        jdbcTemplate.update("DELETE FROM sales_daily WHERE sale_date BETWEEN ? AND ?",
+                Date.valueOf(from), Date.valueOf(to));
+        return jdbcTemplate.update(REBUILD_DAILY, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    // Дни вне from..to, где заказов больше нет
+    public int deleteDailyOutside(LocalDate from, LocalDate to) {
+        return jdbcTemplate.update("DELETE FROM sales_daily WHERE sale_date < ? OR sale_date > ?",
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public List<SalesDayDto> findDaily(LocalDate from, LocalDate to, SalesPeriod period,
+                                       Integer productId, Integer categoryId) {
+        // Ключ периода из enum, в SQL подставляется как литерал
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        String sql = "SELECT CAST(date_trunc('" + period.getKey() + "', sale_date::timestamp) AS date) " +
+                     "AS period_start, SUM(units) AS units, SUM(revenue) AS revenue " +
+                     "FROM sales_daily WHERE sale_date BETWEEN ? AND ?" +
+                     filters(productId, categoryId, args) +
+                     " GROUP BY 1 ORDER BY 1";
+        return jdbcTemplate.query(sql, (row, rowNum) -> new SalesDayDto(
+                row.getDate("period_start").toLocalDate(),
+                row.getLong("units"),
+                row.getLong("revenue")
+        ), args.toArray());
+    }
+
+    public List<SalesHourDto> findHourly(LocalDateTime from, LocalDateTime to, Integer productId, Integer categoryId) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        String sql = "SELECT sale_hour, SUM(units) AS units, SUM(revenue) AS revenue " +
+                     "FROM sales_hourly WHERE sale_hour >= ? AND sale_hour < ?" +
+                     filters(productId, categoryId, args) +
+                     " GROUP BY sale_hour ORDER BY sale_hour";
+        return jdbcTemplate.query(sql, (row, rowNum) -> new SalesHourDto(
+                row.getTimestamp("sale_hour").toLocalDateTime(),
+                row.getLong("units"),
+                row.getLong("revenue")
+        ), args.toArray());
+    }
+
+    public List<SalesCategoryDto> findByCategory(LocalDate from, LocalDate to) {
+        String sql = """
+                SELECT s.category_id, c.name, s.units, s.revenue
+                FROM (
+                    SELECT category_id, SUM(units) AS units, SUM(revenue) AS revenue
+                    FROM sales_daily
+                    WHERE sale_date BETWEEN ? AND ?
+                    GROUP BY category_id
+                ) s LEFT JOIN category c ON c.category_id = s.category_id
+                ORDER BY s.revenue DESC, s.category_id
+                """;
+        return jdbcTemplate.query(sql, (row, rowNum) -> new SalesCategoryDto(
+                (Integer) row.getObject("category_id"),
+                row.getString("name"),
+                row.getLong("units"),
+                row.getLong("revenue")
+        ), Date.valueOf(from), Date.valueOf(to));
+    }
+
+    // Названия подтягиваются только для строк топа
+    public List<SalesProductDto> findTopProducts(LocalDate from, LocalDate to, Integer categoryId, int limit) {
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        String sql = "SELECT s.product_id, p.name, s.category_id, s.units, s.revenue FROM (" +
+                     "SELECT product_id, MIN(category_id) AS category_id, " +
+                     "SUM(units) AS units, SUM(revenue) AS revenue " +
+                     "FROM sales_daily WHERE sale_date BETWEEN ? AND ?" +
+                     filters(null, categoryId, args) +
+                     " GROUP BY product_id ORDER BY revenue DESC, product_id LIMIT ?" +
+                     ") s LEFT JOIN product p ON p.product_id = s.product_id ORDER BY s.revenue DESC, s.product_id";
+        args.add(limit);
+        return jdbcTemplate.query(sql, (row, rowNum) -> new SalesProductDto(
+                row.getInt("product_id"),
+                row.getString("name"),
+                (Integer) row.getObject("category_id"),
+                row.getLong("units"),
+                row.getLong("revenue")
+        ), args.toArray());
+    }
+
+    private static String filters(Integer productId, Integer categoryId, List<Object> args) {
+        StringBuilder sql = new StringBuilder();
+        if (productId != null) {
+            sql.append(" AND product_id = ?");
+            args.add(productId);
+        }
+        if (categoryId != null) {
+            sql.append(" AND category_id = ?");
+            args.add(categoryId);
+        }
+        return sql.toString();
+    }
+}
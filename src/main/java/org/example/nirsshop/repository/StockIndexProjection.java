@@ -0,0 +1,8 @@
+package org.example.nirsshop.repository;
+
+public interface StockIndexProjection {
+    Integer getProductId();
+    Integer getStoreId();
+    String getSizeValue();
+    Integer getQuantity();
+}
@@ -1,7 +1,17 @@
 package org.example.nirsshop.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.nirsshop.model.Store;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface StoreRepository extends JpaRepository<Store, Integer> {
+
+    // Результат в кэше запросов; Hibernate сбрасывает его при любой записи в таблицу
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Store> findAll();
 }
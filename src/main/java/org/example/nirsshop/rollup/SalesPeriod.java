@@ -0,0 +1,29 @@
+package org.example.nirsshop.rollup;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.exception.BadRequestException;
+
+// Шаг ряда продаж по дневным агрегатам; key - поле date_trunc в PostgreSQL
+@Getter
+@RequiredArgsConstructor
+public enum SalesPeriod {
+
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    private final String key;
+
+    public static SalesPeriod fromKey(String key) {
+        if (key == null || key.isBlank()) {
+            return DAY;
+        }
+        for (SalesPeriod period : values()) {
+            if (period.key.equalsIgnoreCase(key)) {
+                return period;
+            }
+        }
+        throw new BadRequestException("Unsupported sales period: " + key);
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.nirsshop.rollup;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.exception.ConflictException;
+import org.example.nirsshop.model.dto.RollupBackfillStatusDto;
+import org.example.nirsshop.repository.OrderRepository;
+import org.example.nirsshop.repository.SalesRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Пересборка sales_daily из заказов в фоне, кусками по chunkDays дней дат заказа.
+ * Каждый кусок - своя транзакция: таблица блокируется от приращений, дни куска удаляются
+ * и собираются заново одним INSERT ... SELECT. Записи в заказы ждут конца куска, а не всей пересборки.
+ * sales_hourly не пересобирается: у заказа есть только дата, час продажи из истории не восстановить.
+ */
+@Slf4j
+@Component
+public class SalesRollupBackfill {
+
+    private enum State { IDLE, RUNNING, DONE, FAILED }
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkDays;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "sales-rollup-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile RollupBackfillStatusDto status =
+            new RollupBackfillStatusDto(State.IDLE.name(), null, null, null, 0, null, null, null);
+
+    public SalesRollupBackfill(SalesRollupRepository salesRollupRepository,
+                               OrderRepository orderRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${catalog.rollup.backfill-chunk-days:31}") int chunkDays) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkDays = chunkDays;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public synchronized RollupBackfillStatusDto start() {
+        if (State.RUNNING.name().equals(status.state())) {
+            throw new ConflictException("Sales rollup backfill is already running");
+        }
+        status = new RollupBackfillStatusDto(State.RUNNING.name(), null, null, null, 0, Instant.now(), null, null);
+        executor.execute(this::run);
+        return status;
+    }
+
+    public RollupBackfillStatusDto status() {
+        return status;
+    }
+
+    private void run() {
+        Instant startedAt = status.startedAt();
+        long rows = 0;
+        LocalDate from = null;
+        LocalDate to = null;
+        LocalDate processedUntil = null;
+        try {
+            from = orderRepository.findMinOrderDate();
+            to = orderRepository.findMaxOrderDate();
+            if (from == null) {
+                // Заказов нет - остаётся только очистить агрегаты
+                from = LocalDate.now();
+                to = from;
+            }
+            LocalDate first = from;
+            LocalDate last = to;
+            transactionTemplate.executeWithoutResult(tx -> {
+                salesRollupRepository.lockDaily();
+                salesRollupRepository.deleteDailyOutside(first, last);
+            });
+            for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = processedUntil.plusDays(1)) {
+                LocalDate start = chunkStart;
+                LocalDate chunkEnd = chunkStart.plusDays(chunkDays - 1L);
+                LocalDate end = chunkEnd.isAfter(to) ? to : chunkEnd;
+                Integer inserted = transactionTemplate.execute(tx -> {
+                    salesRollupRepository.lockDaily();
+                    return salesRollupRepository.rebuildDaily(start, end);
+                });
+                rows += inserted == null ? 0 : inserted;
+                processedUntil = end;
+                status = new RollupBackfillStatusDto(State.RUNNING.name(), from, to, processedUntil, rows,
+                        startedAt, null, null);
+            }
+            status = new RollupBackfillStatusDto(State.DONE.name(), from, to, processedUntil, rows,
+                    startedAt, Instant.now(), null);
+            log.info("Sales rollup backfill finished: {}..{}, {} rows", from, to, rows);
+        } catch (RuntimeException e) {
+            log.error("Sales rollup backfill failed", e);
+            status = new RollupBackfillStatusDto(State.FAILED.name(), from, to, processedUntil, rows, startedAt,
+                    Instant.now(), e.getMessage());
+        }
+    }
+}
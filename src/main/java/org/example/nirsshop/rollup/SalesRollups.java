@@ -0,0 +1,59 @@
+package org.example.nirsshop.rollup;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.model.ProductOrder;
+import org.example.nirsshop.repository.SalesRollupRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Приращения агрегатов продаж при записях в заказы. Вызывается в транзакции самой записи,
+ * поэтому агрегаты фиксируются вместе с позициями заказа. Выручка - количество по цене единицы,
+ * сохранённой в позиции (product_order.unit_price), поэтому изменение и удаление позиции вычитает
+ * ровно то, что она добавила. Категория - категория товара на момент записи.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesRollups {
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    // Позиция заказа добавлена, изменена или удалена: quantityDelta - изменение количества
+    public void recordLine(LocalDate orderDate, ProductOrder line, int quantityDelta) {
+        if (quantityDelta == 0) {
+            return;
+        }
+        Product product = line.getProduct();
+        Integer categoryId = categoryIdOf(product);
+        long revenue = line.revenueOf(quantityDelta);
+        salesRollupRepository.addDaily(orderDate, product.getProductId(), categoryId, quantityDelta, revenue);
+        salesRollupRepository.addHourly(product.getProductId(), categoryId, quantityDelta, revenue);
+    }
+
+    // Удаление заказа со всеми позициями
+    public void recordOrderDeleted(LocalDate orderDate, List<ProductOrder> lines) {
+        lines.forEach(line -> recordLine(orderDate, line, -line.getQuantity()));
+    }
+
+    // Дата заказа изменилась: продажи переезжают в другой день; почасовые агрегаты по времени записи не меняются
+    public void recordOrderMoved(LocalDate from, LocalDate to, List<ProductOrder> lines) {
+        if (from.equals(to)) {
+            return;
+        }
+        for (ProductOrder line : lines) {
+            Product product = line.getProduct();
+            Integer categoryId = categoryIdOf(product);
+            long units = line.getQuantity();
+            long revenue = line.revenueOf(line.getQuantity());
+            salesRollupRepository.addDaily(from, product.getProductId(), categoryId, -units, -revenue);
+            salesRollupRepository.addDaily(to, product.getProductId(), categoryId, units, revenue);
+        }
+    }
+
+    private static Integer categoryIdOf(Product product) {
+        return product.getCategory() != null ? product.getCategory().getCategoryId() : null;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.nirsshop.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.FlattenGraphFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.snowball.SnowballFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.synonym.SolrSynonymParser;
+import org.apache.lucene.analysis.synonym.SynonymGraphFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.tartarus.snowball.ext.RussianStemmer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.Map;
+
+/**
+ * Анализаторы поискового индекса. Синонимы раскрываются только при индексации:
+ * в документ попадают основы всех слов группы, а запрос анализируется обычным
+ * русским анализатором и остаётся одним поиском терма.
+ */
+final class CatalogAnalyzers {
+
+    private CatalogAnalyzers() {
+    }
+
+    static Analyzer indexAnalyzer(SynonymMap synonyms) {
+        Analyzer withSynonyms = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream result = stem(source);
+                if (synonyms.fst != null) {
+                    result = new FlattenGraphFilter(new SynonymGraphFilter(result, synonyms, false));
+                }
+                return new TokenStreamComponents(source, result);
+            }
+        };
+        return new PerFieldAnalyzerWrapper(new RussianAnalyzer(), Map.of(
+                ProductSearchEngine.NAME, withSynonyms,
+                ProductSearchEngine.CATEGORY, withSynonyms,
+                ProductSearchEngine.TRANSLIT, latinAnalyzer()
+        ));
+    }
+
+    static Analyzer queryAnalyzer() {
+        return new PerFieldAnalyzerWrapper(new RussianAnalyzer(), Map.of(
+                ProductSearchEngine.TRANSLIT, latinAnalyzer()
+        ));
+    }
+
+    /**
+     * Разбирает таблицу синонимов в формате Solr: "куртка, пуховик, ветровка" на строку.
+     * Слова приводятся к основам тем же стеммером, что и поля индекса.
+     */
+    static SynonymMap parseSynonyms(Reader rules) throws IOException {
+        Analyzer stemming = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                return new TokenStreamComponents(source, stem(source));
+            }
+        };
+        SolrSynonymParser parser = new SolrSynonymParser(true, true, stemming);
+        try {
+            parser.parse(rules);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Некорректная таблица синонимов: " + e.getMessage(), e);
+        }
+        return parser.build();
+    }
+
+    // Цепочка RussianAnalyzer: нижний регистр, стоп-слова, стеммер Snowball
+    private static TokenStream stem(Tokenizer source) {
+        TokenStream result = new LowerCaseFilter(source);
+        result = new StopFilter(result, RussianAnalyzer.getDefaultStopSet());
+        return new SnowballFilter(result, new RussianStemmer());
+    }
+
+    // Транслит индексируется как есть, без стемминга и стоп-слов
+    private static Analyzer latinAnalyzer() {
+        return new StandardAnalyzer(CharArraySet.EMPTY_SET);
+    }
+}
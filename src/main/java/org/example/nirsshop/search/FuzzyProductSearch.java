@@ -0,0 +1,201 @@
+package org.example.nirsshop.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.event.CategoryDeletedEvent;
+import org.example.nirsshop.event.CategoryRenamedEvent;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.ProductSearchDocumentProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поиск с опечатками по словам названия и категории товара на {@link SymSpellIndex}.
+ * Каждое слово запроса должно совпасть с каким-то словом товара с точностью до опечаток;
+ * допустимое число правок зависит от длины слова. Товары с меньшим суммарным расстоянием выше.
+ */
+@Slf4j
+@Component
+public class FuzzyProductSearch {
+
+    private final ProductRepository productRepository;
+    private final int maxEditDistance;
+    private final int prefixLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock rebuildLock = new ReentrantLock();
+    private SymSpellIndex index;
+    // Товары, изменённые во время чтения снимка перестройки; null, когда перестройки нет. Под lock
+    private Set<Integer> touchedDuringRebuild;
+
+    public FuzzyProductSearch(ProductRepository productRepository,
+                              @Value("${catalog.search.fuzzy.max-edit-distance:2}") int maxEditDistance,
+                              @Value("${catalog.search.fuzzy.prefix-length:7}") int prefixLength) {
+        this.productRepository = productRepository;
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+        this.index = new SymSpellIndex(maxEditDistance, prefixLength);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // Перестройки идут по одной: вторая не должна забрать список изменённых товаров первой
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            SymSpellIndex rebuilt = new SymSpellIndex(maxEditDistance, prefixLength);
+            List<ProductSearchDocumentProjection> documents;
+            try {
+                documents = productRepository.findAllSearchDocuments();
+                documents.forEach(document -> rebuilt.put(document.getProductId(), wordsOf(document)));
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    touchedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            Set<Integer> touched;
+            int termCount = rebuilt.termCount();
+            lock.writeLock().lock();
+            try {
+                // Подмена и снятие списка разом: иначе изменение между ними ушло бы в старый словарь
+                index = rebuilt;
+                touched = touchedDuringRebuild;
+                touchedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Коммиты во время чтения снимка могли попасть или не попасть в него - перечитываем эти товары
+            touched.forEach(this::reindex);
+            log.info("Fuzzy search dictionary built: {} products, {} words, {} re-read",
+                    documents.size(), termCount, touched.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        reindex(event.productId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryRenamed(CategoryRenamedEvent event) {
+        // Слова названия категории входят в слова её товаров
+        List<ProductSearchDocumentProjection> documents =
+                productRepository.findSearchDocumentsByCategoryId(event.categoryId());
+        lock.writeLock().lock();
+        try {
+            for (ProductSearchDocumentProjection document : documents) {
+                touch(document.getProductId());
+                index.put(document.getProductId(), wordsOf(document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryDeleted(CategoryDeletedEvent event) {
+        // После коммита у бывших товаров категории category_id уже обнулён и найти их по ней нельзя
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        rebuild();
+    }
+
+    private void reindex(Integer productId) {
+        Optional<ProductSearchDocumentProjection> document = productRepository.findSearchDocumentById(productId);
+        lock.writeLock().lock();
+        try {
+            touch(productId);
+            if (document.isPresent()) {
+                index.put(productId, wordsOf(document.get()));
+            } else {
+                index.remove(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вызывается под записью lock
+    private void touch(Integer productId) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(productId);
+        }
+    }
+
+    // id товаров по возрастанию суммарного расстояния до слов запроса
+    public List<Integer> search(String query, int limit) {
+        List<String> words = SymSpellIndex.tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> distances = null;
+            for (String word : words) {
+                Map<Integer, Integer> wordDistances = new HashMap<>();
+                for (SymSpellIndex.Match match : index.lookup(word, allowedDistance(word))) {
+                    for (Integer productId : index.productsOf(match.term())) {
+                        wordDistances.merge(productId, match.distance(), Math::min);
+                    }
+                }
+                if (distances == null) {
+                    distances = wordDistances;
+                } else {
+                    Map<Integer, Integer> previous = distances;
+                    wordDistances.keySet().retainAll(previous.keySet());
+                    wordDistances.replaceAll((productId, distance) -> distance + previous.get(productId));
+                    distances = wordDistances;
+                }
+                if (distances.isEmpty()) {
+                    return List.of();
+                }
+            }
+            Map<Integer, Integer> result = distances;
+            return result.keySet().stream()
+                    .sorted(Comparator.comparingInt(result::get).thenComparingInt(productId -> productId))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Короткие слова без опечаток, до 6 букв - одна правка
+    private int allowedDistance(String word) {
+        if (word.length() <= 3) {
+            return 0;
+        }
+        return word.length() <= 6 ? 1 : maxEditDistance;
+    }
+
+    private static List<String> wordsOf(ProductSearchDocumentProjection document) {
+        List<String> words = new ArrayList<>(SymSpellIndex.tokenize(document.getName()));
+        words.addAll(SymSpellIndex.tokenize(document.getCategoryName()));
+        return words;
+    }
+}
@@ -0,0 +1,374 @@
+package org.example.nirsshop.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLEncoder;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.LockObtainFailedException;
+import org.example.nirsshop.event.CategoryDeletedEvent;
+import org.example.nirsshop.event.CategoryRenamedEvent;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.ProductSearchDocumentProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Встроенный полнотекстовый поиск на Lucene: индекс на диске, ранжирование BM25,
+ * подсветка совпадений. Индексируются название, артикул, описание и название категории.
+ * Индекс обновляется после коммита изменений товара и может быть перестроен при старте.
+ * При индексации к названию и категории добавляются синонимы и латинская транслитерация,
+ * так что "kurtka" и "пуховик" находят "Куртку" одним поиском терма.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchEngine {
+
+    static final String ID = "productId";
+    static final String NAME = "name";
+    static final String ARTICLE = "article";
+    static final String DESCRIPTION = "description";
+    static final String CATEGORY = "category";
+    static final String TRANSLIT = "translit";
+
+    // Ключ в данных коммита: при смене синонимов или схемы анализа индекс перестраивается
+    private static final String ANALYSIS_KEY = "analysis";
+    private static final String ANALYSIS_VERSION = "2";
+
+    // Совпадение в названии важнее совпадения в описании
+    private static final Map<String, Float> BOOSTS = Map.of(
+            NAME, 3.0f,
+            ARTICLE, 2.0f,
+            CATEGORY, 1.5f,
+            TRANSLIT, 1.5f,
+            DESCRIPTION, 1.0f
+    );
+    private static final List<String> HIGHLIGHT_FIELDS = List.of(NAME, DESCRIPTION);
+
+    private final ProductRepository productRepository;
+
+    @Value("${catalog.search.index-dir:data/search-index}")
+    private String indexDir;
+
+    @Value("${catalog.search.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Value("${catalog.search.synonyms:classpath:search/synonyms.txt}")
+    private Resource synonymsResource;
+
+    @Value("${catalog.search.max-page-size:100}")
+    private int maxPageSize;
+
+    // Глубже очередь TopDocs не растёт: дальние страницы релевантной выдачи не отдаём
+    @Value("${catalog.search.max-depth:1000}")
+    private int maxDepth;
+
+    private final Analyzer analyzer = CatalogAnalyzers.queryAnalyzer();
+    private String analysisVersion;
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    // Точечные обновления коммитят под блокировкой чтения, перестройка - под блокировкой записи:
+    // иначе чужой commit() зафиксировал бы deleteAll() с частью документов
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final Lock rebuildLock = new ReentrantLock();
+    // Товары, изменённые, пока перестройка читала снимок; null - перестройки нет
+    private Set<Integer> touchedDuringRebuild;
+
+    public record Hit(Integer productId, float score, Map<String, String> highlights) {}
+
+    public record Result(List<Hit> hits, long totalHits) {}
+
+    @PostConstruct
+    public void open() throws IOException {
+        String rules = synonymsResource.getContentAsString(StandardCharsets.UTF_8);
+        Analyzer indexAnalyzer = CatalogAnalyzers.indexAnalyzer(CatalogAnalyzers.parseSynonyms(new StringReader(rules)));
+        analysisVersion = ANALYSIS_VERSION + ":" + Integer.toHexString(rules.hashCode());
+
+        IndexWriterConfig config = new IndexWriterConfig(indexAnalyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        try {
+            directory = FSDirectory.open(Path.of(indexDir));
+            writer = new IndexWriter(directory, config);
+        } catch (LockObtainFailedException e) {
+            // Каталог индекса уже занят другим экземпляром (например, вторым контекстом в тестах)
+            log.warn("Search index {} is locked, falling back to in-memory index", indexDir);
+            directory.close();
+            directory = new ByteBuffersDirectory();
+            writer = new IndexWriter(directory, new IndexWriterConfig(indexAnalyzer));
+        }
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() throws IOException {
+        if (rebuildOnStartup || writer.getDocStats().numDocs == 0 || !analysisVersion.equals(storedAnalysisVersion())) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() throws IOException {
+        // Перестройки идут по одной: вторая не должна забрать список изменённых товаров первой
+        rebuildLock.lock();
+        try {
+            synchronized (this) {
+                touchedDuringRebuild = new HashSet<>();
+            }
+            List<ProductSearchDocumentProjection> documents;
+            try {
+                documents = productRepository.findAllSearchDocuments();
+            } catch (RuntimeException e) {
+                takeTouched();
+                throw e;
+            }
+            commitLock.writeLock().lock();
+            try {
+                Set<Integer> touched = takeTouched();
+                writer.deleteAll();
+                for (ProductSearchDocumentProjection document : documents) {
+                    writer.addDocument(toDocument(document));
+                }
+                // Коммиты во время чтения снимка могли попасть или не попасть в него - перечитываем эти товары
+                for (Integer productId : touched) {
+                    reindex(productId);
+                }
+                writer.setLiveCommitData(Map.of(ANALYSIS_KEY, analysisVersion).entrySet());
+                commit();
+                log.info("Product search index rebuilt: {} products, {} re-read", documents.size(), touched.size());
+            } finally {
+                commitLock.writeLock().unlock();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private synchronized void touch(Integer productId) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(productId);
+        }
+    }
+
+    private synchronized Set<Integer> takeTouched() {
+        Set<Integer> touched = touchedDuringRebuild;
+        touchedDuringRebuild = null;
+        return touched;
+    }
+
+    private String storedAnalysisVersion() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (ANALYSIS_KEY.equals(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) throws IOException {
+        touch(event.productId());
+        commitLock.readLock().lock();
+        try {
+            reindex(event.productId());
+            commit();
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryRenamed(CategoryRenamedEvent event) throws IOException {
+        // Название категории скопировано в документы её товаров
+        List<ProductSearchDocumentProjection> documents =
+                productRepository.findSearchDocumentsByCategoryId(event.categoryId());
+        documents.forEach(document -> touch(document.getProductId()));
+        commitLock.readLock().lock();
+        try {
+            for (ProductSearchDocumentProjection document : documents) {
+                writer.updateDocument(new Term(ID, String.valueOf(document.getProductId())), toDocument(document));
+            }
+            commit();
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryDeleted(CategoryDeletedEvent event) throws IOException {
+        // После коммита у бывших товаров категории category_id уже обнулён и найти их по ней нельзя
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) throws IOException {
+        rebuild();
+    }
+
+    /**
+     * Страница результатов, отсортированных по релевантности (BM25).
+     */
+    public Result search(String queryText, int page, int pageSize) {
+        if (queryText == null || queryText.isBlank()) {
+            throw new BadRequestException("Поисковый запрос не может быть пустым");
+        }
+        if (page < 0 || pageSize < 1) {
+            throw new BadRequestException("Некорректные параметры страницы");
+        }
+        if (pageSize > maxPageSize) {
+            throw new BadRequestException("Размер страницы не может быть больше " + maxPageSize);
+        }
+        if ((long) page * pageSize + pageSize > maxDepth) {
+            throw new BadRequestException("Доступны только первые " + maxDepth + " результатов поиска");
+        }
+        Query query = parse(queryText);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int from = page * pageSize;
+                TopDocs top = searcher.search(query, from + pageSize);
+                StoredFields storedFields = searcher.storedFields();
+                List<Hit> hits = new ArrayList<>();
+                for (int i = from; i < top.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = top.scoreDocs[i];
+                    Document document = storedFields.document(scoreDoc.doc);
+                    hits.add(new Hit(
+                            Integer.valueOf(document.get(ID)),
+                            scoreDoc.score,
+                            highlight(query, document)
+                    ));
+                }
+                return new Result(hits, top.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query parse(String queryText) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+                BOOSTS.keySet().toArray(String[]::new), analyzer, BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(QueryParser.escape(queryText.trim()));
+        } catch (ParseException e) {
+            throw new BadRequestException("Некорректный поисковый запрос: " + queryText);
+        }
+    }
+
+    private Map<String, String> highlight(Query query, Document document) throws IOException {
+        Map<String, String> highlights = new LinkedHashMap<>();
+        SimpleHTMLFormatter formatter = new SimpleHTMLFormatter("<em>", "</em>");
+        for (String field : HIGHLIGHT_FIELDS) {
+            String text = document.get(field);
+            if (text == null) {
+                continue;
+            }
+            // Текст товара экранируется, в HTML остаются только теги подсветки
+            Highlighter highlighter = new Highlighter(formatter, new SimpleHTMLEncoder(), new QueryScorer(query, field));
+            try {
+                String fragment = highlighter.getBestFragment(analyzer, field, text);
+                if (fragment != null) {
+                    highlights.put(field, fragment);
+                }
+            } catch (InvalidTokenOffsetsException e) {
+                log.debug("Cannot highlight field {}: {}", field, e.getMessage());
+            }
+        }
+        return highlights;
+    }
+
+    private void reindex(Integer productId) throws IOException {
+        Term id = new Term(ID, String.valueOf(productId));
+        Optional<ProductSearchDocumentProjection> document = productRepository.findSearchDocumentById(productId);
+        if (document.isPresent()) {
+            writer.updateDocument(id, toDocument(document.get()));
+        } else {
+            writer.deleteDocuments(id);
+        }
+    }
+
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    private static Document toDocument(ProductSearchDocumentProjection source) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(source.getProductId()), Field.Store.YES));
+        addText(document, NAME, source.getName());
+        addText(document, ARTICLE, source.getArticle());
+        addText(document, DESCRIPTION, source.getDescription());
+        addText(document, CATEGORY, source.getCategoryName());
+
+        // Латинские варианты названия и категории, в выдачу не возвращаются
+        Set<String> translit = new LinkedHashSet<>(Transliterator.variants(source.getName()));
+        translit.addAll(Transliterator.variants(source.getCategoryName()));
+        if (!translit.isEmpty()) {
+            document.add(new TextField(TRANSLIT, String.join(" ", translit), Field.Store.NO));
+        }
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            document.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+}
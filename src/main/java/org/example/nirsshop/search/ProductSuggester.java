@@ -0,0 +1,196 @@
+package org.example.nirsshop.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.event.ProductSalesChangedEvent;
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.model.dto.ProductSuggestionDto;
+import org.example.nirsshop.repository.ProductOrderRepository;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.ProductSalesProjection;
+import org.example.nirsshop.repository.ProductSearchProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Автодополнение по названию и артикулу из {@link SuggestTrie} в памяти, без запросов к БД на каждый ввод.
+ * Название индексируется с начала каждого слова, чтобы "зимн" находило "Куртка зимняя".
+ * Вес товара - число проданных единиц.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+
+    private final ProductRepository productRepository;
+    private final ProductOrderRepository productOrderRepository;
+
+    @Value("${catalog.suggest.max-results:10}")
+    private int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock rebuildLock = new ReentrantLock();
+    private final Map<Integer, ProductSearchProjection> products = new HashMap<>();
+    private SuggestTrie trie = new SuggestTrie(0);
+    // Товары, у которых во время чтения снимка менялись данные или продажи; null вне перестройки. Под lock
+    private Set<Integer> touchedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // Перестройки идут по одной: вторая не должна забрать список изменённых товаров первой
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            List<ProductSearchProjection> entries;
+            SuggestTrie rebuilt = new SuggestTrie(maxResults);
+            try {
+                entries = productRepository.findAllSearchEntries();
+                Map<Integer, Long> sales = productOrderRepository.findSalesByProduct().stream()
+                        .collect(Collectors.toMap(ProductSalesProjection::getProductId, ProductSalesProjection::getTotalSold));
+                for (ProductSearchProjection entry : entries) {
+                    rebuilt.put(entry.getProductId(), keysOf(entry), sales.getOrDefault(entry.getProductId(), 0L));
+                }
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    touchedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            Set<Integer> touched;
+            lock.writeLock().lock();
+            try {
+                // Подмена и снятие списка разом: иначе изменение между ними ушло бы в старое дерево
+                trie = rebuilt;
+                products.clear();
+                entries.forEach(entry -> products.put(entry.getProductId(), entry));
+                touched = touchedDuringRebuild;
+                touchedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Коммиты во время чтения снимка могли попасть или не попасть в него - перечитываем эти товары
+            touched.forEach(this::refresh);
+            log.info("Product suggestions built: {} products, {} re-read", entries.size(), touched.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Optional<ProductSearchProjection> entry = productRepository.findSearchEntryById(event.productId());
+        lock.writeLock().lock();
+        try {
+            touch(event.productId());
+            if (entry.isPresent()) {
+                trie.put(event.productId(), keysOf(entry.get()), trie.weightOf(event.productId()));
+                products.put(event.productId(), entry.get());
+            } else {
+                trie.remove(event.productId());
+                products.remove(event.productId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSalesChanged(ProductSalesChangedEvent event) {
+        long totalSold = productOrderRepository.sumQuantityByProductId(event.productId());
+        lock.writeLock().lock();
+        try {
+            touch(event.productId());
+            trie.updateWeight(event.productId(), totalSold);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Перечитывает и название с артикулом, и продажи товара
+    private void refresh(Integer productId) {
+        Optional<ProductSearchProjection> entry = productRepository.findSearchEntryById(productId);
+        long totalSold = productOrderRepository.sumQuantityByProductId(productId);
+        lock.writeLock().lock();
+        try {
+            if (entry.isPresent()) {
+                trie.put(productId, keysOf(entry.get()), totalSold);
+                products.put(productId, entry.get());
+            } else {
+                trie.remove(productId);
+                products.remove(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Вызывается под записью lock
+    private void touch(Integer productId) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(productId);
+        }
+    }
+
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Число подсказок должно быть положительным");
+        }
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] productIds = trie.complete(prefix, Math.min(limit, maxResults));
+            List<ProductSuggestionDto> suggestions = new ArrayList<>(productIds.length);
+            for (int productId : productIds) {
+                ProductSearchProjection product = products.get(productId);
+                suggestions.add(new ProductSuggestionDto(
+                        productId, product.getName(), product.getArticle(), trie.weightOf(productId)));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<String> keysOf(ProductSearchProjection entry) {
+        List<String> keys = new ArrayList<>();
+        if (entry.getArticle() != null) {
+            keys.add(entry.getArticle());
+        }
+        if (entry.getName() != null) {
+            String name = SuggestTrie.normalize(entry.getName());
+            keys.add(name);
+            for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                keys.add(name.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.nirsshop.search;
+
+import java.util.*;
+
+/**
+ * Сжатое префиксное дерево (radix trie) для автодополнения.
+ * В каждом узле хранится готовый top-k товаров поддерева по весу, поэтому ответ на префикс -
+ * спуск по дереву и копия массива без обхода поддерева. Изменение товара или его веса
+ * пересчитывает только узлы на путях к его ключам.
+ * Класс не потокобезопасен - синхронизация на стороне вызывающего.
+ */
+public class SuggestTrie {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int k;
+    private final Node root = new Node("");
+    private final Map<Integer, Long> weights = new HashMap<>();
+    private final Map<Integer, Set<String>> keysByProduct = new HashMap<>();
+
+    private static final class Node {
+        String label;
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        Set<Integer> terminal;
+        int[] top = EMPTY;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    public SuggestTrie(int k) {
+        this.k = k;
+    }
+
+    public static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT)
+                .replace('ё', 'е')
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    public int size() {
+        return keysByProduct.size();
+    }
+
+    /**
+     * Заменяет ключи товара. Ключи нормализуются, пустые пропускаются.
+     */
+    public void put(int productId, Collection<String> keys, long weight) {
+        remove(productId);
+        weights.put(productId, weight);
+        Set<String> normalized = new HashSet<>();
+        for (String key : keys) {
+            if (key != null && !normalize(key).isEmpty()) {
+                normalized.add(normalize(key));
+            }
+        }
+        keysByProduct.put(productId, normalized);
+        normalized.forEach(key -> insert(key, productId));
+    }
+
+    public void remove(int productId) {
+        Set<String> keys = keysByProduct.remove(productId);
+        if (keys != null) {
+            keys.forEach(key -> delete(key, productId));
+        }
+        weights.remove(productId);
+    }
+
+    public void updateWeight(int productId, long weight) {
+        Set<String> keys = keysByProduct.get(productId);
+        if (keys == null) {
+            return;
+        }
+        weights.put(productId, weight);
+        for (String key : keys) {
+            List<Node> path = new ArrayList<>();
+            path.add(root);
+            Node node = root;
+            String rest = key;
+            while (!rest.isEmpty()) {
+                node = node.children.get(rest.charAt(0));
+                path.add(node);
+                rest = rest.substring(node.label.length());
+            }
+            recompute(path);
+        }
+    }
+
+    public long weightOf(int productId) {
+        return weights.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * Товары, у которых есть ключ с данным префиксом, по убыванию веса.
+     */
+    public int[] complete(String prefix, int limit) {
+        String rest = normalize(prefix);
+        Node node = root;
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                return EMPTY;
+            }
+            if (child.label.startsWith(rest)) {
+                node = child;
+                break;
+            }
+            if (!rest.startsWith(child.label)) {
+                return EMPTY;
+            }
+            rest = rest.substring(child.label.length());
+            node = child;
+        }
+        return Arrays.copyOf(node.top, Math.max(0, Math.min(limit, node.top.length)));
+    }
+
+    private void insert(String key, int productId) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        String rest = key;
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                child = new Node(rest);
+                node.children.put(rest.charAt(0), child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefix(child.label, rest);
+            if (common < child.label.length()) {
+                // Разбиваем ребро: общий префикс становится промежуточным узлом
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            rest = rest.substring(common);
+        }
+        if (node.terminal == null) {
+            node.terminal = new HashSet<>();
+        }
+        node.terminal.add(productId);
+        recompute(path);
+    }
+
+    private void delete(String key, int productId) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        String rest = key;
+        while (!rest.isEmpty()) {
+            node = node.children.get(rest.charAt(0));
+            if (node == null || !rest.startsWith(node.label)) {
+                return;
+            }
+            path.add(node);
+            rest = rest.substring(node.label.length());
+        }
+        if (node.terminal == null || !node.terminal.remove(productId)) {
+            return;
+        }
+        if (node.terminal.isEmpty()) {
+            node.terminal = null;
+        }
+        compact(path);
+        recompute(path);
+    }
+
+    // Удаляет опустевший лист и склеивает узел с единственным потомком
+    private void compact(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.terminal == null && node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+                path.remove(i);
+            } else if (node.terminal == null && node.children.size() == 1) {
+                Node child = node.children.firstEntry().getValue();
+                child.label = node.label + child.label;
+                parent.children.put(child.label.charAt(0), child);
+                path.set(i, child);
+            }
+        }
+    }
+
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Set<Integer> candidates = new HashSet<>();
+            if (node.terminal != null) {
+                candidates.addAll(node.terminal);
+            }
+            for (Node child : node.children.values()) {
+                for (int productId : child.top) {
+                    candidates.add(productId);
+                }
+            }
+            node.top = candidates.stream()
+                    .sorted(Comparator.comparingLong((Integer id) -> weightOf(id)).reversed()
+                            .thenComparingInt(id -> id))
+                    .limit(k)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.nirsshop.search;
+
+import java.util.*;
+
+/**
+ * Словарь для нечёткого поиска по схеме SymSpell: для каждого слова заранее построены все варианты
+ * с удалением до maxEditDistance символов. Поиск генерирует удаления только для слова запроса
+ * и сверяет кандидатов из словаря по расстоянию Дамерау-Левенштейна - без перебора всех слов.
+ * Удаления строятся от первых prefixLength символов слова, это ограничивает размер словаря.
+ * Класс не потокобезопасен - синхронизация на стороне вызывающего.
+ */
+public class SymSpellIndex {
+
+    private final int maxEditDistance;
+    private final int prefixLength;
+
+    // слово -> товары, в названии или категории которых оно встречается
+    private final Map<String, Set<Integer>> terms = new HashMap<>();
+    // вариант с удалениями -> слова, из которых он получен
+    private final Map<String, Set<String>> deletes = new HashMap<>();
+    private final Map<Integer, Set<String>> termsByProduct = new HashMap<>();
+
+    public record Match(String term, int distance) {}
+
+    public SymSpellIndex(int maxEditDistance, int prefixLength) {
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    public void put(int productId, Collection<String> words) {
+        remove(productId);
+        Set<String> productTerms = new HashSet<>(words);
+        termsByProduct.put(productId, productTerms);
+        for (String term : productTerms) {
+            Set<Integer> products = terms.get(term);
+            if (products == null) {
+                products = new HashSet<>();
+                terms.put(term, products);
+                for (String variant : variants(term)) {
+                    deletes.computeIfAbsent(variant, v -> new HashSet<>()).add(term);
+                }
+            }
+            products.add(productId);
+        }
+    }
+
+    public void remove(int productId) {
+        Set<String> productTerms = termsByProduct.remove(productId);
+        if (productTerms == null) {
+            return;
+        }
+        for (String term : productTerms) {
+            Set<Integer> products = terms.get(term);
+            products.remove(productId);
+            if (products.isEmpty()) {
+                terms.remove(term);
+                for (String variant : variants(term)) {
+                    Set<String> origins = deletes.get(variant);
+                    origins.remove(term);
+                    if (origins.isEmpty()) {
+                        deletes.remove(variant);
+                    }
+                }
+            }
+        }
+    }
+
+    public Set<Integer> productsOf(String term) {
+        return terms.getOrDefault(term, Set.of());
+    }
+
+    /**
+     * Слова словаря на расстоянии не больше maxDistance от word, ближайшие первыми.
+     */
+    public List<Match> lookup(String word, int maxDistance) {
+        int distanceLimit = Math.min(maxDistance, maxEditDistance);
+        Map<String, Integer> found = new HashMap<>();
+        for (String variant : queryVariants(word, distanceLimit)) {
+            if (terms.containsKey(variant)) {
+                found.putIfAbsent(variant, -1);
+            }
+            for (String term : deletes.getOrDefault(variant, Set.of())) {
+                found.putIfAbsent(term, -1);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (String term : found.keySet()) {
+            if (Math.abs(term.length() - word.length()) > distanceLimit) {
+                continue;
+            }
+            int distance = distance(word, term, distanceLimit);
+            if (distance <= distanceLimit) {
+                matches.add(new Match(term, distance));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::term));
+        return matches;
+    }
+
+    // Удаления от префикса слова из словаря, включая сам префикс
+    private Set<String> variants(String term) {
+        return deletions(prefix(term), maxEditDistance);
+    }
+
+    private Set<String> queryVariants(String word, int distanceLimit) {
+        return deletions(prefix(word), distanceLimit);
+    }
+
+    private String prefix(String word) {
+        return word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+    }
+
+    private static Set<String> deletions(String word, int distance) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> frontier = List.of(word);
+        for (int d = 0; d < distance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                for (int i = 0; i < current.length(); i++) {
+                    String deleted = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    /**
+     * Расстояние Дамерау-Левенштейна (с перестановкой соседних символов),
+     * возвращает limit + 1, если оно больше limit.
+     */
+    static int distance(String a, String b, int limit) {
+        int n = a.length();
+        int m = b.length();
+        int[][] d = new int[n + 1][m + 1];
+        for (int i = 0; i <= n; i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, d[i - 2][j - 2] + 1);
+                }
+                d[i][j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+        }
+        return Math.min(d[n][m], limit + 1);
+    }
+}
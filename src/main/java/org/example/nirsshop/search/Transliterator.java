@@ -0,0 +1,74 @@
+package org.example.nirsshop.search;
+
+import java.util.*;
+
+/**
+ * Латинские варианты написания русских слов, которые вводят покупатели: "куртка" -> "kurtka",
+ * "худи" -> "khudi"/"hudi". Несколько распространённых схем вместо одной строгой,
+ * каждая даёт свой вариант; одинаковые варианты схлопываются.
+ */
+public final class Transliterator {
+
+    private static final String CYRILLIC = "абвгдеёжзийклмнопрстуфхцчшщъыьэюя";
+
+    // Схема паспортов/ГОСТ 2000 - основная
+    private static final String[] GOST = {
+            "a", "b", "v", "g", "d", "e", "e", "zh", "z", "i", "y", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"
+    };
+
+    // "Бытовая" латиница: h вместо kh, c вместо ts, i вместо y
+    private static final String[] INFORMAL = {
+            "a", "b", "v", "g", "d", "e", "yo", "j", "z", "i", "i", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "h", "c", "ch", "sh", "sch", "", "i", "", "e", "iu", "ia"
+    };
+
+    // Запись "по клавишам": x для х, w для ш, q для я
+    private static final String[] KEYBOARD = {
+            "a", "b", "v", "g", "d", "e", "e", "zh", "z", "i", "j", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "x", "c", "ch", "w", "sch", "", "y", "", "e", "ju", "ja"
+    };
+
+    private static final List<String[]> SCHEMES = List.of(GOST, INFORMAL, KEYBOARD);
+
+    private Transliterator() {
+    }
+
+    public static boolean hasCyrillic(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (CYRILLIC.indexOf(Character.toLowerCase(text.charAt(i))) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Латинские варианты текста по всем схемам, без повторов. Символы вне кириллицы сохраняются.
+     */
+    public static Set<String> variants(String text) {
+        Set<String> variants = new LinkedHashSet<>();
+        if (text == null || !hasCyrillic(text)) {
+            return variants;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String[] scheme : SCHEMES) {
+            variants.add(transliterate(lower, scheme));
+        }
+        return variants;
+    }
+
+    private static String transliterate(String text, String[] scheme) {
+        StringBuilder result = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int index = CYRILLIC.indexOf(c);
+            if (index >= 0) {
+                result.append(scheme[index]);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.nirsshop.service;
+
+import org.example.nirsshop.model.dto.ProductFacetsDto;
+
+import java.util.List;
+
+public interface ProductFacetService {
+    ProductFacetsDto getFacets(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating);
+}
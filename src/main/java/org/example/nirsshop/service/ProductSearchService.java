@@ -0,0 +1,19 @@
+package org.example.nirsshop.service;
+
+import org.example.nirsshop.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Поиск товаров по названию и артикулу. Реализация выбирается по СУБД в ProductSearchConfig:
+ * pg_trgm + tsvector на PostgreSQL, in-process инвертированный индекс на H2.
+ */
+public interface ProductSearchService {
+
+    // Все подходящие id без ранжирования - для фильтра search в списке товаров
+    List<Integer> findMatchingIds(String query);
+
+    // Условие search для Criteria-запроса списка товаров
+    Specification<Product> matching(String query);
+}
@@ -1,16 +1,31 @@
 package org.example.nirsshop.service;
 
+import org.example.nirsshop.export.ExportFormat;
 import org.example.nirsshop.model.createdto.ProductCreateDto;
 import org.example.nirsshop.model.dto.*;
+import org.example.nirsshop.pagination.ProductSort;
+import org.example.nirsshop.projection.ProductField;
 import org.example.nirsshop.repository.PopularProductProjection;
+import org.example.nirsshop.trending.TrendingWindow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface ProductService extends CrudService<ProductDto, ProductCreateDto, Integer> {
+    // Карточка из кэша вместе с версией, по которой она собрана
+    VersionedProductDto findVersionedById(Integer id);
+
+    // Карточки товаров по списку id за фиксированное число запросов
+    ProductBatchDto findAllByIds(List<Integer> ids);
+
     Page<ProductDto> findByFilters(
             Integer categoryId,
             Integer minPrice,
@@ -23,19 +38,81 @@ public interface ProductService extends CrudService<ProductDto, ProductCreateDto
             Double rating,
             Pageable pageable);
 
+    // Только запрошенные поля товара, без загрузки сущностей
+    Page<Map<String, Object>> findProjectedByFilters(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating,
+            Set<ProductField> fields,
+            Pageable pageable);
+
+    SliceDto<ProductDto> findSliceByFilters(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating,
+            Pageable pageable);
+
+    CursorPageDto<ProductDto> findByFiltersAfter(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating,
+            ProductSort sort,
+            String after,
+            int pageSize);
+
     List<StoreDto> getStoresWithProduct(Integer productId);
 
     List<PopularProductDto> getTopSellingProducts(int limit);
     List<String> getAvailableSizes(Integer productId);
     Integer getTotalQuantity(Integer productId);
     Integer getQuantityInStore(Integer productId, Integer storeId);
-    List<ProductDto> searchByName(String query);
+    List<ProductDto> fuzzySearchByName(String query);
+    ProductSearchPageDto searchPage(String query, int page, int pageSize);
+    List<ProductSuggestionDto> suggest(String prefix, int limit);
+    ProductCacheStatsDto getCacheStats();
+
+    // Потоковая выгрузка всего каталога в output
+    void exportCatalog(ExportFormat format, OutputStream output) throws IOException;
+
+    // Массовый импорт с обновлением по артикулу
+    ProductImportResultDto importCatalog(ExportFormat format, InputStream input) throws IOException;
+
+    // Версия товара для ETag, без загрузки сущности
+    Long getVersion(Integer productId);
+    // Счётчик изменений каталога для ETag списков
+    long getCatalogVersion();
+    // Версия каталога, которую уже отражают индексы в памяти; null, пока они догоняют закоммиченные записи
+    Long getIndexedCatalogVersion();
     boolean isProductInStock(Integer productId, Integer storeId);
     List<TopIncomeProductDto> getTopIncomeProducts(int limit);
 
     List<TopCleanIncomeProductDto> getTopCleanIncomeProducts(int limit);
 
+    // Самые продаваемые за последний час, день или неделю, по скетчам в памяти
+    List<TrendingProductDto> getTrendingProducts(TrendingWindow window, int limit);
+
     List<ProductStatsDto> getProductStats(int limit, String orderBy);
+
+    // Насколько product_stats отстаёт от заказов
+    ProductStatsFreshnessDto getStatsFreshness();
 }
 
 
@@ -0,0 +1,27 @@
+package org.example.nirsshop.service;
+
+import org.example.nirsshop.model.dto.*;
+import org.example.nirsshop.rollup.SalesPeriod;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Аналитика продаж только по агрегатам sales_daily и sales_hourly
+public interface SalesAnalyticsService {
+
+    // Ряд по дням, неделям или месяцам даты заказа, границы включительно
+    List<SalesDayDto> getSales(LocalDate from, LocalDate to, SalesPeriod period, Integer productId, Integer categoryId);
+
+    // Ряд по часам записи в заказы, [from, to)
+    List<SalesHourDto> getHourlySales(LocalDateTime from, LocalDateTime to, Integer productId, Integer categoryId);
+
+    List<SalesCategoryDto> getSalesByCategory(LocalDate from, LocalDate to);
+
+    // Товары по убыванию выручки за период
+    List<SalesProductDto> getTopProducts(LocalDate from, LocalDate to, Integer categoryId, int limit);
+
+    RollupBackfillStatusDto startBackfill();
+
+    RollupBackfillStatusDto getBackfillStatus();
+}
@@ -1,6 +1,8 @@
 package org.example.nirsshop.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.event.CategoryDeletedEvent;
+import org.example.nirsshop.event.CategoryRenamedEvent;
 import org.example.nirsshop.exception.NotFoundException;
 import org.example.nirsshop.mapper.CategoryMapper;
 import org.example.nirsshop.model.Category;
@@ -8,10 +10,12 @@ import org.example.nirsshop.model.createdto.CategoryCreateDto;
 import org.example.nirsshop.model.dto.CategoryDto;
 import org.example.nirsshop.repository.CategoryRepository;
 import org.example.nirsshop.service.CategoryService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @Transactional
@@ -20,6 +24,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<CategoryDto> findAll() {
@@ -55,6 +60,7 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Category not found: " + id));
 
+        boolean renamed = !Objects.equals(category.getName(), createDto.name());
         category.setName(createDto.name());
 
         if (createDto.parentId() != null) {
@@ -66,6 +72,9 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         Category saved = categoryRepository.save(category);
+        if (renamed) {
+            eventPublisher.publishEvent(new CategoryRenamedEvent(id));
+        }
         return categoryMapper.toDto(saved);
     }
 
@@ -74,6 +83,8 @@ public class CategoryServiceImpl implements CategoryService {
         if (!categoryRepository.existsById(id)) {
             throw new NotFoundException("Category not found: " + id);
         }
+        // Событие до удаления: синхронные слушатели ещё видят товары категории
+        eventPublisher.publishEvent(new CategoryDeletedEvent(id));
         categoryRepository.deleteById(id);
     }
 }
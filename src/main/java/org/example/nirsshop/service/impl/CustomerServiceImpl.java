@@ -8,6 +8,7 @@ import org.example.nirsshop.model.createdto.CustomerCreateDto;
 import org.example.nirsshop.model.dto.CustomerDto;
 import org.example.nirsshop.repository.CustomerRepository;
 import org.example.nirsshop.service.CustomerService;
+import org.example.nirsshop.service.OrderService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +22,7 @@ public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final OrderService orderService;
 
     @Override
     public List<CustomerDto> findAll() {
@@ -62,6 +64,8 @@ public class CustomerServiceImpl implements CustomerService {
         if (!customerRepository.existsById(id)) {
             throw new NotFoundException("Customer not found: " + id);
         }
+        // Заказы удаляем через OrderService, а не каскадом БД: агрегаты и счётчики продаж вычитают их позиции
+        orderService.findByCustomerId(id).forEach(order -> orderService.delete(order.id()));
         customerRepository.deleteById(id);
     }
 
@@ -0,0 +1,161 @@
+package org.example.nirsshop.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.ProductSearchProjection;
+import org.example.nirsshop.service.ProductSearchService;
+import org.example.nirsshop.specification.ProductSpecification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поиск для H2: триграммный инвертированный индекс по названию и артикулу в памяти.
+ * Кандидаты - пересечение списков товаров для всех триграмм запроса, затем проверка вхождения подстроки.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class InMemoryProductSearchService implements ProductSearchService {
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Map<String, BitSet> postings = new HashMap<>();
+
+    private record Document(String name, String article) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ProductSearchProjection> entries = productRepository.findAllSearchEntries();
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            entries.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("In-memory product search index built: {} products", entries.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Optional<ProductSearchProjection> entry = productRepository.findSearchEntryById(event.productId());
+        lock.writeLock().lock();
+        try {
+            remove(event.productId());
+            entry.ifPresent(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        rebuild();
+    }
+
+    @Override
+    public List<Integer> findMatchingIds(String query) {
+        String q = normalize(query);
+        lock.readLock().lock();
+        try {
+            return matches(q);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // На H2 нет product_search_match: индекс живёт в памяти, поэтому условие - список найденных id
+    @Override
+    public Specification<Product> matching(String query) {
+        return ProductSpecification.productIdIn(findMatchingIds(query));
+    }
+
+    private List<Integer> matches(String q) {
+        List<Integer> result = new ArrayList<>();
+        BitSet candidates = candidates(q);
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            Document document = documents.get(id);
+            if (document.name().contains(q) || document.article().contains(q)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private BitSet candidates(String q) {
+        if (q.length() < 3) {
+            // Короче триграммы - проверяем все документы
+            BitSet all = new BitSet();
+            documents.keySet().forEach(all::set);
+            return all;
+        }
+        BitSet result = null;
+        for (String trigram : trigrams(q)) {
+            BitSet bits = postings.get(trigram);
+            if (bits == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) bits.clone();
+            } else {
+                result.and(bits);
+            }
+        }
+        return result;
+    }
+
+    private void put(ProductSearchProjection entry) {
+        Document document = new Document(normalize(entry.getName()), normalize(entry.getArticle()));
+        documents.put(entry.getProductId(), document);
+        for (String trigram : documentTrigrams(document)) {
+            postings.computeIfAbsent(trigram, t -> new BitSet()).set(entry.getProductId());
+        }
+    }
+
+    private void remove(int productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String trigram : documentTrigrams(document)) {
+            BitSet bits = postings.get(trigram);
+            if (bits != null) {
+                bits.clear(productId);
+                if (bits.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> documentTrigrams(Document document) {
+        Set<String> trigrams = trigrams(document.name());
+        trigrams.addAll(trigrams(document.article()));
+        return trigrams;
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            trigrams.add(value.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,18 +1,25 @@
 package org.example.nirsshop.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.event.OrderChangedEvent;
+import org.example.nirsshop.event.ProductSalesChangedEvent;
 import org.example.nirsshop.exception.NotFoundException;
 import org.example.nirsshop.mapper.OrderMapper;
 import org.example.nirsshop.model.Customer;
 import org.example.nirsshop.model.Order;
+import org.example.nirsshop.model.ProductOrder;
 import org.example.nirsshop.model.createdto.OrderCreateDto;
 import org.example.nirsshop.model.dto.OrderDto;
 import org.example.nirsshop.repository.CustomerRepository;
 import org.example.nirsshop.repository.OrderRepository;
+import org.example.nirsshop.repository.ProductOrderRepository;
+import org.example.nirsshop.rollup.SalesRollups;
 import org.example.nirsshop.service.OrderService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,7 +30,10 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
+    private final ProductOrderRepository productOrderRepository;
     private final OrderMapper orderMapper;
+    private final SalesRollups salesRollups;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<OrderDto> findAll() {
@@ -49,6 +59,7 @@ public class OrderServiceImpl implements OrderService {
         order.setCustomer(customer);
 
         Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(saved.getOrderId()));
         return orderMapper.toDto(saved);
     }
 
@@ -57,6 +68,7 @@ public class OrderServiceImpl implements OrderService {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Order not found: " + id));
 
+        LocalDate previousDate = order.getOrderDate();
         order.setOrderDate(createDto.orderDate());
         order.setOrderStatus(createDto.orderStatus());
         order.setIsPaid(createDto.isPaid());
@@ -69,15 +81,25 @@ public class OrderServiceImpl implements OrderService {
         order.setCustomer(customer);
 
         Order saved = orderRepository.save(order);
+        if (saved.getOrderDate() != null && !saved.getOrderDate().equals(previousDate)) {
+            salesRollups.recordOrderMoved(previousDate, saved.getOrderDate(), productOrderRepository.findByOrderId(id));
+        }
+        eventPublisher.publishEvent(new OrderChangedEvent(saved.getOrderId()));
         return orderMapper.toDto(saved);
     }
 
     @Override
     public void delete(Integer id) {
-        if (!orderRepository.existsById(id)) {
-            throw new NotFoundException("Order not found: " + id);
-        }
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Order not found: " + id));
+        // Позиции удаляются каскадно в БД - агрегатам и счётчикам продаж сообщаем о них до удаления
+        List<ProductOrder> lines = productOrderRepository.findByOrderId(id);
+        salesRollups.recordOrderDeleted(order.getOrderDate(), lines);
         orderRepository.deleteById(id);
+        lines.forEach(line -> eventPublisher.publishEvent(
+                new ProductSalesChangedEvent(line.getProduct().getProductId(), -line.getQuantity(),
+                        line.revenueOf(-line.getQuantity()))));
+        eventPublisher.publishEvent(new OrderChangedEvent(id));
     }
 
     @Override
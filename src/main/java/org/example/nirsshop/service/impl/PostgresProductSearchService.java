@@ -0,0 +1,26 @@
+package org.example.nirsshop.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.service.ProductSearchService;
+import org.example.nirsshop.specification.ProductSpecification;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PostgresProductSearchService implements ProductSearchService {
+
+    private final ProductRepository productRepository;
+
+    @Override
+    public List<Integer> findMatchingIds(String query) {
+        return productRepository.findMatchingIds(query.trim());
+    }
+
+    @Override
+    public Specification<Product> matching(String query) {
+        return ProductSpecification.matchesSearch(query);
+    }
+}
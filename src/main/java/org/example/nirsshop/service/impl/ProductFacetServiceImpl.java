@@ -0,0 +1,140 @@
+package org.example.nirsshop.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.index.CatalogFilter;
+import org.example.nirsshop.index.CatalogIndex;
+import org.example.nirsshop.model.dto.PriceBucketDto;
+import org.example.nirsshop.model.dto.ProductFacetsDto;
+import org.example.nirsshop.repository.ProductFacetRepository;
+import org.example.nirsshop.service.ProductFacetService;
+import org.example.nirsshop.service.ProductSearchService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+    // Границы ценовых корзин: [0, 1000), [1000, 3000), [3000, 5000), [5000, 10000), [10000, ...)
+    private static final int[] PRICE_BOUNDS = {1000, 3000, 5000, 10000};
+
+    private final CatalogIndex catalogIndex;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetRepository productFacetRepository;
+
+    @Value("${catalog.facets.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${catalog.facets.cache-size:1000}")
+    private int cacheSize;
+
+    private final Map<FacetKey, CachedFacets> cache = new ConcurrentHashMap<>();
+
+    private record FacetKey(CatalogFilter filter, String search) {}
+
+    private record CachedFacets(ProductFacetsDto facets, long expiresAt) {}
+
+    @Override
+    public ProductFacetsDto getFacets(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating) {
+
+        FacetKey key = normalize(categoryId, minPrice, maxPrice, gender, sizeValues, search, inStock, storeId, rating);
+        long now = System.currentTimeMillis();
+
+        CachedFacets cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.facets();
+        }
+
+        ProductFacetsDto facets = compute(key);
+
+        if (cache.size() >= cacheSize) {
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (cache.size() >= cacheSize) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedFacets(facets, now + cacheTtlMs));
+        return facets;
+    }
+
+    private ProductFacetsDto compute(FacetKey key) {
+        // Текстовый поиск разрешает ProductSearchService - ограничиваем подсчёт найденными id
+        List<Integer> searchIds = key.search() == null ? null : productSearchService.findMatchingIds(key.search());
+
+        CatalogIndex.Facets facets;
+        if (catalogIndex.isReady()) {
+            BitSet restrictTo = null;
+            if (searchIds != null) {
+                restrictTo = new BitSet();
+                searchIds.forEach(restrictTo::set);
+            }
+            facets = catalogIndex.facets(key.filter(), restrictTo, PRICE_BOUNDS);
+        } else {
+            // Индекс выключен (catalog.index.enabled=false) или ещё строится - один сгруппированный запрос
+            facets = productFacetRepository.count(key.filter(), searchIds, PRICE_BOUNDS);
+        }
+
+        List<PriceBucketDto> priceBuckets = new ArrayList<>();
+        for (int bucket = 0; bucket <= PRICE_BOUNDS.length; bucket++) {
+            priceBuckets.add(new PriceBucketDto(
+                    bucket == 0 ? 0 : PRICE_BOUNDS[bucket - 1],
+                    bucket == PRICE_BOUNDS.length ? null : PRICE_BOUNDS[bucket],
+                    facets.priceBucketCounts()[bucket]));
+        }
+
+        return new ProductFacetsDto(
+                facets.total(),
+                facets.categories(),
+                facets.genders(),
+                facets.sizes(),
+                priceBuckets);
+    }
+
+    // Одинаковые по смыслу наборы фильтров должны давать один ключ кэша
+    private static FacetKey normalize(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating) {
+
+        List<String> sizes = sizeValues == null || sizeValues.isEmpty()
+                ? null
+                : sizeValues.stream().distinct().sorted().toList();
+        boolean onlyInStock = Boolean.TRUE.equals(inStock);
+        String normalizedGender = gender == null || gender.isBlank() ? null : gender;
+        String normalizedSearch = search == null || search.isBlank() ? null : search.trim().toLowerCase();
+
+        CatalogFilter filter = new CatalogFilter(
+                categoryId,
+                minPrice,
+                maxPrice,
+                normalizedGender,
+                sizes,
+                onlyInStock ? true : null,
+                onlyInStock ? storeId : null,
+                rating);
+        return new FacetKey(filter, normalizedSearch);
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.nirsshop.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.event.ProductImagesChangedEvent;
 import org.example.nirsshop.exception.NotFoundException;
 import org.example.nirsshop.mapper.ProductImageMapper;
 import org.example.nirsshop.model.Product;
@@ -10,6 +11,7 @@ import org.example.nirsshop.model.dto.ProductImageDto;
 import org.example.nirsshop.repository.ProductImageRepository;
 import org.example.nirsshop.repository.ProductRepository;
 import org.example.nirsshop.service.ProductImageService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,7 @@ public class ProductImageServiceImpl implements ProductImageService {
     private final ProductImageRepository productImageRepository;
     private final ProductRepository productRepository;
     private final ProductImageMapper productImageMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<ProductImageDto> findAll() {
@@ -61,6 +64,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         }
 
         ProductImage saved = productImageRepository.save(image);
+        eventPublisher.publishEvent(new ProductImagesChangedEvent(saved.getProduct().getProductId()));
         return productImageMapper.toDto(saved);
     }
     
@@ -83,6 +87,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         }
 
         ProductImage saved = productImageRepository.save(image);
+        eventPublisher.publishEvent(new ProductImagesChangedEvent(saved.getProduct().getProductId()));
         return productImageMapper.toDto(saved);
     }
 
@@ -105,6 +110,7 @@ public class ProductImageServiceImpl implements ProductImageService {
                 productImageRepository.save(newPrimary);
             }
         }
+        eventPublisher.publishEvent(new ProductImagesChangedEvent(productId));
     }
 
     @Override
@@ -132,6 +138,7 @@ public class ProductImageServiceImpl implements ProductImageService {
 
         image.setIsPrimary(true);
         ProductImage saved = productImageRepository.save(image);
+        eventPublisher.publishEvent(new ProductImagesChangedEvent(productId));
 
         return productImageMapper.toDto(saved);
     }
@@ -150,5 +157,6 @@ public class ProductImageServiceImpl implements ProductImageService {
             image.setDisplayOrder(i);
             productImageRepository.save(image);
         }
+        eventPublisher.publishEvent(new ProductImagesChangedEvent(productId));
     }
 }
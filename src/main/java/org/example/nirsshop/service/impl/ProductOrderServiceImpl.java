@@ -1,6 +1,7 @@
 package org.example.nirsshop.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.event.ProductSalesChangedEvent;
 import org.example.nirsshop.exception.NotFoundException;
 import org.example.nirsshop.mapper.OrderItemMapper;
 import org.example.nirsshop.model.Order;
@@ -12,7 +13,9 @@ import org.example.nirsshop.model.dto.OrderItemDto;
 import org.example.nirsshop.repository.OrderRepository;
 import org.example.nirsshop.repository.ProductOrderRepository;
 import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.rollup.SalesRollups;
 import org.example.nirsshop.service.ProductOrderService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +30,8 @@ public class ProductOrderServiceImpl implements ProductOrderService {
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final OrderItemMapper orderItemMapper;
+    private final SalesRollups salesRollups;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<OrderItemDto> findAll() {
@@ -54,8 +59,12 @@ public class ProductOrderServiceImpl implements ProductOrderService {
         ProductOrder productOrder = orderItemMapper.fromCreateDto(createDto);
         productOrder.setProduct(product);
         productOrder.setOrder(order);
+        productOrder.setUnitPrice(product.getPrice());
 
         ProductOrder saved = productOrderRepository.save(productOrder);
+        salesRollups.recordLine(order.getOrderDate(), saved, saved.getQuantity());
+        eventPublisher.publishEvent(new ProductSalesChangedEvent(
+                product.getProductId(), saved.getQuantity(), saved.revenueOf(saved.getQuantity())));
         return orderItemMapper.toDto(saved);
     }
 
@@ -64,18 +73,25 @@ public class ProductOrderServiceImpl implements ProductOrderService {
         ProductOrder productOrder = productOrderRepository.findByProductIdAndOrderId(productId, orderId)
                 .orElseThrow(() -> new NotFoundException("Product order not found: productId=" + productId + ", orderId=" + orderId));
 
+        int previousQuantity = productOrder.getQuantity();
         productOrder.setQuantity(createDto.quantity());
 
         ProductOrder saved = productOrderRepository.save(productOrder);
+        int quantityDelta = saved.getQuantity() - previousQuantity;
+        salesRollups.recordLine(saved.getOrder().getOrderDate(), saved, quantityDelta);
+        eventPublisher.publishEvent(new ProductSalesChangedEvent(
+                saved.getProduct().getProductId(), quantityDelta, saved.revenueOf(quantityDelta)));
         return orderItemMapper.toDto(saved);
     }
 
     @Override
     public void delete(Integer productId, Integer orderId) {
-        if (!productOrderRepository.existsByProductIdAndOrderId(productId, orderId)) {
-            throw new NotFoundException("Product order not found: productId=" + productId + ", orderId=" + orderId);
-        }
+        ProductOrder productOrder = productOrderRepository.findByProductIdAndOrderId(productId, orderId)
+                .orElseThrow(() -> new NotFoundException("Product order not found: productId=" + productId + ", orderId=" + orderId));
         productOrderRepository.deleteByProductIdAndOrderId(productId, orderId);
+        int quantity = productOrder.getQuantity();
+        salesRollups.recordLine(productOrder.getOrder().getOrderDate(), productOrder, -quantity);
+        eventPublisher.publishEvent(new ProductSalesChangedEvent(productId, -quantity, productOrder.revenueOf(-quantity)));
     }
 
     @Override
@@ -1,7 +1,15 @@
 package org.example.nirsshop.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.cache.ProductDetailCache;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.export.ExportFormat;
+import org.example.nirsshop.export.ProductExporter;
+import org.example.nirsshop.importer.ProductImporter;
 import org.example.nirsshop.exception.NotFoundException;
+import org.example.nirsshop.index.CatalogFilter;
+import org.example.nirsshop.index.CatalogIndex;
 import org.example.nirsshop.mapper.ProductMapper;
 import org.example.nirsshop.mapper.StoreMapper;
 import org.example.nirsshop.model.Category;
@@ -9,16 +17,44 @@ import org.example.nirsshop.model.Product;
 import org.example.nirsshop.model.ProductStoreSize;
 import org.example.nirsshop.model.createdto.ProductCreateDto;
 import org.example.nirsshop.model.dto.*;
+import org.example.nirsshop.pagination.ProductCursor;
+import org.example.nirsshop.pagination.ProductSort;
+import org.example.nirsshop.projection.ProductField;
 import org.example.nirsshop.repository.*;
+import org.example.nirsshop.search.FuzzyProductSearch;
+import org.example.nirsshop.search.ProductSearchEngine;
+import org.example.nirsshop.search.ProductSuggester;
+import org.example.nirsshop.service.ProductSearchService;
 import org.example.nirsshop.service.ProductService;
 import org.example.nirsshop.specification.ProductSpecification;
+import org.example.nirsshop.stats.ProductStatsRefresher;
+import org.example.nirsshop.stats.SalesAggregator;
+import org.example.nirsshop.trending.SlidingTopK;
+import org.example.nirsshop.trending.TrendingProducts;
+import org.example.nirsshop.trending.TrendingWindow;
+import org.example.nirsshop.versioning.CatalogWriteTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -31,20 +67,45 @@ public class ProductServiceImpl implements ProductService {
     private final ProductStoreRepository productStoreRepository;
     private final StoreMapper storeMapper;
     private final ProductStoreSizeRepository productStoreSizeRepository;
+    private final CatalogIndex catalogIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchService productSearchService;
+    private final ProductSearchEngine productSearchEngine;
+    private final ProductSuggester productSuggester;
+    private final FuzzyProductSearch fuzzyProductSearch;
+    private final ProductDetailCache productDetailCache;
+    private final ProductExporter productExporter;
+    private final ProductImporter productImporter;
+    private final ProductStatsRefresher productStatsRefresher;
+    private final SalesAggregator salesAggregator;
+    private final TrendingProducts trendingProducts;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final CatalogWriteTracker catalogWriteTracker;
+
+    @Value("${catalog.search.max-results:100}")
+    private int searchMaxResults;
+
+    @Value("${catalog.batch.max-ids:100}")
+    private int batchMaxIds;
 
     @Override
     public List<ProductDto> findAll() {
-        return productRepository.findAll()
-                .stream()
-                .map(productMapper::toDto)
-                .toList();
+        return productMapper.toDtos(productRepository.findAll());
     }
 
     @Override
     public ProductDto findById(Integer id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Product not found: " + id));
-        return productMapper.toDto(product);
+        return findVersionedById(id).product();
+    }
+
+    @Override
+    public VersionedProductDto findVersionedById(Integer id) {
+        // Версия берётся из той же строки, что и карточка, и хранится в кэше вместе с ней
+        return productDetailCache.get(id, () -> {
+            Product product = productRepository.findDetailByProductId(id)
+                    .orElseThrow(() -> new NotFoundException("Product not found: " + id));
+            return new VersionedProductDto(productMapper.toDto(product), product.getVersion());
+        });
     }
 
     @Override
@@ -58,12 +119,13 @@ public class ProductServiceImpl implements ProductService {
         }
 
         Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getProductId()));
         return productMapper.toDto(saved);
     }
 
     @Override
     public ProductDto update(Integer id, ProductCreateDto createDto) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findAdminByProductId(id)
                 .orElseThrow(() -> new NotFoundException("Product not found: " + id));
 
         product.setName(createDto.name());
@@ -83,6 +145,7 @@ public class ProductServiceImpl implements ProductService {
         }
 
         Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getProductId()));
         return productMapper.toDto(saved);
     }
 
@@ -92,6 +155,31 @@ public class ProductServiceImpl implements ProductService {
             throw new NotFoundException("Product not found: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+    }
+
+    @Override
+    public ProductBatchDto findAllByIds(List<Integer> ids) {
+        List<Integer> productIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (productIds.size() > batchMaxIds) {
+            throw new BadRequestException("Too many product ids: " + productIds.size() + ", max " + batchMaxIds);
+        }
+        if (productIds.isEmpty()) {
+            return new ProductBatchDto(List.of(), List.of());
+        }
+
+        // Товары, затем картинки и остатки всей пачки - три запроса при любом числе id
+        List<Product> products = findAllInOrder(productIds);
+        Set<Integer> found = products.stream()
+                .map(Product::getProductId)
+                .collect(Collectors.toSet());
+        List<Integer> missingIds = productIds.stream()
+                .filter(productId -> !found.contains(productId))
+                .toList();
+        return new ProductBatchDto(productMapper.toDtos(products), missingIds);
     }
 
     @Override
@@ -107,25 +195,153 @@ public class ProductServiceImpl implements ProductService {
             Double rating,
             Pageable pageable) {
 
+        ProductSort sort = ProductSort.fromSort(pageable.getSort());
+        if (catalogIndex.isReady() && sort != null && catalogIndex.supports(sort)) {
+            // Набор productId считается по битсетам индекса, из БД читается только сама страница
+            BitSet searchResults = null;
+            if (search != null && !search.isBlank()) {
+                searchResults = new BitSet();
+                productSearchService.findMatchingIds(search).forEach(searchResults::set);
+            }
+            CatalogIndex.Result result = catalogIndex.find(
+                    new CatalogFilter(categoryId, minPrice, maxPrice, gender, sizeValues, inStock, storeId, rating),
+                    searchResults, sort, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(productMapper.toDtos(findAllInOrder(result.productIds())), pageable, result.total());
+        }
+
+        Specification<Product> spec = buildFilterSpecification(
+                categoryId, minPrice, maxPrice, gender, sizeValues, search, inStock, storeId, rating);
+
+        Page<Product> products = productRepository.findAll(spec, pageable);
+        return new PageImpl<>(productMapper.toDtos(products.getContent()), pageable, products.getTotalElements());
+    }
+
+    @Override
+    public Page<Map<String, Object>> findProjectedByFilters(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating,
+            Set<ProductField> fields,
+            Pageable pageable) {
+
+        Specification<Product> spec = buildFilterSpecification(
+                categoryId, minPrice, maxPrice, gender, sizeValues, search, inStock, storeId, rating);
+
+        return productRepository.findProjected(spec, fields, pageable);
+    }
+
+    @Override
+    public SliceDto<ProductDto> findSliceByFilters(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating,
+            Pageable pageable) {
+
+        Specification<Product> spec = buildFilterSpecification(
+                categoryId, minPrice, maxPrice, gender, sizeValues, search, inStock, storeId, rating);
+
+        // Slice выбирает pageSize + 1 строк и не делает COUNT
+        Slice<Product> products = productRepository.findBy(spec, q -> q.slice(pageable));
+        return new SliceDto<>(
+                productMapper.toDtos(products.getContent()),
+                products.getNumber(),
+                products.getSize(),
+                products.hasNext());
+    }
+
+    @Override
+    public CursorPageDto<ProductDto> findByFiltersAfter(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating,
+            ProductSort sort,
+            String after,
+            int pageSize) {
+
+        if (pageSize < 1) {
+            throw new BadRequestException("Page size must be positive: " + pageSize);
+        }
+
+        Specification<Product> spec = buildFilterSpecification(
+                categoryId, minPrice, maxPrice, gender, sizeValues, search, inStock, storeId, rating);
+
+        if (after != null && !after.isBlank()) {
+            ProductCursor cursor = ProductCursor.decode(after);
+            if (!sort.getKey().equals(cursor.sortKey())) {
+                throw new BadRequestException("Cursor does not match sort: " + cursor.sortKey());
+            }
+            spec = spec.and(ProductSpecification.keysetAfter(sort, cursor));
+        }
+
+        // Берём на одну запись больше, чтобы узнать о следующей странице без COUNT и OFFSET
+        List<Product> products = productRepository.findBy(spec, q -> q
+                .sortBy(sort.toSort())
+                .limit(pageSize + 1)
+                .all());
+
+        boolean hasNext = products.size() > pageSize;
+        List<Product> content = hasNext ? products.subList(0, pageSize) : products;
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = content.getLast();
+            nextCursor = new ProductCursor(sort.getKey(), last.getProductId(), sort.valueOf(last)).encode();
+        }
+
+        return new CursorPageDto<>(productMapper.toDtos(content), content.size(), hasNext, nextCursor);
+    }
+
+    // Товары по списку id в порядке этого списка; отсутствующие в БД пропускаются
+    private List<Product> findAllInOrder(List<Integer> productIds) {
+        Map<Integer, Product> byId = productRepository.findAllById(productIds)
+                .stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        return productIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Specification<Product> buildFilterSpecification(
+            Integer categoryId,
+            Integer minPrice,
+            Integer maxPrice,
+            String gender,
+            List<String> sizeValues,
+            String search,
+            Boolean inStock,
+            Integer storeId,
+            Double rating) {
+
         Specification<Product> spec = (root, query, cb) -> null;
 
         spec = spec.and(ProductSpecification.hasCategory(categoryId));
         spec = spec.and(ProductSpecification.priceBetween(minPrice, maxPrice));
         spec = spec.and(ProductSpecification.hasGender(gender));
-        spec = spec.and(ProductSpecification.hasAnySizeValue(sizeValues));
         spec = spec.and(ProductSpecification.ratingHigherThan(rating));
-        spec = spec.and(ProductSpecification.nameOrArticleContains(search));
-
-        if (Boolean.TRUE.equals(inStock)) {
-            if (storeId != null) {
-                spec = spec.and(ProductSpecification.availableInStore(storeId));
-            } else {
-                spec = spec.and(ProductSpecification.availableInAnyStore());
-            }
+        if (search != null && !search.isBlank()) {
+            spec = spec.and(productSearchService.matching(search));
         }
+        spec = spec.and(ProductSpecification.hasMatchingStock(sizeValues, inStock, storeId));
 
-        return productRepository.findAll(spec, pageable)
-                .map(productMapper::toDto);
+        return spec;
     }
 
     @Override
@@ -145,6 +361,11 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<PopularProductDto> getTopSellingProducts(int limit) {
+        // Счётчики в памяти; пока первая сверка не прошла - из представления
+        Optional<List<PopularProductDto>> counted = salesAggregator.topSelling(limit);
+        if (counted.isPresent()) {
+            return counted.get();
+        }
         List<PopularProductProjection> projections = productRepository.findTopSellingProducts(limit);
         return projections.stream()
                 .map(p -> new PopularProductDto(
@@ -188,6 +409,10 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<TopIncomeProductDto> getTopIncomeProducts(int limit) {
+        Optional<List<TopIncomeProductDto>> counted = salesAggregator.topIncome(limit);
+        if (counted.isPresent()) {
+            return counted.get();
+        }
         List<TopIncomeProductProjection> projections = productRepository.findTopIncomeProducts(limit);
         return projections.stream()
                 .map(p -> new TopIncomeProductDto(
@@ -202,6 +427,7 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<TopCleanIncomeProductDto> getTopCleanIncomeProducts(int limit) {
+        // Формула чистого дохода есть только в product_stats, счётчиков в памяти для него нет
         List<TopCleanIncomeProductProjection> projections = productRepository.findTopCleanIncomeProducts(limit);
         return projections.stream()
                 .map(p -> new TopCleanIncomeProductDto(
@@ -213,6 +439,33 @@ public class ProductServiceImpl implements ProductService {
                 .toList();
     }
 
+    @Override
+    public List<TrendingProductDto> getTrendingProducts(TrendingWindow window, int limit) {
+        List<SlidingTopK.Entry> entries = trendingProducts.top(window, limit);
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        // Продажи из скетчей, карточки - одним запросом по первичному ключу; удалённые товары пропускаются
+        List<Integer> productIds = entries.stream().map(SlidingTopK.Entry::item).toList();
+        Map<Integer, Product> products = productRepository.findAllById(productIds)
+                .stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        return entries.stream()
+                .filter(entry -> products.containsKey(entry.item()))
+                .map(entry -> {
+                    Product product = products.get(entry.item());
+                    return new TrendingProductDto(
+                            product.getProductId(),
+                            product.getName(),
+                            product.getArticle(),
+                            product.getPrice(),
+                            product.getRating(),
+                            entry.count()
+                    );
+                })
+                .toList();
+    }
+
     @Override
     public List<ProductStatsDto> getProductStats(int limit, String orderBy) {
         List<ProductStatsProjection> projections = productRepository.getProductStats(limit, orderBy);
@@ -230,12 +483,72 @@ public class ProductServiceImpl implements ProductService {
 
 
     @Override
-    public List<ProductDto> searchByName(String query) {
-        // Поиск по частичному совпадению (регистронезависимый)
-        return productRepository.findByNameContainingIgnoreCase(query)
-                .stream()
-                .map(productMapper::toDto)
+    public ProductStatsFreshnessDto getStatsFreshness() {
+        return productStatsRefresher.freshness();
+    }
+
+    @Override
+    public List<ProductDto> fuzzySearchByName(String query) {
+        // Поиск с опечатками по словарю в памяти, к таблице product обращаемся только за найденными товарами
+        List<Integer> productIds = fuzzyProductSearch.search(query, searchMaxResults);
+        return productMapper.toDtos(findAllInOrder(productIds));
+    }
+
+    @Override
+    public ProductSearchPageDto searchPage(String query, int page, int pageSize) {
+        ProductSearchEngine.Result result = productSearchEngine.search(query, page, pageSize);
+        List<Integer> productIds = result.hits().stream().map(ProductSearchEngine.Hit::productId).toList();
+        Map<Integer, ProductDto> products = productMapper.toDtos(findAllInOrder(productIds)).stream()
+                .collect(Collectors.toMap(ProductDto::id, Function.identity()));
+
+        // Документ мог пережить товар до обработки события удаления - такие попадания пропускаем
+        List<ProductSearchHitDto> content = result.hits().stream()
+                .filter(hit -> products.containsKey(hit.productId()))
+                .map(hit -> new ProductSearchHitDto(products.get(hit.productId()), hit.score(), hit.highlights()))
                 .toList();
+        return new ProductSearchPageDto(content, result.totalHits(), page, pageSize);
+    }
+
+    @Override
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        return productSuggester.suggest(prefix, limit);
+    }
+
+    @Override
+    public ProductCacheStatsDto getCacheStats() {
+        return productDetailCache.stats();
+    }
+
+    // Выгрузка сама открывает StatelessSession со своей транзакцией, общая здесь не нужна
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportCatalog(ExportFormat format, OutputStream output) throws IOException {
+        productExporter.export(format, output);
+    }
+
+    // Импортёр коммитит каждую пачку отдельно
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProductImportResultDto importCatalog(ExportFormat format, InputStream input) throws IOException {
+        return productImporter.importProducts(format, input);
+    }
+
+    @Override
+    public Long getVersion(Integer productId) {
+        return productRepository.findVersionById(productId)
+                .orElseThrow(() -> new NotFoundException("Product not found: " + productId));
+    }
+
+    @Override
+    public long getCatalogVersion() {
+        return catalogVersionRepository.current();
+    }
+
+    @Override
+    public Long getIndexedCatalogVersion() {
+        // Сначала версия, потом отметка: если версия уже видна, а её слушатели не отработали, отметка ещё стоит
+        long version = catalogVersionRepository.current();
+        return catalogWriteTracker.hasPending() ? null : version;
     }
 
 }
@@ -1,6 +1,7 @@
 package org.example.nirsshop.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.event.ProductStockChangedEvent;
 import org.example.nirsshop.exception.NotFoundException;
 import org.example.nirsshop.mapper.ProductStoreSizeMapper;
 import org.example.nirsshop.model.Product;
@@ -12,6 +13,7 @@ import org.example.nirsshop.repository.ProductRepository;
 import org.example.nirsshop.repository.ProductStoreSizeRepository;
 import org.example.nirsshop.repository.StoreRepository;
 import org.example.nirsshop.service.ProductStoreSizeService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class ProductStoreSizeServiceImpl implements ProductStoreSizeService {
     private final ProductRepository productRepository;
     private final StoreRepository storeRepository;
     private final ProductStoreSizeMapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ProductStoreSizeDto findById(Integer id) {
@@ -54,6 +57,7 @@ public class ProductStoreSizeServiceImpl implements ProductStoreSizeService {
         entity.setStore(store);
 
         ProductStoreSize saved = productStoreSizeRepository.save(entity);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(saved.getProduct().getProductId()));
 
         return mapper.toDto(saved);
     }
@@ -67,10 +71,12 @@ public class ProductStoreSizeServiceImpl implements ProductStoreSizeService {
         entity.setSizeValue(createDto.sizeValue());
         entity.setQuantity(createDto.quantity());
 
-        if (!entity.getProduct().getProductId().equals(createDto.productId())) {
+        Integer previousProductId = entity.getProduct().getProductId();
+        if (!previousProductId.equals(createDto.productId())) {
             Product product = productRepository.findById(createDto.productId())
                     .orElseThrow(() -> new NotFoundException("Product not found: " + createDto.productId()));
             entity.setProduct(product);
+            eventPublisher.publishEvent(new ProductStockChangedEvent(previousProductId));
         }
 
         if (!entity.getStore().getStoreId().equals(createDto.storeId())) {
@@ -80,16 +86,18 @@ public class ProductStoreSizeServiceImpl implements ProductStoreSizeService {
         }
 
         ProductStoreSize saved = productStoreSizeRepository.save(entity);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(saved.getProduct().getProductId()));
         return mapper.toDto(saved);
     }
 
     @Override
     @Transactional
     public void delete(Integer id) {
-        if (!productStoreSizeRepository.existsById(id)) {
-            throw new NotFoundException("Product store size not found: " + id);
-        }
-        productStoreSizeRepository.deleteById(id);
+        ProductStoreSize entity = productStoreSizeRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Product store size not found: " + id));
+        Integer productId = entity.getProduct().getProductId();
+        productStoreSizeRepository.delete(entity);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productId));
     }
 
     @Override
@@ -126,6 +134,7 @@ public class ProductStoreSizeServiceImpl implements ProductStoreSizeService {
 
         entity.setQuantity(quantity);
         ProductStoreSize saved = productStoreSizeRepository.save(entity);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(saved.getProduct().getProductId()));
 
         return mapper.toDto(saved);
     }
@@ -143,6 +152,7 @@ public class ProductStoreSizeServiceImpl implements ProductStoreSizeService {
 
         entity.setQuantity(newQuantity);
         ProductStoreSize saved = productStoreSizeRepository.save(entity);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(saved.getProduct().getProductId()));
 
         return mapper.toDto(saved);
     }
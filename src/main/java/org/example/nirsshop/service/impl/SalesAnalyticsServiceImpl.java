@@ -0,0 +1,82 @@
+package org.example.nirsshop.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.model.dto.*;
+import org.example.nirsshop.repository.SalesRollupRepository;
+import org.example.nirsshop.rollup.SalesPeriod;
+import org.example.nirsshop.rollup.SalesRollupBackfill;
+import org.example.nirsshop.service.SalesAnalyticsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SalesAnalyticsServiceImpl implements SalesAnalyticsService {
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupBackfill salesRollupBackfill;
+
+    @Value("${catalog.rollup.max-hourly-days:31}")
+    private int maxHourlyDays;
+
+    @Value("${catalog.rollup.max-top-products:100}")
+    private int maxTopProducts;
+
+    @Override
+    public List<SalesDayDto> getSales(LocalDate from, LocalDate to, SalesPeriod period,
+                                      Integer productId, Integer categoryId) {
+        checkRange(from, to);
+        return salesRollupRepository.findDaily(from, to, period, productId, categoryId);
+    }
+
+    @Override
+    public List<SalesHourDto> getHourlySales(LocalDateTime from, LocalDateTime to,
+                                             Integer productId, Integer categoryId) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Range start " + from + " is after its end " + to);
+        }
+        if (Duration.between(from, to).toDays() > maxHourlyDays) {
+            throw new BadRequestException("Hourly range is longer than " + maxHourlyDays + " days");
+        }
+        return salesRollupRepository.findHourly(from, to, productId, categoryId);
+    }
+
+    @Override
+    public List<SalesCategoryDto> getSalesByCategory(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return salesRollupRepository.findByCategory(from, to);
+    }
+
+    @Override
+    public List<SalesProductDto> getTopProducts(LocalDate from, LocalDate to, Integer categoryId, int limit) {
+        checkRange(from, to);
+        if (limit < 1 || limit > maxTopProducts) {
+            throw new BadRequestException("Limit must be between 1 and " + maxTopProducts);
+        }
+        return salesRollupRepository.findTopProducts(from, to, categoryId, limit);
+    }
+
+    @Override
+    public RollupBackfillStatusDto startBackfill() {
+        return salesRollupBackfill.start();
+    }
+
+    @Override
+    public RollupBackfillStatusDto getBackfillStatus() {
+        return salesRollupBackfill.status();
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Range start " + from + " is after its end " + to);
+        }
+    }
+}
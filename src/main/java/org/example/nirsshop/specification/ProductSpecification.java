@@ -1,13 +1,22 @@
 package org.example.nirsshop.specification;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.example.nirsshop.model.Product;
 import org.example.nirsshop.model.ProductGlobalStock;
-import org.example.nirsshop.model.ProductStore;
+import org.example.nirsshop.model.ProductSearchVector;
 import org.example.nirsshop.model.ProductStoreSize;
+import org.example.nirsshop.pagination.ProductCursor;
+import org.example.nirsshop.pagination.ProductSort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ProductSpecification {
@@ -32,6 +41,36 @@ public class ProductSpecification {
     }
 
 
+    // Keyset-условие: товары строго после позиции курсора в порядке sort (NULL-значения ключа идут последними)
+    public static Specification<Product> keysetAfter(ProductSort sort, ProductCursor cursor) {
+        return (root, query, cb) -> {
+            boolean ascending = sort.getDirection().isAscending();
+            Path<Integer> productId = root.get("productId");
+            Predicate idAfter = ascending
+                    ? cb.greaterThan(productId, cursor.productId())
+                    : cb.lessThan(productId, cursor.productId());
+
+            return switch (sort) {
+                case ID, NEWEST -> idAfter;
+                case PRICE, PRICE_DESC ->
+                        keyAfter(cb, root.get("price"), cursor.intValue(), ascending, sort.isNullable(), idAfter);
+                case RATING -> keyAfter(cb, root.get("rating"), cursor.doubleValue(), ascending, sort.isNullable(), idAfter);
+                case NAME -> keyAfter(cb, root.get("name"), cursor.stringValue(), ascending, sort.isNullable(), idAfter);
+            };
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate keyAfter(
+            CriteriaBuilder cb, Path<T> key, T value, boolean ascending, boolean nullable, Predicate idAfter) {
+        if (value == null) {
+            return cb.and(cb.isNull(key), idAfter);
+        }
+        Predicate after = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        Predicate tie = cb.and(cb.equal(key, value), idAfter);
+        // Хвост из NULL есть только у nullable-ключа
+        return nullable ? cb.or(after, tie, cb.isNull(key)) : cb.or(after, tie);
+    }
+
     public static Specification<Product> hasGender(String gender) {
         return (root, query, cb) ->
                 gender == null ? null : cb.equal(root.get("gender"), gender);
@@ -42,14 +81,33 @@ public class ProductSpecification {
                 size == null ? null : cb.equal(root.get("size"), size);
     }
 
-    public static Specification<Product> nameOrArticleContains(String search) {
+    // Ограничение результатом ProductSearchService (фильтр search)
+    public static Specification<Product> productIdIn(Collection<Integer> productIds) {
+        return (root, query, cb) -> {
+            if (productIds == null) return null;
+            if (productIds.isEmpty()) return cb.disjunction();
+            return root.get("productId").in(productIds);
+        };
+    }
+
+    /**
+     * Фильтр search для PostgreSQL: функция product_search_match из init.sql внутри коррелированного EXISTS.
+     * Совпадения не выгружаются в приложение и не передаются списком параметров, так что план
+     * строится по GIN-индексам и не упирается в лимит 65535 bind-параметров.
+     */
+    public static Specification<Product> matchesSearch(String search) {
         return (root, query, cb) -> {
             if (search == null || search.isBlank()) return null;
-            String pattern = "%" + search.toLowerCase() + "%";
-            return cb.or(
-                    cb.like(cb.lower(root.get("name")), pattern),
-                    cb.like(cb.lower(root.get("article")), pattern)
+
+            Subquery<Integer> match = query.subquery(Integer.class);
+            Root<ProductSearchVector> psv = match.from(ProductSearchVector.class);
+            match.select(cb.literal(1)).where(
+                    cb.equal(psv.get("productId"), root.get("productId")),
+                    cb.isTrue(cb.function("product_search_match", Boolean.class,
+                            psv.get("searchVector"), psv.get("name"), psv.get("article"),
+                            cb.literal(search.trim())))
             );
+            return cb.exists(match);
         };
     }
 
@@ -61,44 +119,34 @@ public class ProductSpecification {
         };
     }
 
-    // Фильтр по наличию хотя бы в одном магазине
-    public static Specification<Product> availableInAnyStore() {
+    /**
+     * Все условия по остаткам одним коррелированным EXISTS по product_store_size:
+     * размер из списка, количество > 0 и магазин проверяются на одной и той же строке остатка.
+     * В отличие от JOIN строки товара не размножаются, поэтому не нужны DISTINCT и раздутый COUNT.
+     */
+    public static Specification<Product> hasMatchingStock(List<String> sizeValues, Boolean inStock, Integer storeId) {
         return (root, query, cb) -> {
-            Join<Product, ProductStore> productStore = root.join("productStoreSizes", JoinType.INNER);
-            return cb.greaterThan(productStore.get("quantity"), 0);
-        };
-    }
+            boolean bySize = sizeValues != null && !sizeValues.isEmpty();
+            boolean byStock = Boolean.TRUE.equals(inStock);
+            if (!bySize && !byStock) return null;
 
-    // Фильтр по наличию в конкретном магазине
-    public static Specification<Product> availableInStore(Integer storeId) {
-        return (root, query, cb) -> {
-            if (storeId == null) return null;
-            Join<Product, ProductStore> productStore = root.join("productStoreSizes", JoinType.INNER);
-            return cb.and(
-                    cb.equal(productStore.get("store").get("storeId"), storeId),
-                    cb.greaterThan(productStore.get("quantity"), 0)
-            );
-        };
-    }
+            Subquery<Integer> stock = query.subquery(Integer.class);
+            Root<ProductStoreSize> pss = stock.from(ProductStoreSize.class);
 
-    public static Specification<Product> hasAnySizeValue(List<String> sizeValues) {
-        return (root, query, cb) -> {
-            if (sizeValues == null || sizeValues.isEmpty()) {
-                return null;
+            List<Predicate> conditions = new ArrayList<>();
+            conditions.add(cb.equal(pss.get("product").get("productId"), root.get("productId")));
+            if (bySize) {
+                conditions.add(pss.get("sizeValue").in(sizeValues));
+            }
+            if (byStock) {
+                conditions.add(cb.greaterThan(pss.get("quantity"), 0));
+                if (storeId != null) {
+                    conditions.add(cb.equal(pss.get("store").get("storeId"), storeId));
+                }
             }
-            Join<Product, ProductStoreSize> productStoreSizeJoin = root.join("productStoreSizes", JoinType.INNER);
-
-            query.distinct(true);
-
-            return productStoreSizeJoin.get("sizeValue").in(sizeValues);
-        };
-    }
 
-    public static Specification<Product> isInStock() {
-        return (root, query, cb) -> {
-            Join<Product, ProductStoreSize> productStoreSizeJoin = root.join("productStoreSizes", JoinType.INNER);
-            query.distinct(true);
-            return cb.greaterThan(productStoreSizeJoin.get("quantity"), 0);
+            stock.select(cb.literal(1)).where(conditions.toArray(Predicate[]::new));
+            return cb.exists(stock);
         };
     }
 }
@@ -0,0 +1,217 @@
+package org.example.nirsshop.stats;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.event.OrderChangedEvent;
+import org.example.nirsshop.event.ProductSalesChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.model.dto.ProductStatsFreshnessDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обновляет материализованное представление product_stats в фоне после записей в заказы.
+ * Изменения копятся RefreshDebouncer'ом, обновление выполняется одним потоком вне запросов
+ * через REFRESH MATERIALIZED VIEW CONCURRENTLY - чтение топов во время обновления не блокируется.
+ * Нужный для этого уникальный индекс по product_id создаётся при запуске; если создать его нельзя,
+ * приложение не запускается, а не переходит молча на блокирующий REFRESH.
+ * Если product_stats - не материализованное представление (обычный view в H2 в тестах),
+ * обновлять нечего, отметки времени ведутся так же.
+ */
+@Slf4j
+@Component
+public class ProductStatsRefresher {
+
+    private static final String VIEW = "product_stats";
+    private static final String UNIQUE_INDEX = "product_stats_product_id_key";
+
+    private enum Mode {
+        CONCURRENT,  // есть уникальный индекс, чтение не блокируется
+        LIVE         // обычное представление или не PostgreSQL
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshDebouncer debouncer;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "product-stats-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Mode mode = Mode.LIVE;
+    // CONCURRENTLY не работает с ни разу не заполненным представлением - первый раз обычный REFRESH
+    private volatile boolean populated;
+    private volatile Instant refreshedAt;
+    private volatile long lastRefreshMillis;
+    private ScheduledFuture<?> pending;
+
+    public ProductStatsRefresher(JdbcTemplate jdbcTemplate,
+                                 @Value("${catalog.stats.refresh-quiet-ms:5000}") long quietMillis,
+                                 @Value("${catalog.stats.refresh-max-delay-ms:60000}") long maxDelayMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.debouncer = new RefreshDebouncer(quietMillis, maxDelayMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        mode = detectMode();
+        log.info("product_stats refresh mode: {}", mode);
+        // Заказы могли измениться, пока приложение было остановлено
+        executor.execute(() -> {
+            try {
+                refresh();
+            } catch (DataAccessException e) {
+                log.warn("product_stats refresh failed, will retry: {}", e.getMostSpecificCause().getMessage());
+                changed();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSalesChanged(ProductSalesChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        changed();
+    }
+
+    public ProductStatsFreshnessDto freshness() {
+        long staleSince = debouncer.staleSince();
+        long stalenessMillis = staleSince == 0 ? 0 : Math.max(0, System.currentTimeMillis() - staleSince);
+        return new ProductStatsFreshnessDto(
+                refreshedAt,
+                staleSince == 0 ? null : Instant.ofEpochMilli(staleSince),
+                stalenessMillis,
+                lastRefreshMillis,
+                mode.name()
+        );
+    }
+
+    private void changed() {
+        debouncer.changed(System.currentTimeMillis());
+        schedule();
+    }
+
+    private synchronized void schedule() {
+        long dueAt = debouncer.dueAt();
+        if (dueAt < 0 || pending != null || executor.isShutdown()) {
+            return;
+        }
+        long delay = Math.max(0, dueAt - System.currentTimeMillis());
+        pending = executor.schedule(this::refreshIfDue, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Выполняется только в потоке executor, поэтому два обновления одновременно не идут
+    private void refreshIfDue() {
+        synchronized (this) {
+            pending = null;
+        }
+        long now = System.currentTimeMillis();
+        if (debouncer.begin(now) != 0) {
+            boolean refreshed = false;
+            try {
+                refresh();
+                refreshed = true;
+            } catch (DataAccessException e) {
+                log.warn("product_stats refresh failed, will retry: {}", e.getMostSpecificCause().getMessage());
+            } finally {
+                if (refreshed) {
+                    debouncer.succeeded();
+                } else {
+                    debouncer.failed(System.currentTimeMillis());
+                }
+            }
+        }
+        // Изменения во время обновления или неудачная попытка
+        schedule();
+    }
+
+    private void refresh() {
+        long started = System.nanoTime();
+        switch (mode) {
+            case CONCURRENT -> {
+                jdbcTemplate.execute(populated
+                        ? "REFRESH MATERIALIZED VIEW CONCURRENTLY " + VIEW
+                        : "REFRESH MATERIALIZED VIEW " + VIEW);
+                populated = true;
+            }
+            case LIVE -> {
+            }
+        }
+        lastRefreshMillis = (System.nanoTime() - started) / 1_000_000;
+        refreshedAt = Instant.now();
+        log.debug("product_stats refreshed in {} ms", lastRefreshMillis);
+    }
+
+    private Mode detectMode() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return Mode.LIVE;
+        }
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, VIEW);
+        if (kinds.isEmpty()) {
+            log.warn("product_stats does not exist, refresh is disabled");
+            return Mode.LIVE;
+        }
+        if (!"m".equals(kinds.getFirst())) {
+            return Mode.LIVE;
+        }
+        ensureUniqueIndex();
+        populated = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT relispopulated FROM pg_class WHERE oid = to_regclass(?)", Boolean.class, VIEW));
+        return Mode.CONCURRENT;
+    }
+
+    // CONCURRENTLY требует уникальный индекс по столбцам представления, без выражений и условия WHERE
+    private void ensureUniqueIndex() {
+        Boolean exists = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM pg_index i
+                    JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+                    WHERE i.indrelid = to_regclass(?)
+                      AND i.indisunique AND i.indnkeyatts = 1
+                      AND i.indexprs IS NULL AND i.indpred IS NULL
+                      AND a.attname = 'product_id')
+                """, Boolean.class, VIEW);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        log.info("Creating unique index {} on {}(product_id) for concurrent refresh", UNIQUE_INDEX, VIEW);
+        try {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + UNIQUE_INDEX + " ON " + VIEW + " (product_id)");
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("product_stats needs a unique index on product_id for "
+                    + "REFRESH MATERIALIZED VIEW CONCURRENTLY and it could not be created: "
+                    + e.getMostSpecificCause().getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.nirsshop.stats;
+
+import java.util.Arrays;
+
+/**
+ * Счётчик по productId с постоянно поддерживаемым рейтингом: значения и позиции лежат
+ * в массивах, индексированных id, а ranking - id по убыванию значения (при равенстве - по возрастанию id).
+ * Первые k товаров читаются за O(k). При изменении значения товар сдвигается на новое место
+ * двоичным поиском и одним System.arraycopy - продажи растут понемногу, сдвиг обычно короткий.
+ * В рейтинг попадают только положительные значения. Не потокобезопасен.
+ */
+public class RankedCounter {
+
+    private static final int ABSENT = -1;
+
+    private long[] values;
+    private int[] positions;
+    private int[] ranking;
+    private int size;
+
+    public RankedCounter() {
+        this(new long[0]);
+    }
+
+    // Начальные значения по id; рейтинг строится одной сортировкой, а не вставками по одному
+    public RankedCounter(long[] initial) {
+        values = Arrays.copyOf(initial, Math.max(initial.length, 16));
+        positions = new int[values.length];
+        Arrays.fill(positions, ABSENT);
+        Integer[] ids = new Integer[initial.length];
+        int count = 0;
+        for (int id = 0; id < initial.length; id++) {
+            if (initial[id] > 0) {
+                ids[count++] = id;
+            }
+        }
+        Arrays.sort(ids, 0, count, (a, b) -> ranksBefore(a, b) ? -1 : (ranksBefore(b, a) ? 1 : 0));
+        ranking = new int[Math.max(count, 16)];
+        for (int i = 0; i < count; i++) {
+            ranking[i] = ids[i];
+            positions[ids[i]] = i;
+        }
+        size = count;
+    }
+
+    public long get(int id) {
+        return id < values.length ? values[id] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(int id, long delta) {
+        set(id, get(id) + delta);
+    }
+
+    public void set(int id, long value) {
+        ensureCapacity(id);
+        int position = positions[id];
+        if (value <= 0) {
+            if (position != ABSENT) {
+                remove(position);
+            }
+            values[id] = value;
+            return;
+        }
+        values[id] = value;
+        if (position == ABSENT) {
+            if (size == ranking.length) {
+                ranking = Arrays.copyOf(ranking, size * 2);
+            }
+            position = size++;
+            ranking[position] = id;
+            positions[id] = position;
+        }
+        if (position > 0 && ranksBefore(id, ranking[position - 1])) {
+            moveUp(id, position);
+        } else if (position < size - 1 && ranksBefore(ranking[position + 1], id)) {
+            moveDown(id, position);
+        }
+    }
+
+    // Первые k id рейтинга
+    public int[] top(int k) {
+        return Arrays.copyOf(ranking, Math.max(0, Math.min(k, size)));
+    }
+
+    private void moveUp(int id, int position) {
+        // Первая позиция, которую id должен опередить
+        int low = 0;
+        int high = position - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ranksBefore(id, ranking[middle])) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        System.arraycopy(ranking, low, ranking, low + 1, position - low);
+        ranking[low] = id;
+        reindex(low, position);
+    }
+
+    private void moveDown(int id, int position) {
+        // Последняя позиция, которая должна опередить id
+        int low = position + 1;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (ranksBefore(ranking[middle], id)) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        System.arraycopy(ranking, position + 1, ranking, position, low - position);
+        ranking[low] = id;
+        reindex(position, low);
+    }
+
+    private void remove(int position) {
+        int id = ranking[position];
+        System.arraycopy(ranking, position + 1, ranking, position, size - position - 1);
+        size--;
+        positions[id] = ABSENT;
+        reindex(position, size - 1);
+    }
+
+    private void reindex(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            positions[ranking[i]] = i;
+        }
+    }
+
+    private boolean ranksBefore(int a, int b) {
+        return values[a] > values[b] || (values[a] == values[b] && a < b);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id: " + id);
+        }
+        if (id >= values.length) {
+            int length = Math.max(id + 1, values.length * 2);
+            int previous = positions.length;
+            values = Arrays.copyOf(values, length);
+            positions = Arrays.copyOf(positions, length);
+            Arrays.fill(positions, previous, length, ABSENT);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.nirsshop.stats;
+
+/**
+ * Откладывает обновление, пока идут изменения: обновлять пора через quietMillis после последнего
+ * изменения, но не позже maxDelayMillis после первого неучтённого, чтобы поток записей не
+ * откладывал обновление бесконечно. Время передаётся снаружи, в миллисекундах.
+ */
+public class RefreshDebouncer {
+
+    private final long quietMillis;
+    private final long maxDelayMillis;
+
+    // Момент первого изменения, не попавшего в данные; 0 - изменений нет.
+    // Снимается только после успешного обновления
+    private long staleSince;
+    private long lastChange;
+    // Идёт обновление и момент первого изменения, пришедшего во время него
+    private boolean refreshing;
+    private long changedWhileRefreshing;
+    // После неудачного обновления следующая попытка не раньше этого момента
+    private long notBefore;
+
+    public RefreshDebouncer(long quietMillis, long maxDelayMillis) {
+        this.quietMillis = quietMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public synchronized void changed(long now) {
+        if (staleSince == 0) {
+            staleSince = now;
+        }
+        if (refreshing && changedWhileRefreshing == 0) {
+            changedWhileRefreshing = now;
+        }
+        lastChange = now;
+    }
+
+    /**
+     * Когда обновлять; -1, если изменений нет или обновление уже идёт.
+     */
+    public synchronized long dueAt() {
+        if (staleSince == 0 || refreshing) {
+            return -1;
+        }
+        return Math.max(Math.min(lastChange + quietMillis, staleSince + maxDelayMillis), notBefore);
+    }
+
+    /**
+     * Если обновлять пора, начинает обновление и возвращает момент первого учитываемого изменения, иначе 0.
+     * Отметка остаётся до {@link #succeeded()}; изменения, пришедшие после этого вызова, ждут следующего обновления.
+     */
+    public synchronized long begin(long now) {
+        if (staleSince == 0 || refreshing || now < dueAt()) {
+            return 0;
+        }
+        refreshing = true;
+        changedWhileRefreshing = 0;
+        return staleSince;
+    }
+
+    /**
+     * Обновление прошло: неучтёнными остаются только изменения, пришедшие во время него.
+     */
+    public synchronized void succeeded() {
+        staleSince = changedWhileRefreshing;
+        refreshing = false;
+    }
+
+    /**
+     * Обновление не удалось: отметка остаётся, следующая попытка не раньше чем через quietMillis.
+     */
+    public synchronized void failed(long now) {
+        refreshing = false;
+        notBefore = now + quietMillis;
+    }
+
+    public synchronized long staleSince() {
+        return staleSince;
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.nirsshop.stats;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductSalesChangedEvent;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.model.dto.PopularProductDto;
+import org.example.nirsshop.model.dto.TopIncomeProductDto;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.SalesEntryProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Продажи по товарам в памяти для топов: проданные единицы и доход,
+ * каждый показатель - в своём {@link RankedCounter}, поэтому топ из k товаров отдаётся за O(k) без SQL.
+ * Счётчики меняются на величину из ProductSalesChangedEvent после коммита позиции заказа.
+ * Доход - сумма позиций по цене на момент добавления (product_order.unit_price), как в агрегатах продаж:
+ * смена цены товара не переписывает прошлые продажи.
+ * Чистого дохода здесь нет: его формула есть только в представлении, и он читается оттуда.
+ * Раз в интервал и после импорта всё сверяется с БД; товары, изменённые во время сверки,
+ * перечитываются по одному, чтобы не потерять и не задвоить их продажи.
+ * До первой сверки топы не готовы, и сервис читает их из представлений.
+ */
+@Slf4j
+@Component
+public class SalesAggregator {
+
+    private final ProductRepository productRepository;
+    private final long reconcileIntervalMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "sales-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record ProductInfo(String name, String article, int price, Double rating) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean ready;
+    private RankedCounter sold = new RankedCounter();
+    private RankedCounter income = new RankedCounter();
+    private ProductInfo[] products = new ProductInfo[0];
+    private Set<Integer> touchedDuringReconcile;
+
+    public SalesAggregator(ProductRepository productRepository,
+                           @Value("${catalog.sales.reconcile-interval-ms:600000}") long reconcileIntervalMillis) {
+        this.productRepository = productRepository;
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        executor.scheduleWithFixedDelay(this::reconcileQuietly, 0, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSalesChanged(ProductSalesChangedEvent event) {
+        int productId = event.productId();
+        boolean known;
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringReconcile != null) {
+                touchedDuringReconcile.add(productId);
+            }
+            if (!ready) {
+                return;
+            }
+            known = productId < products.length && products[productId] != null;
+            if (known) {
+                sold.add(productId, event.quantityDelta());
+                income.add(productId, event.revenueDelta());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!known) {
+            refreshProduct(productId);
+        }
+    }
+
+    // Название, цена или рейтинг могли измениться, товар мог быть удалён
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        refreshProduct(event.productId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        executor.execute(this::reconcileQuietly);
+    }
+
+    public Optional<List<PopularProductDto>> topSelling(int limit) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            List<PopularProductDto> result = new ArrayList<>();
+            for (int productId : sold.top(limit)) {
+                ProductInfo info = products[productId];
+                result.add(new PopularProductDto(productId, info.name(), info.article(), info.price(),
+                        info.rating(), sold.get(productId)));
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<List<TopIncomeProductDto>> topIncome(int limit) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            List<TopIncomeProductDto> result = new ArrayList<>();
+            for (int productId : income.top(limit)) {
+                result.add(new TopIncomeProductDto(productId, products[productId].name(),
+                        income.get(productId), sold.get(productId)));
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Полная сверка с БД; выполняется только в потоке executor
+    private void reconcile() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringReconcile = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<SalesEntryProjection> entries;
+        try {
+            entries = productRepository.findAllSalesEntries();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                touchedDuringReconcile = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int capacity = entries.stream().mapToInt(SalesEntryProjection::getProductId).max().orElse(-1) + 1;
+        ProductInfo[] rebuiltProducts = new ProductInfo[capacity];
+        long[] soldValues = new long[capacity];
+        long[] incomeValues = new long[capacity];
+        for (SalesEntryProjection entry : entries) {
+            int productId = entry.getProductId();
+            rebuiltProducts[productId] = infoOf(entry);
+            soldValues[productId] = entry.getTotalSold();
+            incomeValues[productId] = entry.getTotalIncome();
+        }
+        RankedCounter rebuiltSold = new RankedCounter(soldValues);
+        RankedCounter rebuiltIncome = new RankedCounter(incomeValues);
+
+        Set<Integer> touched;
+        lock.writeLock().lock();
+        try {
+            products = rebuiltProducts;
+            sold = rebuiltSold;
+            income = rebuiltIncome;
+            ready = true;
+            touched = touchedDuringReconcile;
+            touchedDuringReconcile = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Коммиты во время чтения могли попасть или не попасть в выборку - перечитываем эти товары
+        touched.forEach(this::refreshProduct);
+        log.debug("Sales counters reconciled: {} products, {} re-read", entries.size(), touched.size());
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (DataAccessException e) {
+            log.warn("Sales counters reconcile failed, will retry: {}", e.getMostSpecificCause().getMessage());
+        } catch (RuntimeException e) {
+            // Исключение из периодической задачи отменило бы все следующие сверки
+            log.error("Sales counters reconcile failed", e);
+        }
+    }
+
+    // Точные продажи одного товара из БД
+    private void refreshProduct(Integer productId) {
+        Optional<SalesEntryProjection> entry = productRepository.findSalesEntryById(productId);
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringReconcile != null) {
+                touchedDuringReconcile.add(productId);
+            }
+            if (!ready) {
+                return;
+            }
+            if (entry.isPresent()) {
+                if (productId >= products.length) {
+                    products = Arrays.copyOf(products, Math.max(productId + 1, products.length * 2));
+                }
+                products[productId] = infoOf(entry.get());
+                sold.set(productId, entry.get().getTotalSold());
+                income.set(productId, entry.get().getTotalIncome());
+            } else if (productId < products.length) {
+                products[productId] = null;
+                sold.set(productId, 0);
+                income.set(productId, 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static ProductInfo infoOf(SalesEntryProjection entry) {
+        return new ProductInfo(entry.getName(), entry.getArticle(),
+                entry.getPrice() == null ? 0 : entry.getPrice(), entry.getRating());
+    }
+}
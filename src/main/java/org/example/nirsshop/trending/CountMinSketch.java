@@ -0,0 +1,76 @@
+package org.example.nirsshop.trending;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Count-min sketch по productId: depth строк по width счётчиков, оценка - минимум по строкам.
+ * Память фиксирована и не зависит от числа товаров. Хеши одинаковы во всех скетчах с теми же
+ * размерами, поэтому оценку по окну можно считать суммой ячеек нескольких скетчей.
+ * Счётчики только растут: вычитание могло бы увести ячейку в минус, и оценка перестала бы быть верхней границей.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final long[][] cells;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two: " + width);
+        }
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Depth must be positive: " + depth);
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.cells = new long[depth][width];
+    }
+
+    public void add(int item, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        for (int row = 0; row < depth; row++) {
+            cells[row][index(row, item)] += count;
+        }
+    }
+
+    public long estimate(int item) {
+        return estimate(List.of(this), item);
+    }
+
+    public void clear() {
+        for (long[] row : cells) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    // Оценка по сумме нескольких скетчей одного размера
+    public static long estimate(List<CountMinSketch> sketches, int item) {
+        if (sketches.isEmpty()) {
+            return 0;
+        }
+        int depth = sketches.getFirst().depth;
+        long result = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long sum = 0;
+            for (CountMinSketch sketch : sketches) {
+                sum += sketch.cells[row][sketch.index(row, item)];
+            }
+            result = Math.min(result, sum);
+        }
+        return result;
+    }
+
+    // Своя соль для каждой строки и перемешивание битов из MurmurHash3
+    private int index(int row, int item) {
+        long hash = item * 0x9E3779B97F4A7C15L + (row + 1) * 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
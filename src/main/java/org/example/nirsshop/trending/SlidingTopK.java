@@ -0,0 +1,78 @@
+package org.example.nirsshop.trending;
+
+import java.util.*;
+
+/**
+ * Самые продаваемые товары за скользящее окно из buckets корзин по bucketMillis.
+ * У каждой корзины свои {@link SpaceSaving} (кандидаты) и {@link CountMinSketch} (продажи);
+ * корзины лежат по кругу и очищаются, когда их время проходит. Окно покрывает текущую корзину
+ * и buckets - 1 предыдущих, то есть от (buckets - 1) до buckets длительностей корзины.
+ * Память фиксирована размерами скетчей. Время передаётся снаружи. Не потокобезопасен.
+ */
+public class SlidingTopK {
+
+    public record Entry(int item, long count) {}
+
+    private final long bucketMillis;
+    private final long[] epochs;
+    private final SpaceSaving[] candidates;
+    private final CountMinSketch[] sketches;
+
+    public SlidingTopK(int buckets, long bucketMillis, int capacity, int width, int depth) {
+        if (buckets <= 0 || bucketMillis <= 0) {
+            throw new IllegalArgumentException("Buckets and bucket length must be positive");
+        }
+        this.bucketMillis = bucketMillis;
+        this.epochs = new long[buckets];
+        Arrays.fill(epochs, Long.MIN_VALUE);
+        this.candidates = new SpaceSaving[buckets];
+        this.sketches = new CountMinSketch[buckets];
+        for (int i = 0; i < buckets; i++) {
+            candidates[i] = new SpaceSaving(capacity);
+            sketches[i] = new CountMinSketch(width, depth);
+        }
+    }
+
+    public void add(int item, long count, long now) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        long epoch = Math.floorDiv(now, bucketMillis);
+        int slot = (int) Math.floorMod(epoch, epochs.length);
+        if (epochs[slot] != epoch) {
+            if (epochs[slot] > epoch) {
+                // Событие старше окна, которое уже ушло
+                return;
+            }
+            epochs[slot] = epoch;
+            candidates[slot].clear();
+            sketches[slot].clear();
+        }
+        candidates[slot].offer(item, count);
+        sketches[slot].add(item, count);
+    }
+
+    // Товары с положительными продажами за окно по убыванию, при равенстве - по возрастанию id
+    public List<Entry> top(int limit, long now) {
+        long epoch = Math.floorDiv(now, bucketMillis);
+        List<CountMinSketch> live = new ArrayList<>();
+        Set<Integer> items = new HashSet<>();
+        for (int slot = 0; slot < epochs.length; slot++) {
+            if (epochs[slot] <= epoch && epochs[slot] > epoch - epochs.length) {
+                live.add(sketches[slot]);
+                for (int i = 0; i < candidates[slot].size(); i++) {
+                    items.add(candidates[slot].item(i));
+                }
+            }
+        }
+        List<Entry> result = new ArrayList<>(items.size());
+        for (int item : items) {
+            long count = CountMinSketch.estimate(live, item);
+            if (count > 0) {
+                result.add(new Entry(item, count));
+            }
+        }
+        result.sort(Comparator.comparingLong(Entry::count).reversed().thenComparingInt(Entry::item));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, Math.max(limit, 0))) : result;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.nirsshop.trending;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving (Metwally и др.): не больше capacity счётчиков самых продаваемых товаров.
+ * Новый товар при заполненной таблице вытесняет товар с наименьшим счётчиком и наследует
+ * его значение как погрешность, поэтому любой товар с долей больше 1/capacity гарантированно в таблице.
+ * Здесь таблица только отбирает кандидатов, точнее их продажи оценивает {@link CountMinSketch}.
+ */
+public class SpaceSaving {
+
+    private final int[] items;
+    private final long[] counts;
+    private final Map<Integer, Integer> slots;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        items = new int[capacity];
+        counts = new long[capacity];
+        slots = new HashMap<>(capacity * 2);
+    }
+
+    // Только положительные веса: уменьшения в Space-Saving не поддерживаются
+    public void offer(int item, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            counts[slot] += weight;
+            return;
+        }
+        if (size < items.length) {
+            items[size] = item;
+            counts[size] = weight;
+            slots.put(item, size++);
+            return;
+        }
+        // Вытесняем минимальный счётчик; таблица маленькая, линейный поиск дешевле поддержки кучи
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        slots.remove(items[min]);
+        items[min] = item;
+        counts[min] += weight;
+        slots.put(item, min);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int item(int slot) {
+        return items[slot];
+    }
+
+    // Оценка сверху: настоящее значение плюс унаследованная погрешность
+    public long count(int slot) {
+        return counts[slot];
+    }
+
+    public void clear() {
+        slots.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.nirsshop.trending;
+
+import org.example.nirsshop.event.ProductSalesChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Тренды продаж за последний час, день и неделю. Каждая позиция заказа после коммита
+ * добавляет проданное количество во все окна; время продажи - время коммита.
+ * Уменьшения пропускаются: корзина исходной продажи неизвестна и могла уже уйти из окна,
+ * а вычитание из текущей корзины сломало бы оценку сверху.
+ * Состояние только в памяти и фиксированного размера: после перезапуска окна заполняются заново.
+ */
+@Component
+public class TrendingProducts {
+
+    private final int capacity;
+    private final Map<TrendingWindow, SlidingTopK> windows = new EnumMap<>(TrendingWindow.class);
+
+    public TrendingProducts(@Value("${catalog.trending.capacity:200}") int capacity,
+                            @Value("${catalog.trending.sketch-width:2048}") int sketchWidth,
+                            @Value("${catalog.trending.sketch-depth:4}") int sketchDepth) {
+        this.capacity = capacity;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            windows.put(window, new SlidingTopK(window.getBuckets(), window.getBucket().toMillis(),
+                    capacity, sketchWidth, sketchDepth));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSalesChanged(ProductSalesChangedEvent event) {
+        if (event.quantityDelta() > 0) {
+            record(event.productId(), event.quantityDelta(), System.currentTimeMillis());
+        }
+    }
+
+    public synchronized void record(int productId, long quantity, long now) {
+        windows.values().forEach(window -> window.add(productId, quantity, now));
+    }
+
+    // Больше capacity товаров Space-Saving не различает
+    public synchronized List<SlidingTopK.Entry> top(TrendingWindow window, int limit) {
+        return windows.get(window).top(Math.min(limit, capacity), System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.nirsshop.trending;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.exception.BadRequestException;
+
+import java.time.Duration;
+
+/**
+ * Окна трендов. Окно делится на корзины: чем мельче корзина, тем точнее граница окна,
+ * но тем больше скетчей в памяти.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TrendingWindow {
+
+    HOUR("hour", 12, Duration.ofMinutes(5)),
+    DAY("day", 24, Duration.ofHours(1)),
+    WEEK("week", 28, Duration.ofHours(6));
+
+    private final String key;
+    private final int buckets;
+    private final Duration bucket;
+
+    public static TrendingWindow fromKey(String key) {
+        if (key == null || key.isBlank()) {
+            return DAY;
+        }
+        for (TrendingWindow window : values()) {
+            if (window.key.equalsIgnoreCase(key)) {
+                return window;
+            }
+        }
+        throw new BadRequestException("Unsupported trending window: " + key);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.nirsshop.versioning;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Записи в каталог, которые уже подняли catalog_version, но ещё не дошли до индексов в памяти:
+ * CatalogIndex и поисковые индексы обновляются слушателями AFTER_COMMIT, уже после коммита.
+ * Пока такие записи есть, версия каталога опережает данные списков и ETag по ней выдавать нельзя.
+ */
+@Component
+public class CatalogWriteTracker {
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Вызывается в транзакции записи. Отметка ставится перед коммитом и снимается после всех
+     * слушателей AFTER_COMMIT этой транзакции: они выполняются в afterCompletion, а синхронизация,
+     * зарегистрированная в beforeCommit, идёт после них.
+     */
+    public void transactionalWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                pending.incrementAndGet();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public int getOrder() {
+                        return Ordered.LOWEST_PRECEDENCE;
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        pending.decrementAndGet();
+                    }
+                });
+            }
+        });
+    }
+
+    // Запись из нескольких транзакций (импорт): отметка держится от begin до end
+    public void begin() {
+        pending.incrementAndGet();
+    }
+
+    public void end() {
+        pending.decrementAndGet();
+    }
+
+    public boolean hasPending() {
+        return pending.get() > 0;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.nirsshop.versioning;
+
+/**
+ * Сильные ETag для представлений товара. Версия товара общая для карточки, картинок и размеров,
+ * суффикс различает представления.
+ */
+public final class ProductETags {
+
+    private ProductETags() {
+    }
+
+    public static String product(Integer productId, Long version) {
+        return quote("p" + productId + "-v" + version);
+    }
+
+    public static String images(Integer productId, Long version) {
+        return quote("p" + productId + "-v" + version + "-images");
+    }
+
+    public static String sizes(Integer productId, Long version) {
+        return quote("p" + productId + "-v" + version + "-sizes");
+    }
+
+    // Счётчик catalog_version: растёт при любом изменении товаров, картинок, остатков и категорий товаров
+    public static String catalog(long version) {
+        return quote("c" + Long.toHexString(version));
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.nirsshop.versioning;
+
+import lombok.RequiredArgsConstructor;
+import org.example.nirsshop.event.CategoryDeletedEvent;
+import org.example.nirsshop.event.ProductChangedEvent;
+import org.example.nirsshop.event.ProductImagesChangedEvent;
+import org.example.nirsshop.event.ProductStockChangedEvent;
+import org.example.nirsshop.repository.CatalogVersionRepository;
+import org.example.nirsshop.repository.ProductRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Поднимает версию товара и версию каталога при изменении товара, его картинок и остатков.
+ * Слушатель синхронный, поэтому версии меняются в той же транзакции, что и данные.
+ * Версия товара поднимается только запросом ProductRepository.incrementVersion.
+ * Импорт поднимает обе версии сам, в транзакции каждой пачки.
+ * Пока слушатели AFTER_COMMIT не обновили индексы, запись числится в CatalogWriteTracker.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductVersionListener {
+
+    private final ProductRepository productRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final CatalogWriteTracker catalogWriteTracker;
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        productRepository.incrementVersion(event.productId());
+        bumpCatalog();
+    }
+
+    @EventListener
+    public void onImagesChanged(ProductImagesChangedEvent event) {
+        productRepository.incrementVersion(event.productId());
+        bumpCatalog();
+    }
+
+    @EventListener
+    public void onStockChanged(ProductStockChangedEvent event) {
+        productRepository.incrementVersion(event.productId());
+        bumpCatalog();
+    }
+
+    // Публикуется до удаления категории, пока её товары ещё можно найти по category_id
+    @EventListener
+    public void onCategoryDeleted(CategoryDeletedEvent event) {
+        productRepository.incrementVersionByCategory(event.categoryId());
+        bumpCatalog();
+    }
+
+    private void bumpCatalog() {
+        catalogVersionRepository.increment();
+        catalogWriteTracker.transactionalWrite();
+    }
+}
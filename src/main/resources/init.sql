@@ -175,3 +175,167 @@ ALTER TABLE Product
 
 CREATE INDEX idx_category_name ON Category (name);
 CREATE INDEX idx_product_category ON Product (category_id);
+
+-------------------------------------------------------
+-- Indexes for sorted product listing (filter + sort + top-N)
+-- Each sort key is paired with product_id as a tie-breaker in the same direction,
+-- matching ProductSort.toSort() so keyset pages are index range scans.
+-- price, name and product_id are NOT NULL and sorted without NULLS LAST, so the
+-- ASC indexes also serve the DESC sorts by a backward scan. Only the nullable
+-- rating key needs NULLS LAST in the index itself.
+-------------------------------------------------------
+
+ALTER TABLE Product
+    ADD COLUMN IF NOT EXISTS rating DOUBLE PRECISION;
+
+CREATE INDEX idx_product_price_id ON Product (price, product_id);
+CREATE INDEX idx_product_rating_id ON Product (rating DESC NULLS LAST, product_id DESC);
+CREATE INDEX idx_product_name_id ON Product (name, product_id);
+
+CREATE INDEX idx_product_category_price_id ON Product (category_id, price, product_id);
+CREATE INDEX idx_product_category_rating_id ON Product (category_id, rating DESC NULLS LAST, product_id DESC);
+CREATE INDEX idx_product_category_name_id ON Product (category_id, name, product_id);
+CREATE INDEX idx_product_category_id ON Product (category_id, product_id);
+
+CREATE INDEX idx_product_gender_price_id ON Product (gender, price, product_id);
+CREATE INDEX idx_product_gender_rating_id ON Product (gender, rating DESC NULLS LAST, product_id DESC);
+CREATE INDEX idx_product_gender_name_id ON Product (gender, name, product_id);
+
+-- Correlated EXISTS from the product listing filters (size / in stock / store)
+CREATE INDEX IF NOT EXISTS idx_product_store_size_product_size
+    ON product_store_size (product_id, size_value, store_id, quantity);
+
+-------------------------------------------------------
+-- Product search (PostgresProductSearchService)
+-- Trigram GIN indexes serve lower(name/article) LIKE '%q%',
+-- search_vector serves full-text matches with Russian stemming.
+-------------------------------------------------------
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_product_name_trgm ON Product USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX idx_product_article_trgm ON Product USING gin (lower(article) gin_trgm_ops);
+
+ALTER TABLE Product
+    ADD COLUMN search_vector tsvector
+        GENERATED ALWAYS AS (
+            to_tsvector('russian', coalesce(name, '') || ' ' || coalesce(article, '') || ' ' || coalesce(description, ''))
+        ) STORED;
+
+CREATE INDEX idx_product_search_vector ON Product USING gin (search_vector);
+
+-- Search predicate shared by the native search queries and the product list filter.
+-- A plain SQL STABLE function is inlined by the planner, so each OR arm still uses
+-- its GIN index. LIKE wildcards in the query are escaped with '!' (a backslash
+-- would confuse the script splitter).
+CREATE OR REPLACE FUNCTION product_search_match(vector tsvector, name text, article text, query text)
+    RETURNS boolean
+    LANGUAGE sql STABLE
+AS $$
+    SELECT vector @@ plainto_tsquery('russian', query)
+        OR lower(name) LIKE '%' || replace(replace(replace(lower(query), '!', '!!'), '%', '!%'), '_', '!_') || '%' ESCAPE '!'
+        OR lower(article) LIKE '%' || replace(replace(replace(lower(query), '!', '!!'), '%', '!%'), '_', '!_') || '%' ESCAPE '!'
+$$;
+
+-------------------------------------------------------
+-- Product version for strong ETags
+-- Bumped on product, image and stock changes.
+-- catalog_version is a single-row counter for the list ETag: it is bumped in the
+-- same transaction as every product, image, stock, import or category delete write,
+-- so validating a list costs one primary key lookup. The row survives restarts,
+-- so a tag is never reused for a different catalog.
+-------------------------------------------------------
+
+ALTER TABLE Product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS catalog_version (
+    id       SMALLINT PRIMARY KEY CHECK (id = 1),
+    version  BIGINT   NOT NULL
+);
+
+INSERT INTO catalog_version (id, version) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+-------------------------------------------------------
+-- Sequence ids with a pooled-lo optimizer
+-- Product, Product_Image, Product_Store_Size and Order switch from SERIAL/IDENTITY
+-- to sequences incremented by 50: Hibernate takes one nextval per 50 ids and can
+-- batch the inserts. Each sequence continues after the current max id, and the
+-- script runs on every start, so the sequence is only ever moved forward: the
+-- next value stays past any block already handed out to a running instance or
+-- the importer, even when ids from that block are not in the table yet. Column
+-- defaults move to the new sequences, so a nextval taken by SQL is never handed
+-- out by Hibernate. A default nextval uses up a whole block of 50 ids for a single
+-- row, so the bulk importer does not rely on it: like Hibernate, it takes one
+-- nextval per 50 new products and inserts explicit product_id values, keeping ids
+-- dense for the in-memory structures sized by max id.
+-------------------------------------------------------
+
+CREATE SEQUENCE IF NOT EXISTS product_seq INCREMENT BY 50;
+SELECT setval('product_seq', GREATEST(
+    (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM product_seq),
+    (SELECT COALESCE(MAX(product_id), 0) + 1 FROM Product)), false);
+ALTER TABLE Product ALTER COLUMN product_id DROP IDENTITY IF EXISTS;
+ALTER TABLE Product ALTER COLUMN product_id SET DEFAULT nextval('product_seq');
+
+CREATE SEQUENCE IF NOT EXISTS product_image_seq INCREMENT BY 50;
+SELECT setval('product_image_seq', GREATEST(
+    (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM product_image_seq),
+    (SELECT COALESCE(MAX(image_id), 0) + 1 FROM product_image)), false);
+ALTER TABLE product_image ALTER COLUMN image_id DROP IDENTITY IF EXISTS;
+ALTER TABLE product_image ALTER COLUMN image_id SET DEFAULT nextval('product_image_seq');
+
+CREATE SEQUENCE IF NOT EXISTS product_store_size_seq INCREMENT BY 50;
+SELECT setval('product_store_size_seq', GREATEST(
+    (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM product_store_size_seq),
+    (SELECT COALESCE(MAX(id), 0) + 1 FROM product_store_size)), false);
+ALTER TABLE product_store_size ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE product_store_size ALTER COLUMN id SET DEFAULT nextval('product_store_size_seq');
+
+CREATE SEQUENCE IF NOT EXISTS order_seq INCREMENT BY 50;
+SELECT setval('order_seq', GREATEST(
+    (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM order_seq),
+    (SELECT COALESCE(MAX(order_id), 0) + 1 FROM "order")), false);
+ALTER TABLE "order" ALTER COLUMN order_id DROP IDENTITY IF EXISTS;
+ALTER TABLE "order" ALTER COLUMN order_id SET DEFAULT nextval('order_seq');
+
+-------------------------------------------------------
+-- Sales rollups
+-- sales_daily is keyed by order date, sales_hourly by the hour the order line
+-- was written (orders carry a date only). Both are kept up to date by the order
+-- services in the same transaction as the order write. Revenue deltas use the
+-- unit price stored on the order line when it was added, so updating or deleting
+-- a line after a price change subtracts exactly what the line added. Customer
+-- delete goes through the order delete path for the same reason. sales_daily can
+-- be rebuilt from history by the backfill job; sales_hourly has no history to
+-- rebuild from. No foreign keys: sales of deleted products stay in the rollups.
+-------------------------------------------------------
+
+ALTER TABLE Product_Order ADD COLUMN IF NOT EXISTS unit_price INTEGER;
+UPDATE Product_Order po SET unit_price = p.price
+FROM Product p
+WHERE p.product_id = po.product_id AND po.unit_price IS NULL;
+ALTER TABLE Product_Order ALTER COLUMN unit_price SET NOT NULL;
+
+CREATE TABLE IF NOT EXISTS sales_daily (
+    sale_date    DATE    NOT NULL,
+    product_id   INTEGER NOT NULL,
+    category_id  INTEGER,
+    units        BIGINT  NOT NULL DEFAULT 0,
+    revenue      BIGINT  NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, product_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sales_daily_product ON sales_daily (product_id, sale_date);
+CREATE INDEX IF NOT EXISTS idx_sales_daily_category ON sales_daily (category_id, sale_date);
+
+CREATE TABLE IF NOT EXISTS sales_hourly (
+    sale_hour    TIMESTAMP NOT NULL,
+    product_id   INTEGER   NOT NULL,
+    category_id  INTEGER,
+    units        BIGINT    NOT NULL DEFAULT 0,
+    revenue      BIGINT    NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_hour, product_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sales_hourly_product ON sales_hourly (product_id, sale_hour);
+CREATE INDEX IF NOT EXISTS idx_sales_hourly_category ON sales_hourly (category_id, sale_hour);
@@ -0,0 +1,189 @@
+package org.example.nirsshop;
+
+import org.example.nirsshop.index.CatalogFilter;
+import org.example.nirsshop.index.CatalogIndex;
+import org.example.nirsshop.pagination.ProductSort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogIndexTest {
+
+    private CatalogIndex catalogIndex;
+
+    @BeforeEach
+    void setUp() {
+        catalogIndex = new CatalogIndex();
+        catalogIndex.rebuild(
+                List.of(
+                        new CatalogIndex.ProductEntry(1, 10, "male", 1000, 4.5),
+                        new CatalogIndex.ProductEntry(2, 10, "female", 3000, 3.8),
+                        new CatalogIndex.ProductEntry(3, 20, "male", 8000, null)
+                ),
+                List.of(
+                        new CatalogIndex.StockEntry(1, 100, "M", 5),
+                        new CatalogIndex.StockEntry(2, 100, "S", 0),
+                        new CatalogIndex.StockEntry(3, 200, "M", 2)
+                ));
+    }
+
+    @Test
+    void find_CategoryAndGender_IntersectsBitmaps() {
+        CatalogIndex.Result result = catalogIndex.find(
+                filter(10, null, null, "male", null, null, null, null), ProductSort.ID, 0, 20);
+
+        assertEquals(List.of(1), result.productIds());
+        assertEquals(1, result.total());
+    }
+
+    @Test
+    void find_SizeInStockInStore_MatchesSameStockRow() {
+        CatalogIndex.Result anyStore = catalogIndex.find(
+                filter(null, null, null, null, List.of("M", "S"), true, null, null), ProductSort.ID, 0, 20);
+        CatalogIndex.Result store200 = catalogIndex.find(
+                filter(null, null, null, null, List.of("M"), true, 200, null), ProductSort.ID, 0, 20);
+
+        assertEquals(List.of(1, 3), anyStore.productIds());
+        assertEquals(List.of(3), store200.productIds());
+    }
+
+    @Test
+    void find_PriceRangeAndRating_UsesSortedColumns() {
+        CatalogIndex.Result priced = catalogIndex.find(
+                filter(null, 1000, 3000, null, null, null, null, null), ProductSort.PRICE_DESC, 0, 20);
+        CatalogIndex.Result rated = catalogIndex.find(
+                filter(null, null, null, null, null, null, null, 4.0), ProductSort.ID, 0, 20);
+
+        assertEquals(List.of(2, 1), priced.productIds());
+        assertEquals(List.of(1), rated.productIds());
+    }
+
+    @Test
+    void find_SortByRating_PutsNullsLastAndPages() {
+        CatalogIndex.Result first = catalogIndex.find(
+                filter(null, null, null, null, null, null, null, null), ProductSort.RATING, 0, 2);
+        CatalogIndex.Result second = catalogIndex.find(
+                filter(null, null, null, null, null, null, null, null), ProductSort.RATING, 2, 2);
+
+        assertEquals(List.of(1, 2), first.productIds());
+        assertEquals(List.of(3), second.productIds());
+        assertEquals(3, first.total());
+    }
+
+    @Test
+    void incrementalUpdates_ReflectProductAndStockChanges() {
+        catalogIndex.putProduct(new CatalogIndex.ProductEntry(2, 20, "female", 500, 3.8));
+        catalogIndex.replaceStock(1, List.of(new CatalogIndex.StockEntry(1, 100, "M", 0)));
+        catalogIndex.removeProduct(3);
+
+        CatalogIndex.Result category20 = catalogIndex.find(
+                filter(20, null, null, null, null, null, null, null), ProductSort.PRICE, 0, 20);
+        CatalogIndex.Result inStock = catalogIndex.find(
+                filter(null, null, null, null, null, true, null, null), ProductSort.ID, 0, 20);
+
+        assertEquals(List.of(2), category20.productIds());
+        assertTrue(inStock.productIds().isEmpty());
+    }
+
+    @Test
+    void incrementalUpdates_KeepSortedColumnsInOrder() {
+        // Колонки уже построены - дальше записи правят их на месте
+        assertEquals(List.of(1, 2, 3), catalogIndex.find(
+                filter(null, null, null, null, null, null, null, null), ProductSort.PRICE, 0, 20).productIds());
+
+        catalogIndex.putProduct(new CatalogIndex.ProductEntry(2, 10, "female", 500, null));
+        catalogIndex.putProduct(new CatalogIndex.ProductEntry(4, 10, "male", 1000, 5.0));
+        catalogIndex.removeProduct(1);
+        catalogIndex.putProduct(new CatalogIndex.ProductEntry(3, 20, "male", null, 4.0));
+
+        CatalogIndex.Result byPrice = catalogIndex.find(
+                filter(null, null, null, null, null, null, null, null), ProductSort.PRICE, 0, 20);
+        CatalogIndex.Result byRating = catalogIndex.find(
+                filter(null, null, null, null, null, null, null, null), ProductSort.RATING, 0, 20);
+        CatalogIndex.Result cheap = catalogIndex.find(
+                filter(null, null, 1000, null, null, null, null, null), ProductSort.ID, 0, 20);
+
+        assertEquals(List.of(2, 4, 3), byPrice.productIds());
+        assertEquals(List.of(4, 3, 2), byRating.productIds());
+        assertEquals(List.of(2, 4), cheap.productIds());
+    }
+
+    @Test
+    void rebuild_ChangesWhileReadingSnapshot_ReturnedForReRead() {
+        catalogIndex.beginRebuild();
+        // Коммиты, пришедшие, пока читался снимок
+        catalogIndex.putProduct(new CatalogIndex.ProductEntry(2, 10, "female", 500, 3.8));
+        catalogIndex.replaceStock(3, List.of());
+        catalogIndex.removeCategory(10);
+
+        Set<Integer> touched = catalogIndex.rebuild(
+                List.of(
+                        new CatalogIndex.ProductEntry(1, 10, "male", 1000, 4.5),
+                        new CatalogIndex.ProductEntry(2, 10, "female", 3000, 3.8)
+                ),
+                List.of());
+
+        assertEquals(Set.of(2, 3), touched);
+        assertTrue(catalogIndex.find(
+                filter(10, null, null, null, null, null, null, null), ProductSort.ID, 0, 20).productIds().isEmpty());
+        assertTrue(catalogIndex.rebuild(List.of(), List.of()).isEmpty());
+    }
+
+    @Test
+    void removeCategory_ProductsNoLongerMatchItOrItsFacet() {
+        catalogIndex.removeCategory(10);
+
+        CatalogIndex.Result category10 = catalogIndex.find(
+                filter(10, null, null, null, null, null, null, null), ProductSort.ID, 0, 20);
+        CatalogIndex.Result all = catalogIndex.find(
+                filter(null, null, null, null, null, null, null, null), ProductSort.ID, 0, 20);
+        CatalogIndex.Facets facets = catalogIndex.facets(
+                filter(null, null, null, null, null, null, null, null), null, new int[0]);
+
+        assertTrue(category10.productIds().isEmpty());
+        assertEquals(List.of(1, 2, 3), all.productIds());
+        assertEquals(Map.of(20, 1L), facets.categories());
+    }
+
+    @Test
+    void supports_NameSortGoesToSql() {
+        assertFalse(catalogIndex.supports(ProductSort.NAME));
+        assertTrue(catalogIndex.supports(ProductSort.PRICE_DESC));
+    }
+
+    @Test
+    void facets_CountEachFacetWithoutItsOwnFilter() {
+        CatalogIndex.Facets facets = catalogIndex.facets(
+                filter(null, null, null, "male", List.of("M"), null, null, null), null, new int[]{2000, 5000});
+
+        assertEquals(2, facets.total());
+        assertEquals(Map.of(10, 1L, 20, 1L), facets.categories());
+        assertEquals(Map.of("male", 2L), facets.genders());
+        assertEquals(Map.of("M", 2L), facets.sizes());
+        assertArrayEquals(new long[]{1, 0, 1}, facets.priceBucketCounts());
+    }
+
+    @Test
+    void facets_RestrictedToSearchResults() {
+        BitSet searchResults = new BitSet();
+        searchResults.set(2);
+
+        CatalogIndex.Facets facets = catalogIndex.facets(
+                filter(null, null, null, null, null, null, null, null), searchResults, new int[]{2000});
+
+        assertEquals(1, facets.total());
+        assertEquals(Map.of("female", 1L), facets.genders());
+        assertArrayEquals(new long[]{0, 1}, facets.priceBucketCounts());
+    }
+
+    private static CatalogFilter filter(Integer categoryId, Integer minPrice, Integer maxPrice, String gender,
+                                        List<String> sizeValues, Boolean inStock, Integer storeId, Double rating) {
+        return new CatalogFilter(categoryId, minPrice, maxPrice, gender, sizeValues, inStock, storeId, rating);
+    }
+}
@@ -39,6 +39,20 @@ public class CategoryServiceImplIT {
         assertTrue(result.size() >= 2);
     }
 
+    @Test
+    void findAll_AfterCreate_NotServedFromStaleQueryCache() {
+        // Arrange - первый вызов кладёт результат в кэш запросов
+        int before = categoryService.findAll().size();
+
+        // Act
+        categoryService.create(new CategoryCreateDto("Outerwear", null));
+        List<CategoryDto> result = categoryService.findAll();
+
+        // Assert
+        assertEquals(before + 1, result.size());
+        assertTrue(result.stream().anyMatch(c -> c.name().equals("Outerwear")));
+    }
+
     @Test
     void findById_ExistingCategory_ReturnsCategoryDto() {
         // Arrange
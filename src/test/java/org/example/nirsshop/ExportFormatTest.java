@@ -0,0 +1,71 @@
+package org.example.nirsshop;
+
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.export.ExportFormat;
+import org.example.nirsshop.export.ProductExportRow;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportFormatTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private final ProductExportRow row = new ProductExportRow(
+            7, "Куртка \"Север\", зимняя", "WJ-7", 3500, 800, "Тёплая\nс капюшоном", "male", 4.5, 2,
+            new TreeMap<>(Map.of("M", 5L, "L", 3L)));
+
+    @Test
+    void ndjson_EscapesStringsAndWritesOneObjectPerLine() throws IOException {
+        StringWriter out = new StringWriter();
+        ExportFormat.RowWriter rows = ExportFormat.NDJSON.open(out, jsonMapper);
+        rows.writeRow(row);
+        rows.writeRow(row);
+        rows.flush();
+
+        String line = "{\"id\":7,\"name\":\"Куртка \\\"Север\\\", зимняя\",\"article\":\"WJ-7\",\"price\":3500,"
+                + "\"weight\":800,\"description\":\"Тёплая\\nс капюшоном\",\"gender\":\"male\",\"rating\":4.5,"
+                + "\"categoryId\":2,\"sizes\":{\"L\":3,\"M\":5},\"totalQuantity\":8}\n";
+        assertEquals(line + line, out.toString());
+    }
+
+    @Test
+    void ndjson_NonFiniteRatingAndControlCharacters_StayValidJson() throws IOException {
+        StringWriter out = new StringWriter();
+        ExportFormat.RowWriter rows = ExportFormat.NDJSON.open(out, jsonMapper);
+        rows.writeRow(new ProductExportRow(9, "Кеды\u0001", "K-9", 1200, null, null, null, Double.NaN, null, Map.of()));
+        rows.flush();
+
+        assertEquals("{\"id\":9,\"name\":\"Кеды\\u0001\",\"article\":\"K-9\",\"price\":1200,\"weight\":null,"
+                + "\"description\":null,\"gender\":null,\"rating\":null,\"categoryId\":null,\"sizes\":{},"
+                + "\"totalQuantity\":0}\n", out.toString());
+        assertEquals(9, jsonMapper.readTree(out.toString()).get("id").asInt());
+    }
+
+    @Test
+    void csv_QuotesOnlyValuesThatNeedIt() throws IOException {
+        StringWriter out = new StringWriter();
+        ExportFormat.RowWriter rows = ExportFormat.CSV.open(out, jsonMapper);
+        rows.writeRow(new ProductExportRow(
+                8, "Кеды", "K-8", 1200, null, null, "unisex", Double.POSITIVE_INFINITY, null, Map.of()));
+        rows.writeRow(row);
+
+        assertEquals("id,name,article,price,weight,description,gender,rating,categoryId,sizes,totalQuantity\r\n"
+                + "8,Кеды,K-8,1200,,,unisex,,,,0\r\n"
+                + "7,\"Куртка \"\"Север\"\", зимняя\",WJ-7,3500,800,\"Тёплая\nс капюшоном\",male,4.5,2,L:3;M:5,8\r\n",
+                out.toString());
+    }
+
+    @Test
+    void fromKey_UnknownFormat_ThrowsBadRequest() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromKey("CSV"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromKey(null));
+        assertThrows(BadRequestException.class, () -> ExportFormat.fromKey("xml"));
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.nirsshop;
+
+import jakarta.persistence.EntityManager;
+import org.example.nirsshop.model.Category;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.repository.CategoryRepository;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.search.FuzzyProductSearch;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение задержки поиска с опечатками и текущего LIKE-запроса по названию.
+ * Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "catalog.index.enabled=false")
+@Transactional
+class FuzzySearchBenchmarkIT {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    private static final String[] KINDS = {"куртка", "пальто", "футболка", "джинсы", "кроссовки", "свитер", "рубашка"};
+    private static final String[] TRAITS = {"зимняя", "кожаная", "спортивная", "классическая", "утепленная", "летняя"};
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private FuzzyProductSearch fuzzyProductSearch;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void fuzzyLookup_ComparedToLikeQuery() {
+        // Arrange
+        Category category = new Category();
+        category.setName("Одежда");
+        Category savedCategory = categoryRepository.save(category);
+
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            String name = KINDS[random.nextInt(KINDS.length)] + " " + TRAITS[random.nextInt(TRAITS.length)] + " " + i;
+            products.add(Product.builder().name(name).article("BENCH-" + i).price(1000 + i).category(savedCategory).build());
+        }
+        productRepository.saveAll(products);
+        entityManager.flush();
+        entityManager.clear();
+        // Данные не коммитятся, поэтому словарь строится явно внутри транзакции
+        fuzzyProductSearch.rebuild();
+
+        // Act
+        double likeMicros = measure(() -> entityManager
+                .createQuery("SELECT p.productId FROM Product p WHERE LOWER(p.name) LIKE :query", Integer.class)
+                .setParameter("query", "%кутрка%")
+                .setMaxResults(100)
+                .getResultList());
+        double fuzzyMicros = measure(() -> fuzzyProductSearch.search("кутрка зимняя", 100));
+
+        // Assert - LIKE не находит опечатку, словарь находит
+        assertTrue(entityManager
+                .createQuery("SELECT p.productId FROM Product p WHERE LOWER(p.name) LIKE '%кутрка%'", Integer.class)
+                .getResultList().isEmpty());
+        assertFalse(fuzzyProductSearch.search("кутрка зимняя", 100).isEmpty());
+        System.out.printf("LIKE: %.1f мкс/запрос, SymSpell: %.1f мкс/запрос (%d товаров)%n",
+                likeMicros, fuzzyMicros, PRODUCTS);
+    }
+
+    private static double measure(Supplier<List<Integer>> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - started) / 1_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.nirsshop;
+
+import jakarta.persistence.EntityManager;
+import org.example.nirsshop.model.*;
+import org.example.nirsshop.repository.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Вставка строк заказа и остатков по одной и пачками по hibernate.jdbc.batch_size.
+ * Пачки возможны только с id из последовательности: при IDENTITY Hibernate вставляет строки по одной.
+ * Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "catalog.index.enabled=false",
+        "catalog.search.index-dir=build/test-search-index",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional
+class InsertBatchingBenchmarkIT {
+
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private ProductStoreSizeRepository productStoreSizeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void orderLinesAndStockRows_BatchedComparedToSingleInserts() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setFullName("Покупатель");
+        customer = customerRepository.save(customer);
+
+        Store store = new Store();
+        store.setAddress("Москва, ул. Ленина, 1");
+        store.setPhone("+79991234567");
+        store = storeRepository.save(store);
+
+        List<Product> products = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            products.add(Product.builder().name("Товар " + i).article("BATCH-" + i).price(100).build());
+        }
+        productRepository.saveAll(products);
+        entityManager.flush();
+
+        // Act
+        Result single = insert(1, customer, store, products);
+        Result batched = insert(50, customer, store, products);
+
+        // Assert
+        assertTrue(batched.statements() < single.statements());
+        System.out.printf("По одной: %d мс, %d запросов; пачками по 50: %d мс, %d запросов (%d строк заказа и %d остатков)%n",
+                single.millis(), single.statements(), batched.millis(), batched.statements(), ROWS, ROWS);
+    }
+
+    private record Result(long millis, long statements) {}
+
+    private Result insert(int batchSize, Customer customer, Store store, List<Product> products) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        long started = System.nanoTime();
+
+        Order order = new Order();
+        order.setOrderDate(LocalDate.now());
+        order.setOrderStatus("Pending");
+        order.setTotalAmount(0);
+        order.setCustomer(customer);
+        orderRepository.save(order);
+
+        List<ProductOrder> lines = new ArrayList<>(products.size());
+        List<ProductStoreSize> stock = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ProductOrder line = new ProductOrder();
+            line.setProduct(product);
+            line.setOrder(order);
+            line.setQuantity(1);
+            lines.add(line);
+            stock.add(ProductStoreSize.builder().product(product).store(store).sizeValue("M").quantity(3).build());
+        }
+        productOrderRepository.saveAll(lines);
+        productStoreSizeRepository.saveAll(stock);
+        entityManager.flush();
+
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        return new Result(millis, statistics.getPrepareStatementCount());
+    }
+}
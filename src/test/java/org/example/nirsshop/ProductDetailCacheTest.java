@@ -0,0 +1,108 @@
+package org.example.nirsshop;
+
+import org.example.nirsshop.cache.ProductDetailCache;
+import org.example.nirsshop.model.dto.ProductCacheStatsDto;
+import org.example.nirsshop.model.dto.ProductDto;
+import org.example.nirsshop.model.dto.VersionedProductDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductDetailCacheTest {
+
+    @Test
+    void get_SecondRead_ServedFromCache() {
+        ProductDetailCache cache = new ProductDetailCache(1_000_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, () -> { loads.incrementAndGet(); return product(1, "Куртка"); });
+        VersionedProductDto cached = cache.get(1, () -> { loads.incrementAndGet(); return product(1, "Другое"); });
+
+        ProductCacheStatsDto stats = cache.stats();
+        assertEquals("Куртка", cached.product().name());
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void invalidate_NextReadLoadsFreshProduct() {
+        ProductDetailCache cache = new ProductDetailCache(1_000_000);
+        cache.get(1, () -> product(1, "Куртка"));
+
+        cache.invalidate(1);
+        VersionedProductDto reloaded = cache.get(1, () -> product(1, "Куртка зимняя"));
+
+        assertEquals("Куртка зимняя", reloaded.product().name());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    void get_InvalidatedWhileLoading_DoesNotCacheStaleProduct() {
+        ProductDetailCache cache = new ProductDetailCache(1_000_000);
+
+        cache.get(1, () -> {
+            cache.invalidate(1); // изменение закоммитили, пока читали старую версию
+            return product(1, "Старое");
+        });
+        VersionedProductDto fresh = cache.get(1, () -> product(1, "Новое"));
+
+        assertEquals("Новое", fresh.product().name());
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void get_ClearedWhileLoadingUncachedProduct_DoesNotCacheStaleProduct() {
+        ProductDetailCache cache = new ProductDetailCache(1_000_000);
+
+        cache.get(1, () -> {
+            cache.clear(); // импорт закоммитили, пока читали карточку, которой ещё не было в кэше
+            return product(1, "Старое");
+        });
+        VersionedProductDto fresh = cache.get(1, () -> product(1, "Новое"));
+
+        assertEquals("Новое", fresh.product().name());
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void get_OverWeightLimit_EvictsLeastRecentlyUsed() {
+        ProductDetailCache cache = new ProductDetailCache(1_000);
+
+        cache.get(1, () -> product(1, "Куртка"));
+        cache.get(2, () -> product(2, "Пальто"));
+        cache.get(1, () -> product(1, "Куртка"));
+        cache.get(3, () -> product(3, "Джинсы"));
+
+        ProductCacheStatsDto stats = cache.stats();
+        assertEquals(2, stats.entries());
+        assertEquals(1, stats.evictions());
+        assertTrue(stats.weightBytes() <= stats.maxWeightBytes());
+        assertEquals("Куртка", cache.get(1, () -> product(1, "Промах")).product().name());
+    }
+
+    @Test
+    void get_CachedEntry_ReturnsVersionTheCardWasBuiltFrom() {
+        ProductDetailCache cache = new ProductDetailCache(1_000_000);
+        cache.get(1, () -> product(1, "Куртка", 3L));
+
+        // Версия в БД уже выросла, но карточка ещё не сброшена - отдаём пару целиком старой
+        VersionedProductDto cached = cache.get(1, () -> product(1, "Куртка зимняя", 4L));
+
+        assertEquals("Куртка", cached.product().name());
+        assertEquals(3L, cached.version());
+    }
+
+    private static VersionedProductDto product(int id, String name) {
+        return product(id, name, 0L);
+    }
+
+    private static VersionedProductDto product(int id, String name, long version) {
+        return new VersionedProductDto(new ProductDto(id, name, "ART-" + id, 1000, null, "Описание товара", "male",
+                4.5, 1, null, List.of(), List.of("M", "L"), 5), version);
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.nirsshop;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.nirsshop.export.ExportFormat;
+import org.example.nirsshop.export.ProductExporter;
+import org.example.nirsshop.model.Category;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.model.ProductStoreSize;
+import org.example.nirsshop.model.Store;
+import org.example.nirsshop.repository.CategoryRepository;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.ProductStoreSizeRepository;
+import org.example.nirsshop.repository.StoreRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Выгрузка читает каталог в своей StatelessSession, поэтому данные теста коммитятся и удаляются после него
+@SpringBootTest(properties = {
+        "catalog.index.enabled=false",
+        "catalog.search.index-dir=build/test-search-index"
+})
+class ProductExporterIT {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private ProductStoreSizeRepository productStoreSizeRepository;
+
+    private Category category;
+    private final List<Store> stores = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+    private final List<ProductStoreSize> sizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("Выгрузка");
+        category = categoryRepository.save(category);
+
+        stores.add(store("Москва, ул. Выгрузки, 1"));
+        stores.add(store("Москва, ул. Выгрузки, 2"));
+
+        products.add(productRepository.save(Product.builder()
+                .name("Парка").article("EXP-001").price(9000).category(category).build()));
+        products.add(productRepository.save(Product.builder()
+                .name("Ветровка").article("EXP-002").price(4000).build()));
+        products.add(productRepository.save(Product.builder()
+                .name("Пуховик").article("EXP-003").price(12000).category(category).build()));
+
+        // Размер M первого товара есть в двух магазинах - в выгрузке количества суммируются
+        sizes.add(size(products.get(0), stores.get(0), "M", 2));
+        sizes.add(size(products.get(0), stores.get(1), "M", 3));
+        sizes.add(size(products.get(0), stores.get(1), "L", 1));
+        sizes.add(size(products.get(2), stores.get(0), "S", 4));
+        productStoreSizeRepository.saveAll(sizes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productStoreSizeRepository.deleteAll(sizes);
+        productRepository.deleteAll(products);
+        storeRepository.deleteAll(stores);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void export_Ndjson_JoinsSizesPerWindowAndFlushesEachChunk() throws IOException {
+        // Arrange - окно из двух товаров, поэтому три товара теста попадают минимум в два окна
+        ProductExporter exporter = new ProductExporter(entityManagerFactory, jsonMapper, CHUNK_SIZE);
+        FlushRecordingStream output = new FlushRecordingStream();
+
+        // Act
+        exporter.export(ExportFormat.NDJSON, output);
+
+        // Assert - остатки каждого товара взяты из его окна
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        List<JsonNode> exported = Arrays.stream(lines)
+                .map(jsonMapper::readTree)
+                .filter(node -> node.get("article").asString().startsWith("EXP-"))
+                .toList();
+        assertEquals(List.of("EXP-001", "EXP-002", "EXP-003"),
+                exported.stream().map(node -> node.get("article").asString()).toList());
+        assertEquals(5, exported.get(0).get("sizes").get("M").asLong());
+        assertEquals(1, exported.get(0).get("sizes").get("L").asLong());
+        assertEquals(6, exported.get(0).get("totalQuantity").asLong());
+        assertTrue(exported.get(1).get("sizes").isEmpty());
+        assertTrue(exported.get(1).get("categoryId").isNull());
+        assertEquals(4, exported.get(2).get("sizes").get("S").asLong());
+
+        // Assert - поток сбрасывается после каждого окна, между сбросами не больше CHUNK_SIZE строк
+        assertTrue(output.flushedSizes.size() >= (lines.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        byte[] bytes = output.toByteArray();
+        int previous = 0;
+        for (int flushed : output.flushedSizes) {
+            long rows = 0;
+            for (int i = previous; i < flushed; i++) {
+                if (bytes[i] == '\n') rows++;
+            }
+            assertTrue(rows <= CHUNK_SIZE, "rows between flushes: " + rows);
+            previous = flushed;
+        }
+        assertEquals(bytes.length, previous);
+    }
+
+    private Store store(String address) {
+        Store store = new Store();
+        store.setAddress(address);
+        store.setPhone("+79990000000");
+        return storeRepository.save(store);
+    }
+
+    private static ProductStoreSize size(Product product, Store store, String sizeValue, int quantity) {
+        ProductStoreSize size = new ProductStoreSize();
+        size.setProduct(product);
+        size.setStore(store);
+        size.setSizeValue(sizeValue);
+        size.setQuantity(quantity);
+        return size;
+    }
+
+    // Запоминает, сколько байт было записано к каждому flush()
+    private static class FlushRecordingStream extends ByteArrayOutputStream {
+        private final List<Integer> flushedSizes = new ArrayList<>();
+
+        @Override
+        public void flush() {
+            flushedSizes.add(size());
+        }
+    }
+}
@@ -135,6 +135,20 @@ class ProductImageServiceImplIT {
         assertEquals("https://example.com/first.jpg", result.imageUrl());
     }
 
+    @Test
+    void create_BumpsProductVersion() {
+        // Arrange
+        Long before = productRepository.findVersionById(product.getProductId()).orElseThrow();
+        ProductImageCreateDto createDto = new ProductImageCreateDto(
+                product.getProductId(), "https://example.com/v.jpg", false, 0);
+
+        // Act
+        productImageService.create(createDto);
+
+        // Assert - ETag карточки и списка картинок должен смениться
+        assertEquals(before + 1, productRepository.findVersionById(product.getProductId()).orElseThrow());
+    }
+
     @Test
     void create_WithPrimaryTrue_SetsAsPrimaryAndRemovesOtherPrimary() {
         // Arrange
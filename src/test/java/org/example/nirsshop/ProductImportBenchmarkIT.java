@@ -0,0 +1,84 @@
+package org.example.nirsshop;
+
+import jakarta.persistence.EntityManager;
+import org.example.nirsshop.export.ExportFormat;
+import org.example.nirsshop.importer.ProductImporter;
+import org.example.nirsshop.model.Category;
+import org.example.nirsshop.model.createdto.ProductCreateDto;
+import org.example.nirsshop.model.dto.ProductImportResultDto;
+import org.example.nirsshop.repository.CategoryRepository;
+import org.example.nirsshop.service.ProductService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Скорость массового импорта по сравнению с созданием товаров по одному через ProductService.create.
+ * Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "catalog.index.enabled=false",
+        "catalog.search.index-dir=build/test-search-index"
+})
+@Transactional
+class ProductImportBenchmarkIT {
+
+    private static final int SINGLE_ROWS = 2_000;
+    private static final int IMPORT_ROWS = 100_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductImporter productImporter;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void bulkImport_ComparedToSingleCreates() throws Exception {
+        // Arrange
+        Category category = new Category();
+        category.setName("Одежда");
+        Integer categoryId = categoryRepository.save(category).getCategoryId();
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < IMPORT_ROWS; i++) {
+            ndjson.append("{\"name\":\"Футболка ").append(i)
+                    .append("\",\"article\":\"BULK-").append(i)
+                    .append("\",\"price\":").append(500 + i % 1000)
+                    .append(",\"categoryId\":").append(categoryId).append("}\n");
+        }
+        byte[] file = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        long started = System.nanoTime();
+        for (int i = 0; i < SINGLE_ROWS; i++) {
+            productService.create(new ProductCreateDto(
+                    "Футболка " + i, "SINGLE-" + i, 500, null, null, null, categoryId, null));
+        }
+        entityManager.flush();
+        double singleRate = SINGLE_ROWS / ((System.nanoTime() - started) / 1e9);
+
+        started = System.nanoTime();
+        ProductImportResultDto result = productImporter.importProducts(ExportFormat.NDJSON, new ByteArrayInputStream(file));
+        double importRate = IMPORT_ROWS / ((System.nanoTime() - started) / 1e9);
+
+        // Assert
+        assertEquals(IMPORT_ROWS, result.inserted());
+        assertEquals(0, result.failed());
+        System.out.printf("ProductService.create: %.0f строк/с, импорт: %.0f строк/с (в %.0f раз быстрее)%n",
+                singleRate, importRate, importRate / singleRate);
+    }
+}
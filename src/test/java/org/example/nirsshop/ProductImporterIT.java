@@ -0,0 +1,197 @@
+package org.example.nirsshop;
+
+import jakarta.persistence.EntityManager;
+import org.example.nirsshop.event.ProductsImportedEvent;
+import org.example.nirsshop.export.ExportFormat;
+import org.example.nirsshop.importer.ProductImporter;
+import org.example.nirsshop.model.Category;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.model.dto.ProductImportErrorDto;
+import org.example.nirsshop.model.dto.ProductImportResultDto;
+import org.example.nirsshop.repository.CategoryRepository;
+import org.example.nirsshop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Пачки импорта становятся точками сохранения в транзакции теста и откатываются вместе с ней
+@SpringBootTest(properties = {
+        "catalog.index.enabled=false",
+        "catalog.search.index-dir=build/test-search-index",
+        "catalog.import.batch-size=2"
+})
+@Transactional
+@RecordApplicationEvents
+class ProductImporterIT {
+
+    @Autowired
+    private ProductImporter productImporter;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    private Category category;
+    private Product existing;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("Обувь");
+        category = categoryRepository.save(category);
+
+        existing = productRepository.saveAndFlush(Product.builder()
+                .name("Кеды").article("IMP-001").price(1500).category(category).build());
+    }
+
+    @Test
+    void importProducts_Csv_InsertsNewAndUpdatesByArticle() throws IOException {
+        // Arrange - заголовок выгрузки, описание в кавычках на двух строках
+        String csv = "id,name,article,price,weight,description,gender,rating,categoryId,sizes,totalQuantity\r\n"
+                + ",Кеды высокие,IMP-001,1700,,,unisex,4.2," + category.getCategoryId() + ",,\r\n"
+                + ",\"Ботинки, зимние\",IMP-002,5200,900,\"Мех\nвнутри\",male,," + category.getCategoryId() + ",,\r\n"
+                + ",Сандалии,IMP-003,900,,,,,,,\r\n";
+
+        // Act
+        ProductImportResultDto result = productImporter.importProducts(ExportFormat.CSV, stream(csv));
+        entityManager.clear();
+
+        // Assert
+        assertEquals(3, result.processed());
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(0, result.failed());
+        Product updated = productRepository.findById(existing.getProductId()).orElseThrow();
+        assertEquals("Кеды высокие", updated.getName());
+        assertEquals(1700, updated.getPrice());
+        assertEquals(existing.getVersion() + 1, updated.getVersion());
+        Product boots = productRepository.findAll().stream()
+                .filter(product -> "IMP-002".equals(product.getArticle()))
+                .findFirst().orElseThrow();
+        assertEquals("Ботинки, зимние", boots.getName());
+        assertEquals("Мех\nвнутри", boots.getDescription());
+    }
+
+    @Test
+    void importProducts_Ndjson_ReportsInvalidRowsAndImportsTheRest() throws IOException {
+        // Arrange
+        String ndjson = String.join("\n",
+                "{\"name\":\"Лоферы\",\"article\":\"IMP-010\",\"price\":3100,\"categoryId\":" + category.getCategoryId() + "}",
+                "{\"name\":\"Без цены\",\"article\":\"IMP-011\"}",
+                "не json",
+                "",
+                "{\"name\":\"Мокасины\",\"article\":\"IMP-012\",\"price\":2800,\"categoryId\":999999}",
+                "{\"name\":\"Лоферы замшевые\",\"article\":\"IMP-010\",\"price\":3300}");
+
+        // Act
+        ProductImportResultDto result = productImporter.importProducts(ExportFormat.NDJSON, stream(ndjson));
+        entityManager.clear();
+
+        // Assert - повтор артикула в файле применяется после первой строки
+        assertEquals(5, result.processed());
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(3, result.failed());
+        assertEquals(List.of(2L, 3L, 5L), result.errors().stream().map(ProductImportErrorDto::line).toList());
+        assertEquals("Category not found: 999999", result.errors().get(2).message());
+        Product loafers = productRepository.findAll().stream()
+                .filter(product -> "IMP-010".equals(product.getArticle()))
+                .findFirst().orElseThrow();
+        assertEquals("Лоферы замшевые", loafers.getName());
+    }
+
+    @Test
+    void importProducts_NewRows_TakeConsecutiveIdsFromSequenceBlock() throws IOException {
+        // Arrange - три новых товара в двух пачках и обновление существующего
+        String ndjson = String.join("\n",
+                "{\"name\":\"Слипоны\",\"article\":\"IMP-020\",\"price\":2100}",
+                "{\"name\":\"Кеды\",\"article\":\"IMP-001\",\"price\":1600}",
+                "{\"name\":\"Эспадрильи\",\"article\":\"IMP-021\",\"price\":2300}",
+                "{\"name\":\"Мюли\",\"article\":\"IMP-022\",\"price\":2500}");
+
+        // Act
+        ProductImportResultDto result = productImporter.importProducts(ExportFormat.NDJSON, stream(ndjson));
+        entityManager.clear();
+
+        // Assert - новые id идут подряд, существующий товар id не меняет
+        assertEquals(3, result.inserted());
+        List<Integer> ids = productRepository.findAll().stream()
+                .filter(product -> List.of("IMP-020", "IMP-021", "IMP-022").contains(product.getArticle()))
+                .map(Product::getProductId)
+                .sorted()
+                .toList();
+        assertEquals(3, ids.size());
+        assertEquals(ids.get(0) + 2, ids.get(2));
+        assertEquals(existing.getProductId(), productRepository.findByArticle("IMP-001").orElseThrow().getProductId());
+    }
+
+    @Test
+    void importProducts_RowFailsInsideBatch_RetriesRowByRowAndKeepsTheRest() throws IOException {
+        // Arrange - символ NUL проходит проверки, но PostgreSQL не принимает его в тексте
+        String ndjson = String.join("\n",
+                "{\"name\":\"Броги\",\"article\":\"IMP-030\",\"price\":4100}",
+                "{\"name\":\"Оксфорды\\u0000\",\"article\":\"IMP-031\",\"price\":4500}",
+                "{\"name\":\"Дерби\",\"article\":\"IMP-032\",\"price\":3900}");
+
+        // Act
+        ProductImportResultDto result = productImporter.importProducts(ExportFormat.NDJSON, stream(ndjson));
+        entityManager.clear();
+
+        // Assert - из упавшей пачки записана только исправная строка, следующая пачка не пострадала
+        assertEquals(3, result.processed());
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.failed());
+        assertEquals(2L, result.errors().get(0).line());
+        assertEquals("IMP-031", result.errors().get(0).article());
+        assertTrue(productRepository.findByArticle("IMP-030").isPresent());
+        assertTrue(productRepository.findByArticle("IMP-031").isEmpty());
+        assertTrue(productRepository.findByArticle("IMP-032").isPresent());
+    }
+
+    @Test
+    void importProducts_ReadFailsAfterCommittedBatch_StillPublishesImportedEvent() {
+        // Arrange - первая пачка из двух строк, затем поток обрывается
+        String csv = "id,name,article,price,weight,description,gender,rating,categoryId,sizes,totalQuantity\r\n"
+                + ",Челси,IMP-040,6100,,,,,,,\r\n"
+                + ",Дезерты,IMP-041,5900,,,,,,,\r\n";
+        InputStream broken = new SequenceInputStream(stream(csv), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        // Act
+        assertThrows(IOException.class, () -> productImporter.importProducts(ExportFormat.CSV, broken));
+
+        // Assert
+        List<ProductsImportedEvent> events = applicationEvents.stream(ProductsImportedEvent.class).toList();
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).inserted());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
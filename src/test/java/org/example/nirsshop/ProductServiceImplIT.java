@@ -1,14 +1,31 @@
 package org.example.nirsshop;
 
 import jakarta.persistence.EntityManager;
+import org.example.nirsshop.event.CategoryRenamedEvent;
+import org.example.nirsshop.exception.BadRequestException;
 import org.example.nirsshop.exception.NotFoundException;
 import org.example.nirsshop.model.*;
+import org.example.nirsshop.model.createdto.CategoryCreateDto;
 import org.example.nirsshop.model.createdto.ProductCreateDto;
+import org.example.nirsshop.model.dto.CursorPageDto;
+import org.example.nirsshop.model.dto.ProductBatchDto;
+import org.example.nirsshop.model.dto.ProductFacetsDto;
 import org.example.nirsshop.model.dto.PopularProductDto;
 import org.example.nirsshop.model.dto.ProductDto;
+import org.example.nirsshop.model.dto.ProductSearchPageDto;
+import org.example.nirsshop.model.dto.SliceDto;
 import org.example.nirsshop.model.dto.StoreDto;
+import org.example.nirsshop.pagination.ProductSort;
+import org.example.nirsshop.projection.ProductField;
 import org.example.nirsshop.repository.*;
+import org.example.nirsshop.search.FuzzyProductSearch;
+import org.example.nirsshop.versioning.ProductETags;
+import org.example.nirsshop.search.ProductSearchEngine;
+import org.example.nirsshop.service.CategoryService;
+import org.example.nirsshop.service.ProductFacetService;
 import org.example.nirsshop.service.ProductService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,16 +38,29 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+// Данные тестов откатываются и не доходят до индекса каталога, поэтому фильтры проверяются по SQL-пути
+@SpringBootTest(properties = {
+        "catalog.index.enabled=false",
+        "catalog.search.index-dir=build/test-search-index",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
 @Transactional
 class ProductServiceImplIT {
 
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductFacetService productFacetService;
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -52,6 +82,12 @@ class ProductServiceImplIT {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ProductSearchEngine productSearchEngine;
+
+    @Autowired
+    private FuzzyProductSearch fuzzyProductSearch;
+
     private Category category;
     private Product product1;
     private Product product2;
@@ -74,9 +110,6 @@ class ProductServiceImplIT {
     @Autowired
     private ProductStoreSizeRepository productStoreSizeRepository;
 
-    @Autowired
-    private StoreRepository storeRepository;
-
     @Test
     void getQuantityInStore_ExistingProductAndStore_ReturnsCorrectQuantity() {
         // Arrange
@@ -85,7 +118,7 @@ class ProductServiceImplIT {
 
         Store store = new Store();
         store.setAddress("Москва, ул. Ленина, 1");
-        store.setPhoneNumber("+79991234567");
+        store.setPhone("+79991234567");
         Store savedStore = storeRepository.save(store);
 
         ProductStoreSize size1 = new ProductStoreSize();
@@ -117,7 +150,7 @@ class ProductServiceImplIT {
 
         Store store = new Store();
         store.setAddress("Санкт-Петербург, Невский пр., 10");
-        store.setPhoneNumber("+79991234568");
+        store.setPhone("+79991234568");
         Store savedStore = storeRepository.save(store);
 
         // Act
@@ -135,7 +168,7 @@ class ProductServiceImplIT {
 
         Store store = new Store();
         store.setAddress("Казань, ул. Баумана, 5");
-        store.setPhoneNumber("+79991234569");
+        store.setPhone("+79991234569");
         Store savedStore = storeRepository.save(store);
 
         ProductStoreSize size = new ProductStoreSize();
@@ -160,7 +193,7 @@ class ProductServiceImplIT {
 
         Store store = new Store();
         store.setAddress("Новосибирск, пр. Ленина, 20");
-        store.setPhoneNumber("+79991234570");
+        store.setPhone("+79991234570");
         Store savedStore = storeRepository.save(store);
 
         // Act
@@ -170,52 +203,6 @@ class ProductServiceImplIT {
         assertFalse(inStock);
     }
 
-    @Test
-    void searchByName_PartialMatch_ReturnsMatchingProducts() {
-        // Arrange
-        Product product1 = createProduct("Куртка кожаная", "ART-200", 8000);
-        Product product2 = createProduct("Куртка зимняя", "ART-201", 6000);
-        Product product3 = createProduct("Пальто зимнее", "ART-202", 10000);
-        productRepository.saveAll(List.of(product1, product2, product3));
-
-        // Act - ищем по неполному слову "куртк"
-        List<ProductDto> results = productService.searchByName("куртк");
-
-        // Assert
-        assertEquals(2, results.size());
-        assertTrue(results.stream().allMatch(p -> p.name().toLowerCase().contains("куртк")));
-        assertTrue(results.stream().anyMatch(p -> p.name().equals("Куртка кожаная")));
-        assertTrue(results.stream().anyMatch(p -> p.name().equals("Куртка зимняя")));
-        assertFalse(results.stream().anyMatch(p -> p.name().equals("Пальто зимнее")));
-    }
-
-    @Test
-    void searchByName_CaseInsensitive_ReturnsMatchingProducts() {
-        // Arrange
-        Product product = createProduct("ФУТБОЛКА Спортивная", "ART-203", 1500);
-        productRepository.save(product);
-
-        // Act - ищем в нижнем регистре
-        List<ProductDto> results = productService.searchByName("футбол");
-
-        // Assert
-        assertFalse(results.isEmpty());
-        assertTrue(results.stream().anyMatch(p -> p.name().toLowerCase().contains("футбол")));
-    }
-
-    @Test
-    void searchByName_NoMatches_ReturnsEmptyList() {
-        // Arrange
-        Product product = createProduct("Джинсы", "ART-204", 3000);
-        productRepository.save(product);
-
-        // Act
-        List<ProductDto> results = productService.searchByName("кроссовки");
-
-        // Assert
-        assertTrue(results.isEmpty());
-    }
-
     @Test
     void getAvailableSizes_MultipleSizes_ReturnsDistinctSortedSizes() {
         // Arrange
@@ -224,7 +211,7 @@ class ProductServiceImplIT {
 
         Store store = new Store();
         store.setAddress("Екатеринбург, ул. 8 Марта, 15");
-        store.setPhoneNumber("+79991234571");
+        store.setPhone("+79991234571");
         Store savedStore = storeRepository.save(store);
 
         ProductStoreSize size1 = new ProductStoreSize();
@@ -257,4 +244,524 @@ class ProductServiceImplIT {
         assertEquals("50", sizes.get(2));
     }
 
+    @Test
+    void findByFilters_Page_MapsSizesAndQuantitiesPerProduct() {
+        // Arrange
+        Store store = new Store();
+        store.setAddress("Москва, ул. Тверская, 3");
+        store.setPhone("+79991234572");
+        Store savedStore = storeRepository.save(store);
+
+        ProductStoreSize size1 = new ProductStoreSize();
+        size1.setProduct(product1);
+        size1.setStore(savedStore);
+        size1.setSizeValue("M");
+        size1.setQuantity(4);
+
+        ProductStoreSize size2 = new ProductStoreSize();
+        size2.setProduct(product1);
+        size2.setStore(savedStore);
+        size2.setSizeValue("L");
+        size2.setQuantity(6);
+
+        ProductStoreSize size3 = new ProductStoreSize();
+        size3.setProduct(product2);
+        size3.setStore(savedStore);
+        size3.setSizeValue("32");
+        size3.setQuantity(2);
+
+        productStoreSizeRepository.saveAll(List.of(size1, size2, size3));
+
+        // Act
+        Page<ProductDto> page = productService.findByFilters(
+                null, null, null, null, null, null, null, null, null, PageRequest.of(0, 20));
+
+        // Assert
+        ProductDto tShirt = page.getContent().stream()
+                .filter(p -> p.id().equals(product1.getProductId()))
+                .findFirst()
+                .orElseThrow();
+        ProductDto jeans = page.getContent().stream()
+                .filter(p -> p.id().equals(product2.getProductId()))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(List.of("L", "M"), tShirt.availableSizes());
+        assertEquals(10, tShirt.totalQuantity());
+        assertEquals(List.of("32"), jeans.availableSizes());
+        assertEquals(2, jeans.totalQuantity());
+    }
+
+    @Test
+    void findByFiltersAfter_WalksAllPagesByCursor() {
+        // Arrange
+        productRepository.save(Product.builder().name("Шорты").article("ART-400").price(1200).build());
+
+        // Act
+        CursorPageDto<ProductDto> first = productService.findByFiltersAfter(
+                null, null, null, null, null, null, null, null, null, ProductSort.ID, "", 2);
+        CursorPageDto<ProductDto> second = productService.findByFiltersAfter(
+                null, null, null, null, null, null, null, null, null, ProductSort.ID, first.nextCursor(), 2);
+
+        // Assert
+        assertEquals(2, first.content().size());
+        assertTrue(first.hasNext());
+        assertNotNull(first.nextCursor());
+        assertTrue(second.content().get(0).id() > first.content().get(1).id());
+    }
+
+    @Test
+    void findByFiltersAfter_InvalidCursor_ThrowsBadRequest() {
+        assertThrows(BadRequestException.class, () -> productService.findByFiltersAfter(
+                null, null, null, null, null, null, null, null, null, ProductSort.ID, "не-курсор", 20));
+    }
+
+    @Test
+    void findSliceByFilters_ReportsNextPageWithoutTotal() {
+        // Act
+        SliceDto<ProductDto> first = productService.findSliceByFilters(
+                null, null, null, null, null, null, null, null, null, PageRequest.of(0, 1));
+        SliceDto<ProductDto> last = productService.findSliceByFilters(
+                null, null, null, null, null, null, null, null, null, PageRequest.of(0, 100));
+
+        // Assert
+        assertEquals(1, first.content().size());
+        assertTrue(first.hasNext());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void findByFiltersAfter_SortByPriceDesc_ContinuesFromCursorValue() {
+        // Arrange
+        productRepository.save(Product.builder().name("Пальто").article("ART-401").price(9000).build());
+        productRepository.save(Product.builder().name("Носки").article("ART-402").price(300).build());
+
+        // Act
+        CursorPageDto<ProductDto> first = productService.findByFiltersAfter(
+                null, null, null, null, null, null, null, null, null, ProductSort.PRICE_DESC, "", 2);
+        CursorPageDto<ProductDto> rest = productService.findByFiltersAfter(
+                null, null, null, null, null, null, null, null, null, ProductSort.PRICE_DESC, first.nextCursor(), 10);
+
+        // Assert
+        assertEquals(9000, first.content().get(0).price());
+        assertEquals(2000, first.content().get(1).price());
+        assertEquals(List.of(1000, 300), rest.content().stream().map(ProductDto::price).toList());
+        assertFalse(rest.hasNext());
+    }
+
+    @Test
+    void findByFilters_SizeAndInStock_MatchOnSameStockRowWithoutDuplicates() {
+        // Arrange
+        Store store = new Store();
+        store.setAddress("Москва, ул. Арбат, 7");
+        store.setPhone("+79991234573");
+        Store savedStore = storeRepository.save(store);
+
+        ProductStoreSize soldOut = new ProductStoreSize();
+        soldOut.setProduct(product1);
+        soldOut.setStore(savedStore);
+        soldOut.setSizeValue("M");
+        soldOut.setQuantity(0);
+
+        ProductStoreSize available = new ProductStoreSize();
+        available.setProduct(product1);
+        available.setStore(savedStore);
+        available.setSizeValue("L");
+        available.setQuantity(5);
+
+        ProductStoreSize availableXl = new ProductStoreSize();
+        availableXl.setProduct(product1);
+        availableXl.setStore(savedStore);
+        availableXl.setSizeValue("XL");
+        availableXl.setQuantity(3);
+
+        productStoreSizeRepository.saveAll(List.of(soldOut, available, availableXl));
+
+        // Act
+        Page<ProductDto> soldOutSize = productService.findByFilters(
+                null, null, null, null, List.of("M"), null, true, null, null, PageRequest.of(0, 20));
+        Page<ProductDto> availableSizes = productService.findByFilters(
+                null, null, null, null, List.of("L", "XL"), null, true, savedStore.getStoreId(), null, PageRequest.of(0, 20));
+
+        // Assert
+        assertTrue(soldOutSize.isEmpty());
+        assertEquals(1, availableSizes.getTotalElements());
+        assertEquals(product1.getProductId(), availableSizes.getContent().get(0).id());
+    }
+
+    @Test
+    void findByFilters_SearchWithLikeWildcards_MatchesThemLiterally() {
+        // Arrange - полнотекстовая часть делит "sku_7" и "sku%7" на слова sku и 7, а "SKUX7" остаётся
+        // одним словом, поэтому найти его мог бы только неэкранированный LIKE
+        Product underscore = productRepository.save(createProduct("Носки", "SKU_7", 300));
+        Product lookalike = productRepository.save(createProduct("Гольфы", "SKUX7", 400));
+        Product percent = productRepository.save(createProduct("Гетры", "SKU%7", 500));
+
+        // Act
+        List<Integer> byUnderscore = productService.findByFilters(
+                null, null, null, null, null, "sku_7", null, null, null, PageRequest.of(0, 20))
+                .getContent().stream().map(ProductDto::id).toList();
+        List<Integer> byPercent = productService.findByFilters(
+                null, null, null, null, null, "sku%7", null, null, null, PageRequest.of(0, 20))
+                .getContent().stream().map(ProductDto::id).toList();
+
+        // Assert
+        assertTrue(byUnderscore.contains(underscore.getProductId()));
+        assertFalse(byUnderscore.contains(lookalike.getProductId()));
+        assertTrue(byPercent.contains(percent.getProductId()));
+        assertFalse(byPercent.contains(lookalike.getProductId()));
+    }
+
+    @Test
+    void searchPage_MatchesWordFormsAcrossFieldsAndHighlights() throws Exception {
+        // Arrange
+        Product jacket = productRepository.save(Product.builder()
+                .name("Куртка кожаная").article("ART-501").price(8000).category(category)
+                .description("Тёплая куртка на осень").build());
+        productRepository.save(Product.builder()
+                .name("Пальто").article("ART-502").price(9000).category(category)
+                .description("Подходит под кожаную куртку").build());
+        // Изменения теста не коммитятся, поэтому индекс строится явно внутри транзакции
+        productSearchEngine.rebuild();
+
+        // Act - другая словоформа
+        ProductSearchPageDto page = productService.searchPage("куртки", 0, 1);
+        ProductSearchPageDto second = productService.searchPage("куртки", 1, 1);
+
+        // Assert - совпадение в названии выше совпадения только в описании
+        assertEquals(2, page.totalHits());
+        assertEquals(jacket.getProductId(), page.content().get(0).product().id());
+        assertTrue(page.content().get(0).highlights().get("name").contains("<em>Куртка</em>"));
+        assertEquals("Пальто", second.content().get(0).product().name());
+    }
+
+    @Test
+    void searchPage_LatinTransliterationAndSynonym_FindRussianName() throws Exception {
+        // Arrange
+        Product hoodie = productRepository.save(Product.builder()
+                .name("Толстовка хлопковая").article("ART-503").price(4000).build());
+        productSearchEngine.rebuild();
+
+        // Act
+        ProductSearchPageDto byGost = productService.searchPage("tolstovka khlopkovaya", 0, 20);
+        ProductSearchPageDto byInformal = productService.searchPage("hlopkovaia", 0, 20);
+        ProductSearchPageDto bySynonym = productService.searchPage("худи", 0, 20);
+
+        // Assert
+        assertEquals(hoodie.getProductId(), byGost.content().get(0).product().id());
+        assertEquals(hoodie.getProductId(), byInformal.content().get(0).product().id());
+        assertEquals(hoodie.getProductId(), bySynonym.content().get(0).product().id());
+    }
+
+    @Test
+    void searchPage_Highlights_EscapeProductText() throws Exception {
+        // Arrange
+        productRepository.save(Product.builder()
+                .name("Куртка <script>").article("ART-505").price(7000).build());
+        productSearchEngine.rebuild();
+
+        // Act
+        ProductSearchPageDto page = productService.searchPage("куртка", 0, 20);
+
+        // Assert - в HTML остаются только теги подсветки
+        String highlighted = page.content().get(0).highlights().get("name");
+        assertTrue(highlighted.contains("<em>Куртка</em>"));
+        assertTrue(highlighted.contains("&lt;script&gt;"));
+        assertFalse(highlighted.contains("<script>"));
+    }
+
+    @Test
+    void searchPage_BlankQuery_ThrowsBadRequest() {
+        assertThrows(BadRequestException.class, () -> productService.searchPage("  ", 0, 20));
+    }
+
+    @Test
+    void searchPage_PageSizeOrDepthOverLimit_ThrowsBadRequest() {
+        // Страница за пределами catalog.search.max-depth и переполнение page * pageSize отклоняются до поиска
+        assertThrows(BadRequestException.class, () -> productService.searchPage("куртка", 0, 101));
+        assertThrows(BadRequestException.class, () -> productService.searchPage("куртка", 10, 100));
+        assertThrows(BadRequestException.class, () -> productService.searchPage("куртка", Integer.MAX_VALUE, 100));
+    }
+
+    @Test
+    void searchPage_CategoryRenamed_ReindexesItsProducts() throws Exception {
+        // Arrange
+        Product parka = productRepository.save(Product.builder()
+                .name("Парка утеплённая").article("ART-504").price(11000).category(category).build());
+        productSearchEngine.rebuild();
+
+        // Act - событие после коммита в тесте не наступит, поэтому слушатель вызывается явно
+        categoryService.update(category.getCategoryId(), new CategoryCreateDto("Верхняя одежда", null));
+        productSearchEngine.onCategoryRenamed(new CategoryRenamedEvent(category.getCategoryId()));
+
+        // Assert
+        assertEquals(parka.getProductId(), productService.searchPage("верхняя одежда", 0, 20).content().get(0).product().id());
+        assertEquals(0, productService.searchPage("clothing", 0, 20).totalHits());
+    }
+
+    @Test
+    void fuzzySearchByName_Misspelling_FindsClosestProductsFirst() {
+        // Arrange
+        productRepository.save(Product.builder().name("Куртка зимняя").article("ART-601").price(6000).build());
+        productRepository.save(Product.builder().name("Куртка кожаная").article("ART-602").price(8000).build());
+        fuzzyProductSearch.rebuild();
+
+        // Act - перестановка букв и пропущенная буква
+        List<ProductDto> results = productService.fuzzySearchByName("кутрка зимня");
+
+        // Assert
+        assertEquals(1, results.size());
+        assertEquals("Куртка зимняя", results.get(0).name());
+        assertEquals(2, productService.fuzzySearchByName("кутрка").size());
+        assertTrue(productService.fuzzySearchByName("шарф").isEmpty());
+    }
+
+    @Test
+    void fuzzySearchByName_CategoryRenamed_MatchesNewCategoryWords() {
+        // Arrange
+        Product parka = productRepository.save(Product.builder()
+                .name("Парка утеплённая").article("ART-603").price(11000).category(category).build());
+        fuzzyProductSearch.rebuild();
+
+        // Act - событие после коммита в тесте не наступит, поэтому слушатель вызывается явно
+        categoryService.update(category.getCategoryId(), new CategoryCreateDto("Верхняя одежда", null));
+        fuzzyProductSearch.onCategoryRenamed(new CategoryRenamedEvent(category.getCategoryId()));
+
+        // Assert
+        assertTrue(productService.fuzzySearchByName("парка верхняя").stream()
+                .anyMatch(product -> product.id().equals(parka.getProductId())));
+        assertTrue(productService.fuzzySearchByName("парка clothing").isEmpty());
+    }
+
+    @Test
+    void update_BumpsProductVersionAndCatalogValidator() {
+        // Arrange
+        String catalogBefore = ProductETags.catalog(productService.getCatalogVersion());
+        Long versionBefore = productService.getVersion(product1.getProductId());
+        ProductCreateDto updateDto = new ProductCreateDto(
+                "T-Shirt v2", "ART-001", 1100, 200, "desc", "male", category.getCategoryId(), 4.5);
+
+        // Act
+        productService.update(product1.getProductId(), updateDto);
+        entityManager.flush();
+
+        // Assert
+        assertEquals(versionBefore + 1, productService.getVersion(product1.getProductId()));
+        assertNotEquals(catalogBefore, ProductETags.catalog(productService.getCatalogVersion()));
+        assertThrows(NotFoundException.class, () -> productService.getVersion(999999));
+    }
+
+    @Test
+    void deleteCategory_BumpsVersionsOfItsProductsAndCatalog() {
+        // Arrange
+        long catalogBefore = productService.getCatalogVersion();
+        Long versionBefore = productService.getVersion(product1.getProductId());
+
+        // Act - БД обнулит category_id товаров сама, в обход сущностей
+        categoryService.delete(category.getCategoryId());
+        entityManager.flush();
+
+        // Assert
+        assertEquals(versionBefore + 1, productService.getVersion(product1.getProductId()));
+        assertNotEquals(catalogBefore, productService.getCatalogVersion());
+    }
+
+    @Test
+    void findByFilters_Page_LoadsInBoundedNumberOfQueries() {
+        // Arrange - у каждого товара категория и по две картинки
+        for (int i = 0; i < 10; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Товар " + i).article("ART-70" + i).price(100 + i).category(category).build());
+            for (int order = 0; order < 2; order++) {
+                ProductImage image = new ProductImage();
+                image.setProduct(product);
+                image.setImageUrl("https://example.com/" + i + "-" + order + ".jpg");
+                image.setIsPrimary(order == 0);
+                image.setDisplayOrder(order);
+                entityManager.persist(image);
+            }
+        }
+        Statistics statistics = startCountingQueries();
+
+        // Act
+        Page<ProductDto> page = productService.findByFilters(
+                null, null, null, null, null, null, null, null, null, PageRequest.of(0, 5));
+
+        // Assert - страница, COUNT, картинки и остатки страницы; без запросов на каждый товар
+        assertEquals(5, page.getContent().size());
+        assertEquals(2, page.getContent().get(0).images().size());
+        assertEquals(category.getCategoryId(), page.getContent().get(0).categoryId());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findById_DetailGraph_LoadsProductWithImagesInOneQuery() {
+        // Arrange
+        ProductImage image = new ProductImage();
+        image.setProduct(product1);
+        image.setImageUrl("https://example.com/detail.jpg");
+        image.setIsPrimary(true);
+        image.setDisplayOrder(0);
+        entityManager.persist(image);
+        Statistics statistics = startCountingQueries();
+
+        // Act
+        ProductDto product = productService.findById(product1.getProductId());
+
+        // Assert - товар с картинками и остатки по размерам
+        assertEquals("https://example.com/detail.jpg", product.primaryImageUrl());
+        assertEquals(category.getCategoryId(), product.categoryId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findProjectedByFilters_Summary_SelectsColumnsWithoutLoadingEntities() {
+        // Arrange - у product1 главная вторая картинка, у product2 главной нет
+        for (int order = 0; order < 2; order++) {
+            ProductImage image = new ProductImage();
+            image.setProduct(product1);
+            image.setImageUrl("https://example.com/summary-" + order + ".jpg");
+            image.setIsPrimary(order == 1);
+            image.setDisplayOrder(order);
+            entityManager.persist(image);
+
+            ProductImage other = new ProductImage();
+            other.setProduct(product2);
+            other.setImageUrl("https://example.com/other-" + order + ".jpg");
+            other.setIsPrimary(false);
+            other.setDisplayOrder(2 - order);
+            entityManager.persist(other);
+        }
+        Statistics statistics = startCountingQueries();
+
+        // Act
+        Page<Map<String, Object>> page = productService.findProjectedByFilters(
+                category.getCategoryId(), null, null, null, null, null, null, null, null,
+                ProductField.SUMMARY, PageRequest.of(0, 1, ProductSort.PRICE.toSort()));
+
+        // Assert - страница и COUNT, ни одной сущности в контексте
+        assertEquals(2, page.getTotalElements());
+        Map<String, Object> row = page.getContent().get(0);
+        assertEquals(List.of("id", "name", "article", "price", "rating", "categoryId", "primaryImageUrl"),
+                List.copyOf(row.keySet()));
+        assertEquals(product1.getProductId(), row.get("id"));
+        assertEquals(category.getCategoryId(), row.get("categoryId"));
+        assertEquals("https://example.com/summary-1.jpg", row.get("primaryImageUrl"));
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        Page<Map<String, Object>> second = productService.findProjectedByFilters(
+                category.getCategoryId(), null, null, null, null, null, null, null, null,
+                ProductField.parse("id,primaryImageUrl"), PageRequest.of(1, 1, ProductSort.PRICE.toSort()));
+        assertEquals(Map.of("id", product2.getProductId(), "primaryImageUrl", "https://example.com/other-1.jpg"),
+                second.getContent().get(0));
+    }
+
+    @Test
+    void parseFields_UnknownField_ThrowsBadRequest() {
+        assertThrows(BadRequestException.class, () -> ProductField.parse("id,images"));
+        assertThrows(BadRequestException.class, () -> ProductField.parse(" , "));
+    }
+
+    @Test
+    void findAllByIds_KeepsRequestOrderAndReportsMissingInFixedQueries() {
+        // Arrange
+        ProductImage image = new ProductImage();
+        image.setProduct(product2);
+        image.setImageUrl("https://example.com/batch.jpg");
+        image.setIsPrimary(true);
+        image.setDisplayOrder(0);
+        entityManager.persist(image);
+        Statistics statistics = startCountingQueries();
+
+        // Act
+        ProductBatchDto batch = productService.findAllByIds(List.of(
+                product2.getProductId(), 999999, product1.getProductId(), product2.getProductId()));
+
+        // Assert - товары, картинки и остатки пачки
+        assertEquals(List.of(product2.getProductId(), product1.getProductId()),
+                batch.products().stream().map(ProductDto::id).toList());
+        assertEquals("https://example.com/batch.jpg", batch.products().get(0).primaryImageUrl());
+        assertEquals(List.of(999999), batch.missingIds());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllByIds_TooManyIds_ThrowsBadRequest() {
+        List<Integer> ids = IntStream.rangeClosed(1, 101).boxed().toList();
+        assertThrows(BadRequestException.class, () -> productService.findAllByIds(ids));
+    }
+
+    // Несохранённый товар категории теста
+    @Test
+    void getFacets_CatalogIndexDisabled_CountsWithSql() {
+        // Arrange
+        product1.setGender("Male");
+        product2.setGender("Female");
+
+        Store store = new Store();
+        store.setAddress("Казань, ул. Баумана, 5");
+        store.setPhone("+79991234580");
+        store = storeRepository.save(store);
+
+        ProductStoreSize inStock = new ProductStoreSize();
+        inStock.setProduct(product1);
+        inStock.setStore(store);
+        inStock.setSizeValue("48");
+        inStock.setQuantity(3);
+
+        ProductStoreSize soldOut = new ProductStoreSize();
+        soldOut.setProduct(product2);
+        soldOut.setStore(store);
+        soldOut.setSizeValue("50");
+        soldOut.setQuantity(0);
+
+        productStoreSizeRepository.saveAll(List.of(inStock, soldOut));
+        entityManager.flush();
+        Integer categoryId = category.getCategoryId();
+
+        // Act
+        ProductFacetsDto all = productFacetService.getFacets(
+                categoryId, null, null, null, null, null, null, null, null);
+        ProductFacetsDto onlyInStock = productFacetService.getFacets(
+                categoryId, null, null, null, null, null, true, store.getStoreId(), null);
+
+        // Assert
+        assertEquals(2L, all.total());
+        assertEquals(2L, all.categories().get(categoryId));
+        assertEquals(Map.of("Male", 1L, "Female", 1L), all.genders());
+        assertEquals(Map.of("48", 1L, "50", 1L), all.sizes());
+        assertEquals(2L, all.priceBuckets().get(1).count()); // [1000, 3000)
+
+        assertEquals(1L, onlyInStock.total());
+        assertEquals(Map.of("Male", 1L), onlyInStock.genders());
+        assertEquals(Map.of("48", 1L), onlyInStock.sizes());
+        assertEquals(1L, onlyInStock.priceBuckets().get(1).count());
+    }
+
+    private Product createProduct(String name, String article, int price) {
+        return createProduct(name, article, price, null);
+    }
+
+    private Product createProduct(String name, String article, int price, Double rating) {
+        return Product.builder()
+                .name(name)
+                .article(article)
+                .price(price)
+                .rating(rating)
+                .category(category)
+                .build();
+    }
+
+    // Сбрасывает отложенные изменения и контекст, чтобы считать только запросы чтения
+    private Statistics startCountingQueries() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
 }
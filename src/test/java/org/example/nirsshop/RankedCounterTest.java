@@ -0,0 +1,84 @@
+package org.example.nirsshop;
+
+import org.example.nirsshop.stats.RankedCounter;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedCounterTest {
+
+    @Test
+    void constructor_InitialValues_RankedByValueThenId() {
+        RankedCounter counter = new RankedCounter(new long[]{0, 5, 3, 5, 0, 1});
+
+        assertArrayEquals(new int[]{1, 3, 2, 5}, counter.top(10));
+        assertArrayEquals(new int[]{1, 3}, counter.top(2));
+        assertEquals(4, counter.size());
+    }
+
+    @Test
+    void add_GrowingValue_MovesUp() {
+        RankedCounter counter = new RankedCounter(new long[]{0, 10, 8, 6, 4});
+
+        counter.add(4, 5);
+
+        assertArrayEquals(new int[]{1, 4, 2, 3}, counter.top(10));
+        assertEquals(9, counter.get(4));
+    }
+
+    @Test
+    void add_ShrinkingValue_MovesDown() {
+        RankedCounter counter = new RankedCounter(new long[]{0, 10, 8, 6, 4});
+
+        counter.add(1, -7);
+
+        assertArrayEquals(new int[]{2, 3, 4, 1}, counter.top(10));
+    }
+
+    @Test
+    void set_ZeroOrNegative_RemovedFromRanking() {
+        RankedCounter counter = new RankedCounter(new long[]{0, 10, 8, 6});
+
+        counter.set(2, 0);
+        counter.add(3, -10);
+
+        assertArrayEquals(new int[]{1}, counter.top(10));
+        assertEquals(-4, counter.get(3));
+    }
+
+    @Test
+    void set_IdBeyondCapacity_Grows() {
+        RankedCounter counter = new RankedCounter();
+
+        counter.set(1_000, 7);
+        counter.set(3, 7);
+
+        assertArrayEquals(new int[]{3, 1_000}, counter.top(10));
+        assertEquals(0, counter.get(5_000));
+    }
+
+    @Test
+    void top_RandomUpdates_MatchesFullSort() {
+        Random random = new Random(42);
+        RankedCounter counter = new RankedCounter();
+        long[] expected = new long[300];
+
+        for (int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(expected.length);
+            long delta = random.nextInt(41) - 15;
+            counter.add(id, delta);
+            expected[id] += delta;
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < expected.length; id++) {
+            if (expected[id] > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort(Comparator.<Integer>comparingLong(id -> -expected[id]).thenComparingInt(id -> id));
+        assertArrayEquals(ids.stream().mapToInt(Integer::intValue).toArray(), counter.top(expected.length));
+    }
+}
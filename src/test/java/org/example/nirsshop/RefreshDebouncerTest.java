@@ -0,0 +1,76 @@
+package org.example.nirsshop;
+
+import org.example.nirsshop.stats.RefreshDebouncer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshDebouncerTest {
+
+    private final RefreshDebouncer debouncer = new RefreshDebouncer(100, 1_000);
+
+    @Test
+    void dueAt_NoChanges_NothingToRefresh() {
+        assertEquals(-1, debouncer.dueAt());
+        assertEquals(0, debouncer.begin(5_000));
+    }
+
+    @Test
+    void dueAt_BurstOfChanges_WaitsForQuietPeriod() {
+        debouncer.changed(1_000);
+        debouncer.changed(1_050);
+        debouncer.changed(1_120);
+
+        assertEquals(1_220, debouncer.dueAt());
+        assertEquals(0, debouncer.begin(1_200));
+        assertEquals(1_000, debouncer.begin(1_220));
+        assertEquals(-1, debouncer.dueAt());
+        assertEquals(1_000, debouncer.staleSince());
+
+        debouncer.succeeded();
+
+        assertEquals(-1, debouncer.dueAt());
+        assertEquals(0, debouncer.staleSince());
+    }
+
+    @Test
+    void dueAt_ContinuousChanges_CappedByMaxDelay() {
+        for (long now = 1_000; now <= 3_000; now += 50) {
+            debouncer.changed(now);
+        }
+
+        assertEquals(2_000, debouncer.dueAt());
+        assertEquals(1_000, debouncer.begin(3_000));
+    }
+
+    @Test
+    void begin_ChangeDuringRefresh_WaitsForNextRefresh() {
+        debouncer.changed(1_000);
+        assertEquals(1_000, debouncer.begin(1_100));
+
+        debouncer.changed(1_150);
+
+        // Пока обновление идёт, данные всё ещё отстают с первого изменения
+        assertEquals(1_000, debouncer.staleSince());
+        assertEquals(0, debouncer.begin(2_000));
+
+        debouncer.succeeded();
+
+        assertEquals(1_150, debouncer.staleSince());
+        assertEquals(1_250, debouncer.dueAt());
+    }
+
+    @Test
+    void failed_KeepsChangesAndBacksOff() {
+        debouncer.changed(1_000);
+        assertEquals(1_000, debouncer.begin(2_500));
+        debouncer.changed(2_550);
+
+        debouncer.failed(2_600);
+
+        assertEquals(1_000, debouncer.staleSince());
+        assertEquals(2_700, debouncer.dueAt());
+        assertEquals(0, debouncer.begin(2_650));
+        assertEquals(1_000, debouncer.begin(2_700));
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.nirsshop;
+
+import jakarta.persistence.EntityManager;
+import org.example.nirsshop.exception.BadRequestException;
+import org.example.nirsshop.model.*;
+import org.example.nirsshop.model.createdto.OrderCreateDto;
+import org.example.nirsshop.model.createdto.OrderItemCreateDto;
+import org.example.nirsshop.model.dto.SalesCategoryDto;
+import org.example.nirsshop.model.dto.SalesDayDto;
+import org.example.nirsshop.model.dto.SalesHourDto;
+import org.example.nirsshop.model.dto.SalesProductDto;
+import org.example.nirsshop.repository.CategoryRepository;
+import org.example.nirsshop.repository.CustomerRepository;
+import org.example.nirsshop.repository.OrderRepository;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.rollup.SalesPeriod;
+import org.example.nirsshop.service.CustomerService;
+import org.example.nirsshop.service.OrderService;
+import org.example.nirsshop.service.ProductOrderService;
+import org.example.nirsshop.service.SalesAnalyticsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class SalesAnalyticsServiceImplIT {
+
+    // Даты задолго до реальных заказов, чтобы агрегаты теста ни с чем не смешивались
+    private static final LocalDate DAY1 = LocalDate.of(1999, 3, 1);
+    private static final LocalDate DAY2 = LocalDate.of(1999, 3, 3);
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    @Autowired
+    private ProductOrderService productOrderService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Customer customer;
+    private Category category;
+    private Product shirt;
+    private Product jeans;
+    private Order order1;
+    private Order order2;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setFullName("Rollup Customer");
+        customer.setAddress("Main Street 1");
+        customer.setPhone("+123456789");
+        customer = customerRepository.save(customer);
+
+        category = new Category();
+        category.setName("Rollup Category");
+        category = categoryRepository.save(category);
+
+        shirt = productRepository.save(createProduct("Rollup Shirt", "ROLLUP-001", 1000));
+        jeans = productRepository.save(createProduct("Rollup Jeans", "ROLLUP-002", 2500));
+
+        order1 = orderRepository.save(createOrder(DAY1));
+        order2 = orderRepository.save(createOrder(DAY2));
+        // Агрегаты читаются через JDBC - товары и заказы должны быть уже в БД
+        entityManager.flush();
+    }
+
+    @Test
+    void getSales_LinesCreatedUpdatedDeleted_RollupsFollow() {
+        // Arrange
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order1.getOrderId(), 2));
+        productOrderService.create(new OrderItemCreateDto(jeans.getProductId(), order1.getOrderId(), 1));
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order2.getOrderId(), 3));
+
+        // Act
+        productOrderService.update(shirt.getProductId(), order2.getOrderId(),
+                new OrderItemCreateDto(shirt.getProductId(), order2.getOrderId(), 5));
+        productOrderService.delete(jeans.getProductId(), order1.getOrderId());
+        List<SalesDayDto> sales = salesAnalyticsService.getSales(
+                DAY1, DAY2, SalesPeriod.DAY, null, category.getCategoryId());
+
+        // Assert
+        assertEquals(List.of(
+                new SalesDayDto(DAY1, 2L, 2000L),
+                new SalesDayDto(DAY2, 5L, 5000L)
+        ), sales);
+    }
+
+    @Test
+    void getSales_OrderDateChanged_SalesMoveToNewDay() {
+        // Arrange
+        productOrderService.create(new OrderItemCreateDto(jeans.getProductId(), order1.getOrderId(), 2));
+
+        // Act
+        orderService.update(order1.getOrderId(), new OrderCreateDto(
+                DAY2, "Pending", 5000, 500, 2, customer.getCustomerId(), false));
+        List<SalesDayDto> sales = salesAnalyticsService.getSales(
+                DAY1, DAY2, SalesPeriod.DAY, jeans.getProductId(), null);
+
+        // Assert
+        assertEquals(List.of(
+                new SalesDayDto(DAY1, 0L, 0L),
+                new SalesDayDto(DAY2, 2L, 5000L)
+        ), sales);
+    }
+
+    @Test
+    void getSales_OrderDeleted_LinesSubtracted() {
+        // Arrange
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order1.getOrderId(), 4));
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order2.getOrderId(), 1));
+
+        // Act
+        orderService.delete(order1.getOrderId());
+        List<SalesDayDto> sales = salesAnalyticsService.getSales(
+                DAY1, DAY2, SalesPeriod.MONTH, shirt.getProductId(), null);
+
+        // Assert
+        assertEquals(List.of(new SalesDayDto(LocalDate.of(1999, 3, 1), 1L, 1000L)), sales);
+    }
+
+    @Test
+    void getSales_PriceChangedBeforeLineRemoved_SubtractsRevenueTheLineAdded() {
+        // Arrange - позиция добавлена по старой цене
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order1.getOrderId(), 2));
+        shirt.setPrice(1500);
+        productRepository.saveAndFlush(shirt);
+
+        // Act
+        productOrderService.update(shirt.getProductId(), order1.getOrderId(),
+                new OrderItemCreateDto(shirt.getProductId(), order1.getOrderId(), 3));
+        List<SalesDayDto> updated = salesAnalyticsService.getSales(
+                DAY1, DAY1, SalesPeriod.DAY, shirt.getProductId(), null);
+        productOrderService.delete(shirt.getProductId(), order1.getOrderId());
+        List<SalesDayDto> deleted = salesAnalyticsService.getSales(
+                DAY1, DAY1, SalesPeriod.DAY, shirt.getProductId(), null);
+
+        // Assert - все изменения позиции по её цене, а не по новой цене товара
+        assertEquals(List.of(new SalesDayDto(DAY1, 3L, 3000L)), updated);
+        assertEquals(List.of(new SalesDayDto(DAY1, 0L, 0L)), deleted);
+    }
+
+    @Test
+    void getSales_CustomerDeleted_OrdersSubtracted() {
+        // Arrange
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order1.getOrderId(), 2));
+        productOrderService.create(new OrderItemCreateDto(jeans.getProductId(), order2.getOrderId(), 1));
+
+        // Act
+        customerService.delete(customer.getCustomerId());
+        List<SalesDayDto> sales = salesAnalyticsService.getSales(
+                DAY1, DAY2, SalesPeriod.MONTH, null, category.getCategoryId());
+
+        // Assert
+        assertEquals(List.of(new SalesDayDto(DAY1, 0L, 0L)), sales);
+    }
+
+    @Test
+    void getTopProductsAndCategories_ReadFromRollups() {
+        // Arrange
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order1.getOrderId(), 3));
+        productOrderService.create(new OrderItemCreateDto(jeans.getProductId(), order2.getOrderId(), 2));
+
+        // Act
+        List<SalesProductDto> top = salesAnalyticsService.getTopProducts(DAY1, DAY2, category.getCategoryId(), 10);
+        List<SalesCategoryDto> categories = salesAnalyticsService.getSalesByCategory(DAY1, DAY2);
+
+        // Assert
+        assertEquals(List.of(
+                new SalesProductDto(jeans.getProductId(), "Rollup Jeans", category.getCategoryId(), 2L, 5000L),
+                new SalesProductDto(shirt.getProductId(), "Rollup Shirt", category.getCategoryId(), 3L, 3000L)
+        ), top);
+        assertTrue(categories.contains(
+                new SalesCategoryDto(category.getCategoryId(), "Rollup Category", 5L, 8000L)));
+    }
+
+    @Test
+    void getHourlySales_LineCreated_CountedInCurrentHour() {
+        // Arrange
+        productOrderService.create(new OrderItemCreateDto(shirt.getProductId(), order1.getOrderId(), 2));
+        LocalDateTime now = LocalDateTime.now();
+
+        // Act
+        List<SalesHourDto> sales = salesAnalyticsService.getHourlySales(
+                now.minusDays(1), now.plusDays(1), shirt.getProductId(), null);
+
+        // Assert
+        assertEquals(1, sales.size());
+        assertEquals(2L, sales.getFirst().units());
+        assertEquals(2000L, sales.getFirst().revenue());
+    }
+
+    @Test
+    void getSales_RangeReversed_ThrowsBadRequest() {
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> salesAnalyticsService.getSales(DAY2, DAY1, SalesPeriod.DAY, null, null));
+    }
+
+    private Product createProduct(String name, String article, Integer price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setArticle(article);
+        product.setPrice(price);
+        product.setWeight(200);
+        product.setDescription("Test product");
+        product.setGender("Male");
+        product.setSize(42);
+        product.setCategory(category);
+        return product;
+    }
+
+    private Order createOrder(LocalDate date) {
+        Order order = new Order();
+        order.setOrderDate(date);
+        order.setOrderStatus("Pending");
+        order.setTotalAmount(5000);
+        order.setWeight(500);
+        order.setItemCount(2);
+        order.setCustomer(customer);
+        return order;
+    }
+}
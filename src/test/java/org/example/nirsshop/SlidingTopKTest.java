@@ -0,0 +1,94 @@
+package org.example.nirsshop;
+
+import org.example.nirsshop.trending.SlidingTopK;
+import org.example.nirsshop.trending.SpaceSaving;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingTopKTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private final SlidingTopK window = new SlidingTopK(24, HOUR, 10, 1024, 4);
+
+    @Test
+    void top_FewProducts_ExactCountsByDescendingSales() {
+        window.add(1, 3, 0);
+        window.add(2, 5, HOUR);
+        window.add(1, 4, 2 * HOUR);
+        window.add(3, 5, 2 * HOUR);
+
+        List<SlidingTopK.Entry> top = window.top(10, 2 * HOUR);
+
+        assertEquals(List.of(
+                new SlidingTopK.Entry(1, 7),
+                new SlidingTopK.Entry(2, 5),
+                new SlidingTopK.Entry(3, 5)
+        ), top);
+        assertEquals(2, window.top(2, 2 * HOUR).size());
+    }
+
+    @Test
+    void top_BucketsOlderThanWindow_Expire() {
+        window.add(1, 10, 0);
+        window.add(2, 1, 23 * HOUR);
+
+        assertEquals(List.of(new SlidingTopK.Entry(1, 10), new SlidingTopK.Entry(2, 1)), window.top(10, 23 * HOUR));
+        assertEquals(List.of(new SlidingTopK.Entry(2, 1)), window.top(10, 24 * HOUR));
+    }
+
+    @Test
+    void add_BucketReused_OldCountsCleared() {
+        window.add(1, 10, 0);
+        window.add(2, 1, 24 * HOUR);
+
+        assertEquals(List.of(new SlidingTopK.Entry(2, 1)), window.top(10, 24 * HOUR));
+    }
+
+    @Test
+    void add_EventOlderThanWindow_Ignored() {
+        window.add(1, 1, 30 * HOUR);
+        window.add(2, 5, 6 * HOUR);
+
+        assertEquals(List.of(new SlidingTopK.Entry(1, 1)), window.top(10, 30 * HOUR));
+    }
+
+    @Test
+    void add_NegativeQuantity_Rejected() {
+        window.add(1, 5, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> window.add(1, -4, HOUR));
+        assertEquals(List.of(new SlidingTopK.Entry(1, 5)), window.top(10, HOUR));
+    }
+
+    @Test
+    void top_ManyRareProducts_HeavyHittersFound() {
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int productId = random.nextInt(4) == 0 ? random.nextInt(5) : 100 + random.nextInt(10_000);
+            window.add(productId, 1, i * 1_000L);
+        }
+
+        List<Integer> top = window.top(5, 50_000 * 1_000L).stream().map(SlidingTopK.Entry::item).sorted().toList();
+
+        assertEquals(List.of(0, 1, 2, 3, 4), top);
+    }
+
+    @Test
+    void offer_TableFull_MinimumEvictedWithInheritedCount() {
+        SpaceSaving spaceSaving = new SpaceSaving(2);
+
+        spaceSaving.offer(1, 5);
+        spaceSaving.offer(2, 3);
+        spaceSaving.offer(3, 1);
+
+        assertEquals(2, spaceSaving.size());
+        assertEquals(1, spaceSaving.item(0));
+        assertEquals(3, spaceSaving.item(1));
+        assertEquals(4, spaceSaving.count(1));
+    }
+}
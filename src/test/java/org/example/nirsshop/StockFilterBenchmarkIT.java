@@ -0,0 +1,153 @@
+package org.example.nirsshop;
+
+import jakarta.persistence.EntityManager;
+import org.example.nirsshop.model.Product;
+import org.example.nirsshop.model.ProductStoreSize;
+import org.example.nirsshop.model.Store;
+import org.example.nirsshop.repository.ProductRepository;
+import org.example.nirsshop.repository.ProductStoreSizeRepository;
+import org.example.nirsshop.repository.StoreRepository;
+import org.example.nirsshop.specification.ProductSpecification;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Фильтр по остаткам (размер + наличие в магазине) одним коррелированным EXISTS
+ * по сравнению с прежними двумя JOIN по product_store_size с DISTINCT.
+ * Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "catalog.index.enabled=false",
+        "catalog.search.index-dir=build/test-search-index"
+})
+@Transactional
+class StockFilterBenchmarkIT {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int STORES = 5;
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "XXL"};
+    private static final List<String> REQUESTED_SIZES = List.of("M", "L");
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+
+    // Прежний вариант: размер и наличие - разные JOIN, строки товара размножаются и схлопываются DISTINCT
+    private static final String JOIN_PAGE = """
+            SELECT DISTINCT p FROM Product p
+            JOIN ProductStoreSize bySize ON bySize.product = p
+            JOIN ProductStoreSize byStock ON byStock.product = p
+            WHERE bySize.sizeValue IN :sizes AND byStock.quantity > 0 AND byStock.store.storeId = :storeId
+            ORDER BY p.productId
+            """;
+
+    private static final String JOIN_COUNT = """
+            SELECT COUNT(DISTINCT p) FROM Product p
+            JOIN ProductStoreSize bySize ON bySize.product = p
+            JOIN ProductStoreSize byStock ON byStock.product = p
+            WHERE bySize.sizeValue IN :sizes AND byStock.quantity > 0 AND byStock.store.storeId = :storeId
+            """;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private ProductStoreSizeRepository productStoreSizeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void stockFilter_ExistsComparedToJoinWithDistinct() {
+        // Arrange - у каждого товара несколько размеров в нескольких магазинах, часть остатков нулевая
+        List<Store> stores = new ArrayList<>(STORES);
+        for (int i = 0; i < STORES; i++) {
+            Store store = new Store();
+            store.setAddress("Москва, ул. Складская, " + (i + 1));
+            stores.add(storeRepository.save(store));
+        }
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        List<ProductStoreSize> stock = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = Product.builder().name("Товар " + i).article("STOCK-" + i).price(500 + i % 1000).build();
+            products.add(product);
+            for (Store store : stores) {
+                for (String size : SIZES) {
+                    if (random.nextInt(3) == 0) {
+                        stock.add(ProductStoreSize.builder().product(product).store(store)
+                                .sizeValue(size).quantity(random.nextInt(4)).build());
+                    }
+                }
+            }
+        }
+        productRepository.saveAll(products);
+        productStoreSizeRepository.saveAll(stock);
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.createNativeQuery("ANALYZE product_store_size").executeUpdate();
+        Integer storeId = stores.get(0).getStoreId();
+        PageRequest page = PageRequest.of(0, PAGE_SIZE, Sort.by("productId"));
+
+        // Act
+        double existsMillis = measure(() -> {
+            Page<Product> result = productRepository.findAll(
+                    ProductSpecification.hasMatchingStock(REQUESTED_SIZES, true, storeId), page);
+            entityManager.clear();
+            return result.getTotalElements();
+        });
+        double joinMillis = measure(() -> {
+            entityManager.createQuery(JOIN_PAGE, Product.class)
+                    .setParameter("sizes", REQUESTED_SIZES)
+                    .setParameter("storeId", storeId)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+            long total = entityManager.createQuery(JOIN_COUNT, Long.class)
+                    .setParameter("sizes", REQUESTED_SIZES)
+                    .setParameter("storeId", storeId)
+                    .getSingleResult();
+            entityManager.clear();
+            return total;
+        });
+
+        // Assert - EXISTS проверяет размер и наличие на одной строке остатка, поэтому совпадений не больше
+        long existsTotal = productRepository.count(ProductSpecification.hasMatchingStock(REQUESTED_SIZES, true, storeId));
+        long joinTotal = entityManager.createQuery(JOIN_COUNT, Long.class)
+                .setParameter("sizes", REQUESTED_SIZES)
+                .setParameter("storeId", storeId)
+                .getSingleResult();
+        assertTrue(existsTotal > 0);
+        assertTrue(existsTotal <= joinTotal);
+        System.out.printf("EXISTS: %.2f мс/страница (%d товаров), JOIN + DISTINCT: %.2f мс/страница (%d товаров); "
+                        + "%d товаров, %d строк остатков%n",
+                existsMillis, existsTotal, joinMillis, joinTotal, PRODUCTS, stock.size());
+    }
+
+    // Страница вместе с COUNT, как у списка товаров
+    private static double measure(Supplier<Long> query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.get();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - started) / 1e6 / ITERATIONS;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.nirsshop;
+
+import org.example.nirsshop.search.SuggestTrie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestTrieTest {
+
+    private SuggestTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new SuggestTrie(3);
+        trie.put(1, List.of("Куртка кожаная", "кожаная", "ART-001"), 5);
+        trie.put(2, List.of("Куртка зимняя", "зимняя", "ART-002"), 50);
+        trie.put(3, List.of("Кулон", "ART-003"), 20);
+        trie.put(4, List.of("Кеды", "ART-004"), 1);
+    }
+
+    @Test
+    void complete_Prefix_ReturnsTopByWeight() {
+        assertArrayEquals(new int[]{2, 3, 1}, trie.complete("ку", 10));
+        assertArrayEquals(new int[]{2, 1}, trie.complete("КУРТ", 10));
+        assertArrayEquals(new int[]{2}, trie.complete("ку", 1));
+        assertArrayEquals(new int[]{1}, trie.complete("art-001", 10));
+        assertArrayEquals(new int[0], trie.complete("шарф", 10));
+    }
+
+    @Test
+    void complete_NonPositiveLimit_ReturnsNothing() {
+        assertArrayEquals(new int[0], trie.complete("ку", 0));
+        assertArrayEquals(new int[0], trie.complete("ку", -1));
+    }
+
+    @Test
+    void complete_TopLimitedToK_KeepsDistinctProducts() {
+        assertArrayEquals(new int[]{2, 3, 1}, trie.complete("", 10));
+        assertArrayEquals(new int[]{2, 3, 1}, trie.complete("art", 10));
+    }
+
+    @Test
+    void updateWeight_ReordersCompletions() {
+        trie.updateWeight(1, 100);
+
+        assertArrayEquals(new int[]{1, 2}, trie.complete("кур", 10));
+        assertEquals(100, trie.weightOf(1));
+    }
+
+    @Test
+    void putAndRemove_UpdatesSplitNodesIncrementally() {
+        trie.put(2, List.of("Кураж"), 50);
+        trie.remove(3);
+
+        assertArrayEquals(new int[]{2, 1}, trie.complete("кур", 10));
+        assertArrayEquals(new int[]{2}, trie.complete("кура", 10));
+        assertArrayEquals(new int[0], trie.complete("кул", 10));
+        assertArrayEquals(new int[0], trie.complete("зим", 10));
+        assertArrayEquals(new int[]{2, 1, 4}, trie.complete("к", 10));
+        assertEquals(3, trie.size());
+    }
+}